@@ -2,8 +2,6 @@ package uk.ac.ed.inf;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 public class PizzaDronzApplication {
@@ -12,9 +10,4 @@ public class PizzaDronzApplication {
         SpringApplication.run(PizzaDronzApplication.class, args);
     }
 
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
-
 }
@@ -0,0 +1,22 @@
+package uk.ac.ed.inf.constant;
+
+/**
+ * the shapes of corridor a path search can be restricted to around the straight line from start to goal
+ */
+public enum CorridorShape {
+
+    /**
+     * no corridor, the search may explore in every direction
+     */
+    NONE,
+
+    /**
+     * an ellipse with the start and goal as foci, bounding the length of any path through it
+     */
+    ELLIPSE,
+
+    /**
+     * a rectangle along the start-goal segment, cheaper to test but looser near the ends
+     */
+    BOX
+}
@@ -0,0 +1,17 @@
+package uk.ac.ed.inf.constant;
+
+/**
+ * the search strategies available for calculating delivery paths
+ */
+public enum PathfindingMode {
+
+    /**
+     * standard A* with an unbounded open set, fastest when memory is plentiful
+     */
+    A_STAR,
+
+    /**
+     * iterative-deepening A* with a fixed memory cap, trades CPU for a predictable heap
+     */
+    IDA_STAR
+}
@@ -0,0 +1,17 @@
+package uk.ac.ed.inf.constant;
+
+/**
+ * what happens to a path search submitted while the compute pool and its queue are full
+ */
+public enum RejectionPolicy {
+
+    /**
+     * refuse the search, the request is answered with SERVICE UNAVAILABLE
+     */
+    REJECT,
+
+    /**
+     * run the search on the submitting request thread, slowing down callers instead of failing them
+     */
+    CALLER_RUNS
+}
@@ -45,4 +45,9 @@ public final class SystemConstants {
      */
     public static final double APPLETON_LAT = 55.944494;
 
+    /**
+     * the ILP REST service the reference data is fetched from unless another base URL is configured
+     */
+    public static final String ILP_REST_BASE_URL = "https://ilp-rest-2024.azurewebsites.net";
+
 }
@@ -0,0 +1,49 @@
+package uk.ac.ed.inf.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.external.ReferenceDataCache;
+
+import java.util.Map;
+
+/**
+ * Controller class for operational endpoints that are not part of the drone API.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    /**
+     * Constructor to initialize dependencies.
+     * @param referenceDataCache The cache of the reference data snapshot.
+     */
+    public AdminController(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    /**
+     * Replaces the cached reference data with a fresh fetch, for when the upstream data is known to have changed.
+     * @return The version and the size of each dataset of the new snapshot, or SERVICE UNAVAILABLE if the fetch fails,
+     *         in which case the previous snapshot stays in use.
+     */
+    @PostMapping("/refreshReferenceData")
+    public ResponseEntity<Map<String, Long>> refreshReferenceData() {
+        try {
+            ReferenceDataSnapshot snapshot = referenceDataCache.refresh();
+            return ResponseEntity.ok(Map.of(
+                    "version", snapshot.version(),
+                    "restaurants", (long) snapshot.restaurants().length,
+                    "noFlyZones", (long) snapshot.noFlyZones().size(),
+                    "centralAreaVertices", (long) snapshot.centralArea().size()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package uk.ac.ed.inf.controller;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams the progress and result of a path search to a client as Server-Sent Events.
+ * The search is cancelled as soon as the client goes away, which the server notices on the next event it sends.
+ */
+public class DeliveryPathStream implements SearchMonitor {
+
+    static final int PATH_CHUNK_SIZE = 100;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final SseEmitter emitter;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private long lastProgressNanos = System.nanoTime();
+
+    /**
+     * Constructs a stream over an emitter and cancels the search when the emitter completes, times out or fails.
+     *
+     * @param emitter The emitter connected to the client.
+     */
+    public DeliveryPathStream(SseEmitter emitter) {
+        this.emitter = emitter;
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(error -> cancelled.set(true));
+    }
+
+    /**
+     * Sends a progress event, at most one every 100 milliseconds.
+     *
+     * @param expansions The number of nodes expanded so far.
+     * @param bestFCost  The lowest estimated total path cost still open.
+     */
+    @Override
+    public synchronized void onProgress(int expansions, double bestFCost) {
+        long now = System.nanoTime();
+        if (now - lastProgressNanos < PROGRESS_INTERVAL_NANOS) {
+            return;
+        }
+        lastProgressNanos = now;
+        send("progress", Map.of("expansions", expansions, "bestFCost", bestFCost));
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Sends the path in chunks of {@link #PATH_CHUNK_SIZE} positions, then a completion event, and closes the stream.
+     *
+     * @param path The path found by the search.
+     */
+    public synchronized void sendPath(List<LngLat> path) {
+        for (int offset = 0; offset < path.size() && !isCancelled(); offset += PATH_CHUNK_SIZE) {
+            List<LngLat> chunk = path.subList(offset, Math.min(path.size(), offset + PATH_CHUNK_SIZE));
+            send("path", Map.of("offset", offset, "positions", chunk));
+        }
+        send("complete", Map.of("moves", path.size() - 1));
+        emitter.complete();
+    }
+
+    /**
+     * Sends a failure event and closes the stream.
+     *
+     * @param reason Why no path could be delivered.
+     */
+    public synchronized void fail(String reason) {
+        send("failed", Map.of("reason", reason));
+        emitter.complete();
+    }
+
+    private void send(String name, Object data) {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            // The client disconnected or the stream already ended, so nobody needs the rest of the search
+            cancelled.set(true);
+        }
+    }
+}
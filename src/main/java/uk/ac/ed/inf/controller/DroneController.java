@@ -1,21 +1,32 @@
 package uk.ac.ed.inf.controller;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import uk.ac.ed.inf.constant.OrderStatus;
 import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.*;
-import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.execution.AdaptiveConcurrencyLimiter;
+import uk.ac.ed.inf.flightpath.CancellationToken;
+import uk.ac.ed.inf.flightpath.PathPlanner;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
 import uk.ac.ed.inf.interfaces.OrderValidation;
-import uk.ac.ed.inf.external.CentralAreaService;
-import uk.ac.ed.inf.external.NoFlyZoneService;
-import uk.ac.ed.inf.external.RestaurantService;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+import uk.ac.ed.inf.external.ReferenceDataCache;
 import uk.ac.ed.inf.validation.OrderValidationImpl;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
 
 /**
  * Controller class that handles all drone-related operations
@@ -24,6 +35,8 @@ import java.util.List;
 public class DroneController {
 
     private static final double tolerance = 0.00015;
+    private static final long STREAM_TIMEOUT_MILLIS = 60_000;
+    private static final long REQUEST_TIMEOUT_MILLIS = 30_000;
 
     /**
      * Health check endpoint to confirm that the service is running.
@@ -244,21 +257,27 @@ public class DroneController {
     }
 
     private final OrderValidation orderValidator;
-    private final RestaurantService restaurantService;
-    private final NoFlyZoneService noFlyZoneService;
-    private final CentralAreaService centralAreaService;
+    private final ReferenceDataCache referenceDataCache;
+    private final PathPlanner pathPlanner;
+    private final ExecutorService pathSearchExecutor;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 
     /**
      * Constructor to initialize dependencies.
-     * @param restaurantService Service for fetching restaurant data.
-     * @param noFlyZoneService Service for fetching no-fly zones.
-     * @param centralAreaService Service for fetching the central area boundary.
+     * @param referenceDataCache Cache of the restaurants, no-fly zones and central area, refreshed in the background.
+     * @param pathPlanner Service running the configured path search strategy.
+     * @param pathSearchExecutor Thread pool the path searches run on, so they never block a servlet thread.
+     * @param concurrencyLimiter Admission control deciding how many path searches may run at once.
      */
-    public DroneController(RestaurantService restaurantService, NoFlyZoneService noFlyZoneService, CentralAreaService centralAreaService) {
-        this.restaurantService = restaurantService;
-        this.orderValidator = new OrderValidationImpl(restaurantService);
-        this.noFlyZoneService = noFlyZoneService;
-        this.centralAreaService = centralAreaService;
+    public DroneController(ReferenceDataCache referenceDataCache, PathPlanner pathPlanner,
+                           @Qualifier("pathSearchExecutor") ExecutorService pathSearchExecutor,
+                           AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        // The restaurants always come from the cached snapshot, so the validator never fetches them itself
+        this.orderValidator = new OrderValidationImpl(null);
+        this.referenceDataCache = referenceDataCache;
+        this.pathPlanner = pathPlanner;
+        this.pathSearchExecutor = pathSearchExecutor;
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
     /**
@@ -270,7 +289,7 @@ public class DroneController {
     public ResponseEntity<Order> validateOrder(@RequestBody Order order) {
 
         try {
-            Restaurant[] restaurants = restaurantService.fetchRestaurants();
+            Restaurant[] restaurants = referenceDataCache.getSnapshot().restaurants();
             Order validatedOrder = orderValidator.validateOrder(order, restaurants);
 
             return ResponseEntity.ok(validatedOrder);
@@ -279,88 +298,271 @@ public class DroneController {
         }
     }
 
+    /**
+     * The outbound path for an order together with the data it was planned against.
+     * The path is null until the search has run, unless it was already planned with the snapshot.
+     */
+    private record DeliveryPlan(Restaurant restaurant, ReferenceDataSnapshot snapshot, List<LngLat> path) {
+    }
+
     /**
      * Calculates the delivery path from the restaurant to Appleton Tower while avoiding no-fly zones.
+     * The search runs on the path search pool and is cancelled if the request times out or the client goes away.
      * @param order The validated order.
-     * @return The calculated path or a BAD REQUEST if the order is invalid.
+     * @return The calculated path, a BAD REQUEST if the order is invalid, or SERVICE UNAVAILABLE on timeout
+     *         or when the path search pool is full.
      */
     @PostMapping("/calcDeliveryPath")
-    public ResponseEntity<List<LngLat>> calcDeliveryPath(@RequestBody Order order) {
-
-        try{
-
-            // Check for syntax errors and missing fields
-            if (order == null ||
-                    order.getOrderNo() == null ||
-                    order.getOrderDate() == null ||
-                    order.getOrderStatus() == null ||
-                    order.getPizzasInOrder() == null ||
-                    order.getPizzasInOrder().length == 0 ||
-                    order.getCreditCardInformation() == null ||
-                    order.getCreditCardInformation().getCreditCardNumber() == null ||
-                    order.getCreditCardInformation().getCreditCardExpiry() == null ||
-                    order.getCreditCardInformation().getCvv() == null) {
+    public DeferredResult<ResponseEntity<List<LngLat>>> calcDeliveryPath(@RequestBody Order order) {
+        return planDeliveryAsync(order, (plan, monitor) -> ResponseEntity.ok(plan.path()));
+    }
 
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
-            }
+    /**
+     * Prepares a delivery on the calling thread, then searches for its path on the path search pool
+     * and completes the returned result with the response built from the plan.
+     * @param order The order to plan.
+     * @param toResponse Builds the response from a successful plan, on the path search pool. It is given the
+     *                   request's cancellation for any further search it runs.
+     * @return The pending response, a BAD REQUEST if planning fails, or SERVICE UNAVAILABLE on timeout,
+     *         over the concurrency limit or when the path search pool is full.
+     */
+    private <T> DeferredResult<ResponseEntity<T>> planDeliveryAsync(
+            Order order, BiFunction<DeliveryPlan, SearchMonitor, ResponseEntity<T>> toResponse) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(REQUEST_TIMEOUT_MILLIS,
+                () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
 
-            // Validate the order
-            Restaurant[] definedRestaurants = restaurantService.fetchRestaurants();
-            Order validatedOrder = orderValidator.validateOrder(order, definedRestaurants);
+        // Fetching reference data on a cache miss is I/O, so it stays off the pool reserved for searches
+        DeliveryPlan prepared;
+        try {
+            prepared = prepareDelivery(order);
+        } catch (Exception e) {
+            e.printStackTrace();
+            prepared = null;
+        }
+        if (prepared == null) {
+            result.setResult(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+            return result;
+        }
 
-            if (validatedOrder.getOrderStatus() != OrderStatus.VALID) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-            }
+        if (!concurrencyLimiter.tryAcquire()) {
+            result.setResult(overloaded());
+            return result;
+        }
+        long admittedAt = System.nanoTime();
 
-            // Fetch data
-            List<NoFlyZone> noFlyZones = noFlyZoneService.fetchNoFlyZones();
-            List<LngLat> centralArea = centralAreaService.fetchCentralArea();
+        // Whichever way the request ends, a search still running for it is no longer needed
+        CancellationToken cancellation = new CancellationToken();
+        result.onTimeout(cancellation::cancel);
+        result.onError(error -> cancellation.cancel());
+        result.onCompletion(cancellation::cancel);
 
-            // Find the restaurant for the order
-            Restaurant restaurant = findRestaurantForOrder(order, definedRestaurants);
-            if (restaurant == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-            }
+        DeliveryPlan plan = prepared;
+        try {
+            CompletableFuture.supplyAsync(() -> searchPath(plan, cancellation), pathSearchExecutor)
+                    .whenComplete((found, error) -> recordSearchOutcome(admittedAt, cancellation.isCancelled()))
+                    .thenApply(found -> found == null ? ResponseEntity.status(HttpStatus.BAD_REQUEST).<T>build() : toResponse.apply(found, cancellation))
+                    .exceptionally(e -> {
+                        e.printStackTrace();
+                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+                    })
+                    .thenAccept(result::setResult);
+        } catch (RejectedExecutionException e) {
+            concurrencyLimiter.onDropped();
+            result.setResult(overloaded());
+        }
+        return result;
+    }
 
-            // Calculate path
-            LngLat appletonTower = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
-            LngLat restaurantLocation = restaurant.location();
-            List<LngLat> pathToAppleton = PathfindingAlgorithm.findPath(restaurantLocation, appletonTower, noFlyZones, centralArea);
+    /**
+     * Ends an admitted search, feeding its latency back into the concurrency limit.
+     * @param admittedAt When the search was admitted, from {@link System#nanoTime()}.
+     * @param cancelled Whether the search was abandoned before it finished.
+     */
+    private void recordSearchOutcome(long admittedAt, boolean cancelled) {
+        if (cancelled) {
+            concurrencyLimiter.onDropped();
+        } else {
+            concurrencyLimiter.onSuccess(System.nanoTime() - admittedAt);
+        }
+    }
 
-            if (pathToAppleton == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-            }
+    /**
+     * Builds the response for a request refused because the server is at capacity.
+     * @return SERVICE UNAVAILABLE with a Retry-After header.
+     */
+    private <T> ResponseEntity<T> overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(concurrencyLimiter.getRetryAfterSeconds()))
+                .build();
+    }
 
-            return ResponseEntity.ok(pathToAppleton);
+    /**
+     * Streaming variant of {@link #calcDeliveryPath}, chosen when the client accepts text/event-stream.
+     * Sends "progress" events with the expansions so far and the best open fCost while searching,
+     * then the path as "path" events in chunks followed by a "complete" event, or a single "failed" event.
+     * Closing the connection cancels the search.
+     * @param order The validated order.
+     * @return The event stream, a BAD REQUEST if the order is invalid, or SERVICE UNAVAILABLE over the
+     *         concurrency limit or when the path search pool is full.
+     */
+    @PostMapping(value = "/calcDeliveryPath", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamDeliveryPath(@RequestBody Order order) {
+        DeliveryPlan prepared;
+        try {
+            prepared = prepareDelivery(order);
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        if (prepared == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
-    }
 
-    private Restaurant findRestaurantForOrder(Order order,Restaurant[] restaurants) {
-        for (Restaurant restaurant : restaurants) {
-            for (Pizza menuItem : restaurant.menu()) {
-                if (Arrays.stream(order.getPizzasInOrder()).anyMatch(pizza -> pizza.name().equals(menuItem.name()))) {
-                    return restaurant;
+        if (!concurrencyLimiter.tryAcquire()) {
+            return overloaded();
+        }
+        long admittedAt = System.nanoTime();
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        DeliveryPathStream stream = new DeliveryPathStream(emitter);
+
+        try {
+            pathSearchExecutor.execute(() -> {
+                try {
+                    DeliveryPlan plan;
+                    try {
+                        plan = searchPath(prepared, stream);
+                    } finally {
+                        recordSearchOutcome(admittedAt, stream.isCancelled());
+                    }
+
+                    if (plan == null) {
+                        stream.fail("No valid delivery path for this order");
+                    } else {
+                        stream.sendPath(plan.path());
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    stream.fail("Delivery path could not be calculated");
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            concurrencyLimiter.onDropped();
+            return overloaded();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Calculates the full round trip from the restaurant to Appleton Tower and back.
+     * The return leg reuses the outbound path in reverse and is only searched for when the reversal is not legal.
+     * @param order The validated order.
+     * @return The outbound path followed by the return path, a BAD REQUEST if the order is invalid
+     *         or the round trip exceeds the drone's battery, or SERVICE UNAVAILABLE on timeout
+     *         or when the path search pool is full.
+     */
+    @PostMapping("/calcRoundTripPath")
+    public DeferredResult<ResponseEntity<List<LngLat>>> calcRoundTripPath(@RequestBody Order order) {
+        return planDeliveryAsync(order, (plan, monitor) -> {
+            List<LngLat> roundTrip = pathPlanner.findRoundTrip(plan.path(), plan.restaurant().location(),
+                    plan.snapshot().noFlyZones(), plan.snapshot().centralArea(),
+                    plan.snapshot().index(ReachabilityMap.INDEX), monitor);
+
+            if (roundTrip == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
             }
+
+            return ResponseEntity.ok(roundTrip);
+        });
+    }
+
+    /**
+     * Validates an order and fetches the data its path is planned against.
+     * @param order The order to plan.
+     * @return The plan, without a path unless the snapshot has it planned already, or null if the order is invalid.
+     */
+    private DeliveryPlan prepareDelivery(Order order) {
+
+        // Check for syntax errors and missing fields
+        if (!hasRequiredFields(order)) {
+            return null;
+        }
+
+        // Take all reference data from one cached snapshot, then validate the order
+        ReferenceDataSnapshot snapshot = referenceDataCache.getSnapshot();
+        Restaurant[] definedRestaurants = snapshot.restaurants();
+        Order validatedOrder = orderValidator.validateOrder(order, definedRestaurants);
+
+        if (validatedOrder.getOrderStatus() != OrderStatus.VALID) {
+            return null;
+        }
+
+        // Find the restaurant for the order
+        Restaurant restaurant = snapshot.findRestaurantServing(order.getPizzasInOrder());
+        if (restaurant == null) {
+            return null;
+        }
+
+        // Snapshots with a routing artifact have their paths planned already, but a request never plans them all
+        Map<LngLat, List<LngLat>> plannedPaths = snapshot.builtIndex(pathPlanner.pathsToAppletonIndex());
+        List<LngLat> plannedPath = plannedPaths == null ? null : plannedPaths.get(restaurant.location());
+
+        return new DeliveryPlan(restaurant, snapshot, plannedPath);
+    }
+
+    /**
+     * Checks that an order has every field needed to validate and plan it.
+     * @param order The order to check, possibly null.
+     * @return true if no required field is missing, false otherwise.
+     */
+    static boolean hasRequiredFields(Order order) {
+        return order != null &&
+                order.getOrderNo() != null &&
+                order.getOrderDate() != null &&
+                order.getOrderStatus() != null &&
+                order.getPizzasInOrder() != null &&
+                order.getPizzasInOrder().length != 0 &&
+                order.getCreditCardInformation() != null &&
+                order.getCreditCardInformation().getCreditCardNumber() != null &&
+                order.getCreditCardInformation().getCreditCardExpiry() != null &&
+                order.getCreditCardInformation().getCvv() != null;
+    }
+
+    /**
+     * Searches for the outbound path of a prepared delivery.
+     * @param prepared The plan returned by {@link #prepareDelivery}, returned as it is if it already has a path.
+     * @param monitor Monitor notified of the search progress and checked for cancellation.
+     * @return The plan with its path, or null if no path exists or the search was cancelled.
+     */
+    private DeliveryPlan searchPath(DeliveryPlan prepared, SearchMonitor monitor) {
+        if (prepared.path() != null) {
+            return prepared;
+        }
+        LngLat appletonTower = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+        LngLat restaurantLocation = prepared.restaurant().location();
+        List<LngLat> pathToAppleton = pathPlanner.findPath(restaurantLocation, appletonTower,
+                prepared.snapshot().noFlyZones(), prepared.snapshot().centralArea(),
+                prepared.snapshot().index(ReachabilityMap.INDEX), monitor);
+
+        if (pathToAppleton == null) {
+            return null;
         }
-        return null;
+
+        return new DeliveryPlan(prepared.restaurant(), prepared.snapshot(), pathToAppleton);
     }
 
     /**
      * Converts a drone delivery path into GeoJSON format for visualization.
+     * Runs on the path search pool like {@link #calcDeliveryPath}.
      * @param order The validated order.
-     * @return The delivery path in GeoJSON format or a BAD REQUEST if an error occurs.
+     * @return The delivery path in GeoJSON format, a BAD REQUEST if an error occurs, or SERVICE UNAVAILABLE on timeout.
      */
     @PostMapping("/calcDeliveryPathAsGeoJson")
-    public ResponseEntity<String> calcDeliveryPathAsGeoJson(@RequestBody Order order) {
-
-        try {
-            List<LngLat> fullPath = calcDeliveryPath(order).getBody();
+    public DeferredResult<ResponseEntity<String>> calcDeliveryPathAsGeoJson(@RequestBody Order order) {
+        return planDeliveryAsync(order, (plan, monitor) -> {
+            List<LngLat> fullPath = plan.path();
 
-            if (fullPath == null || fullPath.isEmpty()) {
+            if (fullPath.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
             }
 
@@ -371,13 +573,10 @@ public class DroneController {
             String geoJson = convertToGeoJson(simplifiedPath);
 
             return ResponseEntity.ok(geoJson);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        }
+        });
     }
 
-    private List<LngLat> removeHoveringSteps (List<LngLat> path) {
+    static List<LngLat> removeHoveringSteps (List<LngLat> path) {
         List<LngLat> simplifiedPath = new ArrayList<>();
         LngLat prev = null;
 
@@ -390,7 +589,7 @@ public class DroneController {
         return simplifiedPath;
     }
 
-    private String convertToGeoJson(List<LngLat> path) {
+    static String convertToGeoJson(List<LngLat> path) {
         StringBuilder geoJson = new StringBuilder("""
                 {
                     "type": "FeatureCollection",
@@ -0,0 +1,242 @@
+package uk.ac.ed.inf.controller;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import uk.ac.ed.inf.constant.OrderStatus;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.Order;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.execution.AdaptiveConcurrencyLimiter;
+import uk.ac.ed.inf.external.ReferenceDataCache;
+import uk.ac.ed.inf.flightpath.CancellationToken;
+import uk.ac.ed.inf.flightpath.PathPlanner;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.OrderValidation;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+import uk.ac.ed.inf.validation.OrderValidationImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+
+/**
+ * Non-blocking variant of the order and delivery path endpoints of {@link DroneController}, under /reactive.
+ * Reference data comes from the same cached snapshot as {@link DroneController}, taken as a future so that a lookup
+ * that has to wait for a fetch waits without holding a thread, and path searches run on a scheduler
+ * backed by the bounded path search pool. {@link DroneController} remains the servlet variant.
+ */
+@RestController
+@RequestMapping("/reactive")
+public class ReactiveDroneController {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final OrderValidation orderValidator;
+    private final ReferenceDataCache referenceDataCache;
+    private final PathPlanner pathPlanner;
+    private final Scheduler searchScheduler;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Constructor to initialize dependencies.
+     * @param referenceDataCache Cache of the restaurants, no-fly zones and central area, shared with {@link DroneController}.
+     * @param pathPlanner Service running the configured path search strategy.
+     * @param pathSearchExecutor Bounded pool the path searches run on, shared with {@link DroneController}.
+     * @param concurrencyLimiter Admission control deciding how many path searches may run at once.
+     */
+    public ReactiveDroneController(ReferenceDataCache referenceDataCache, PathPlanner pathPlanner,
+                                   @Qualifier("pathSearchExecutor") ExecutorService pathSearchExecutor,
+                                   AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        // The restaurants are always passed to the validator, so it never needs the blocking service
+        this.orderValidator = new OrderValidationImpl(null);
+        this.referenceDataCache = referenceDataCache;
+        this.pathPlanner = pathPlanner;
+        this.searchScheduler = Schedulers.fromExecutorService(pathSearchExecutor, "pathSearch");
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Validates an order before processing it.
+     * @param order The order to be validated.
+     * @return The validated order or a BAD REQUEST if validation fails.
+     */
+    @PostMapping("/validateOrder")
+    public Mono<ResponseEntity<Order>> validateOrder(@RequestBody Order order) {
+        return snapshot()
+                .map(snapshot -> ResponseEntity.ok(orderValidator.validateOrder(order, snapshot.restaurants())))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build()));
+    }
+
+    /**
+     * Calculates the delivery path from the restaurant to Appleton Tower while avoiding no-fly zones.
+     * @param order The validated order.
+     * @return The calculated path, a BAD REQUEST if the order is invalid, or SERVICE UNAVAILABLE on timeout,
+     *         over the concurrency limit or when the path search pool is full.
+     */
+    @PostMapping("/calcDeliveryPath")
+    public Mono<ResponseEntity<List<LngLat>>> calcDeliveryPath(@RequestBody Order order) {
+        return planDelivery(order, (plan, monitor) -> ResponseEntity.ok(plan.path()));
+    }
+
+    /**
+     * Converts a drone delivery path into GeoJSON format for visualization.
+     * @param order The validated order.
+     * @return The delivery path in GeoJSON format, a BAD REQUEST if an error occurs, or SERVICE UNAVAILABLE on timeout,
+     *         over the concurrency limit or when the path search pool is full.
+     */
+    @PostMapping("/calcDeliveryPathAsGeoJson")
+    public Mono<ResponseEntity<String>> calcDeliveryPathAsGeoJson(@RequestBody Order order) {
+        return planDelivery(order, (plan, monitor) -> {
+            if (plan.path().isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            }
+            return ResponseEntity.ok(DroneController.convertToGeoJson(DroneController.removeHoveringSteps(plan.path())));
+        });
+    }
+
+    /**
+     * Calculates the full round trip from the restaurant to Appleton Tower and back.
+     * @param order The validated order.
+     * @return The outbound path followed by the return path, a BAD REQUEST if the order is invalid
+     *         or the round trip exceeds the drone's battery, or SERVICE UNAVAILABLE on timeout,
+     *         over the concurrency limit or when the path search pool is full.
+     */
+    @PostMapping("/calcRoundTripPath")
+    public Mono<ResponseEntity<List<LngLat>>> calcRoundTripPath(@RequestBody Order order) {
+        return planDelivery(order, (plan, monitor) -> {
+            List<LngLat> roundTrip = pathPlanner.findRoundTrip(plan.path(), plan.restaurant().location(),
+                    plan.snapshot().noFlyZones(), plan.snapshot().centralArea(),
+                    plan.snapshot().index(ReachabilityMap.INDEX), monitor);
+
+            if (roundTrip == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            }
+
+            return ResponseEntity.ok(roundTrip);
+        });
+    }
+
+    /**
+     * The outbound path for an order together with the data it was planned against.
+     */
+    private record DeliveryPlan(Restaurant restaurant, ReferenceDataSnapshot snapshot, List<LngLat> path) {
+    }
+
+    /**
+     * Takes the cached reference data snapshot without blocking the calling thread.
+     * @return A {@link Mono} of the snapshot, failing if there is none yet and fetching one fails.
+     */
+    private Mono<ReferenceDataSnapshot> snapshot() {
+        return Mono.fromFuture(referenceDataCache::getSnapshotAsync);
+    }
+
+    /**
+     * Takes the cached reference data, validates the order and searches for its path unless the snapshot has it.
+     * @param order The order to plan.
+     * @param toResponse Builds the response from a successful plan, on the path search pool. It is given the
+     *                   request's cancellation for any further search it runs.
+     * @return The response, a BAD REQUEST if planning fails, or SERVICE UNAVAILABLE on timeout,
+     *         over the concurrency limit or when the path search pool is full.
+     */
+    private <T> Mono<ResponseEntity<T>> planDelivery(Order order,
+                                                     BiFunction<DeliveryPlan, SearchMonitor, ResponseEntity<T>> toResponse) {
+        if (!DroneController.hasRequiredFields(order)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+        }
+
+        return snapshot()
+                .flatMap(snapshot -> {
+                    if (orderValidator.validateOrder(order, snapshot.restaurants()).getOrderStatus() != OrderStatus.VALID) {
+                        return Mono.<ResponseEntity<T>>empty();
+                    }
+                    Restaurant restaurant = snapshot.findRestaurantServing(order.getPizzasInOrder());
+                    if (restaurant == null) {
+                        return Mono.<ResponseEntity<T>>empty();
+                    }
+
+                    // Snapshots with a routing artifact have their paths planned already
+                    Map<LngLat, List<LngLat>> plannedPaths = snapshot.builtIndex(pathPlanner.pathsToAppletonIndex());
+                    List<LngLat> plannedPath = plannedPaths == null ? null : plannedPaths.get(restaurant.location());
+                    return searchPath(new DeliveryPlan(restaurant, snapshot, plannedPath), toResponse);
+                })
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.BAD_REQUEST).build())
+                .timeout(REQUEST_TIMEOUT, Mono.fromSupplier(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()))
+                .onErrorResume(e -> {
+                    e.printStackTrace();
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+                });
+    }
+
+    /**
+     * Searches for the outbound path of a prepared delivery on the path search scheduler.
+     * Cancelling the returned {@link Mono}, for example on timeout or disconnect, cancels the search.
+     * @param prepared The plan, whose path is used as it is if the snapshot had it planned already.
+     * @param toResponse Builds the response from the plan once its path is found. It is given the search's
+     *                   cancellation for any further search it runs.
+     * @return The response, empty if no path exists, or SERVICE UNAVAILABLE over the concurrency limit
+     *         or when the path search pool is full.
+     */
+    private <T> Mono<ResponseEntity<T>> searchPath(DeliveryPlan prepared,
+                                                   BiFunction<DeliveryPlan, SearchMonitor, ResponseEntity<T>> toResponse) {
+        if (!concurrencyLimiter.tryAcquire()) {
+            return Mono.just(overloaded());
+        }
+        long admittedAt = System.nanoTime();
+        CancellationToken cancellation = new CancellationToken();
+        LngLat appletonTower = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+
+        return Mono.fromCallable(() -> prepared.path() != null ? prepared.path()
+                        : pathPlanner.findPath(prepared.restaurant().location(), appletonTower,
+                        prepared.snapshot().noFlyZones(), prepared.snapshot().centralArea(),
+                        prepared.snapshot().index(ReachabilityMap.INDEX), cancellation))
+                .map(path -> toResponse.apply(new DeliveryPlan(prepared.restaurant(), prepared.snapshot(), path),
+                        cancellation))
+                .subscribeOn(searchScheduler)
+                .doOnError(RejectedExecutionException.class, e -> cancellation.cancel())
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        cancellation.cancel();
+                    }
+                    recordSearchOutcome(admittedAt, cancellation.isCancelled());
+                })
+                .onErrorResume(RejectedExecutionException.class, e -> Mono.just(overloaded()));
+    }
+
+    /**
+     * Ends an admitted search, feeding its latency back into the concurrency limit.
+     * @param admittedAt When the search was admitted, from {@link System#nanoTime()}.
+     * @param cancelled Whether the search was abandoned or never started.
+     */
+    private void recordSearchOutcome(long admittedAt, boolean cancelled) {
+        if (cancelled) {
+            concurrencyLimiter.onDropped();
+        } else {
+            concurrencyLimiter.onSuccess(System.nanoTime() - admittedAt);
+        }
+    }
+
+    /**
+     * Builds the response for a request refused because the server is at capacity.
+     * @return SERVICE UNAVAILABLE with a Retry-After header.
+     */
+    private <T> ResponseEntity<T> overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(concurrencyLimiter.getRetryAfterSeconds()))
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package uk.ac.ed.inf.data;
+
+import java.util.function.Function;
+
+/**
+ * Names a structure computed from a {@link ReferenceDataSnapshot}, such as a lookup table or a rasterized zone map,
+ * and how to build it. Each snapshot builds an index at most once, the first time it is asked for,
+ * so an index lives exactly as long as the data it was built from.
+ * Indices are told apart by identity, so each should be declared once as a constant.
+ *
+ * @param <T> the type of the built index
+ */
+public final class DerivedIndex<T> {
+
+    private final String name;
+    private final Function<ReferenceDataSnapshot, T> builder;
+
+    /**
+     * Declares an index.
+     *
+     * @param name    A name for the index, used in diagnostics.
+     * @param builder Builds the index from a snapshot. It may read other indices of the same snapshot.
+     */
+    public DerivedIndex(String name, Function<ReferenceDataSnapshot, T> builder) {
+        this.name = name;
+        this.builder = builder;
+    }
+
+    T build(ReferenceDataSnapshot snapshot) {
+        return builder.apply(snapshot);
+    }
+
+    @Override
+    public String toString() {
+        return "DerivedIndex{name='" + name + "'}";
+    }
+}
@@ -0,0 +1,55 @@
+package uk.ac.ed.inf.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A polygon kept as two primitive coordinate arrays instead of one {@link LngLat} object per vertex, as the
+ * reference data parsers build it. It is a read-only list of its vertices, so it can be used wherever a vertex list
+ * is, and the point-in-polygon test reads the coordinate arrays directly.
+ */
+public final class Polygon extends AbstractList<LngLat> implements RandomAccess {
+
+    private final double[] lngs;
+    private final double[] lats;
+
+    /**
+     * Copies the first vertices out of coordinate arrays that may be longer, such as growable parse buffers.
+     *
+     * @param lngs The longitudes of the vertices, in order.
+     * @param lats The latitudes of the vertices, in order.
+     * @param size The number of vertices.
+     */
+    public Polygon(double[] lngs, double[] lats, int size) {
+        if (size < 0 || size > lngs.length || size > lats.length) {
+            throw new IllegalArgumentException("Polygon size " + size + " exceeds its coordinate arrays");
+        }
+        this.lngs = Arrays.copyOf(lngs, size);
+        this.lats = Arrays.copyOf(lats, size);
+    }
+
+    /**
+     * @return the longitude of a vertex
+     */
+    public double lng(int index) {
+        return lngs[index];
+    }
+
+    /**
+     * @return the latitude of a vertex
+     */
+    public double lat(int index) {
+        return lats[index];
+    }
+
+    @Override
+    public LngLat get(int index) {
+        return new LngLat(lngs[index], lats[index]);
+    }
+
+    @Override
+    public int size() {
+        return lngs.length;
+    }
+}
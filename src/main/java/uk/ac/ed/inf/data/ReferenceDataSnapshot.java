@@ -0,0 +1,247 @@
+package uk.ac.ed.inf.data;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One version of the reference data a delivery is planned against: the restaurants, no-fly zones and central area
+ * fetched together, plus any {@link DerivedIndex} built from them.
+ * Snapshots are immutable and shared between requests, so they copy what they are given and never hand out
+ * their own array. A consumer holding a snapshot sees the same data and the same indices for as long as it holds it.
+ */
+public final class ReferenceDataSnapshot {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /**
+     * The index of the first restaurant, in upstream order, that has each pizza on its menu.
+     */
+    private static final DerivedIndex<Map<String, Integer>> RESTAURANT_BY_PIZZA =
+            new DerivedIndex<>("restaurantByPizza", snapshot -> {
+                Map<String, Integer> index = new HashMap<>();
+                for (int i = 0; i < snapshot.restaurants.length; i++) {
+                    for (Pizza pizza : snapshot.restaurants[i].menu()) {
+                        index.putIfAbsent(pizza.name(), i);
+                    }
+                }
+                return Collections.unmodifiableMap(index);
+            });
+
+    /**
+     * SHA-256 of the data itself, equal for snapshots built from equal data whatever their version.
+     */
+    private static final DerivedIndex<byte[]> CONTENT_HASH = new DerivedIndex<>("contentHash", snapshot -> {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (DataOutputStream out = new DataOutputStream(
+                    new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+                snapshot.writeContent(out);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    });
+
+    private final long version;
+    private final Restaurant[] restaurants;
+    private final List<NoFlyZone> noFlyZones;
+    private final List<LngLat> centralArea;
+    private final Map<DerivedIndex<?>, IndexHolder> indices = new ConcurrentHashMap<>();
+
+    /**
+     * Builds a snapshot with the next version number.
+     *
+     * @param restaurants the restaurants and their menus
+     * @param noFlyZones the zones the drone may not enter
+     * @param centralArea the vertices of the central area the drone may not leave once entered
+     */
+    public ReferenceDataSnapshot(Restaurant[] restaurants, List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        this.version = VERSIONS.incrementAndGet();
+        this.restaurants = restaurants.clone();
+        this.noFlyZones = List.copyOf(noFlyZones);
+        this.centralArea = centralArea instanceof Polygon polygon ? polygon : List.copyOf(centralArea);    // Already immutable
+    }
+
+    /**
+     * @return the version of this snapshot, higher for every snapshot built later in this process
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return a copy of the restaurants, in upstream order
+     */
+    public Restaurant[] restaurants() {
+        return restaurants.clone();
+    }
+
+    /**
+     * @return the no-fly zones
+     */
+    public List<NoFlyZone> noFlyZones() {
+        return noFlyZones;
+    }
+
+    /**
+     * @return the vertices of the central area
+     */
+    public List<LngLat> centralArea() {
+        return centralArea;
+    }
+
+    /**
+     * Hashes the restaurants, no-fly zones and central area, so data derived from a snapshot and kept elsewhere,
+     * such as on disk, can be checked against the snapshot it is used with.
+     *
+     * @return the SHA-256 of this snapshot's data
+     */
+    public byte[] contentHash() {
+        return index(CONTENT_HASH).clone();
+    }
+
+    /**
+     * Writes every field in a fixed order, with a count before each array and -1 for a missing one.
+     */
+    private void writeContent(DataOutputStream out) throws IOException {
+        out.writeInt(restaurants.length);
+        for (Restaurant restaurant : restaurants) {
+            out.writeUTF(String.valueOf(restaurant.name()));
+            writeLngLat(out, restaurant.location());
+            DayOfWeek[] openingDays = restaurant.openingDays();
+            out.writeInt(openingDays == null ? -1 : openingDays.length);
+            for (int i = 0; openingDays != null && i < openingDays.length; i++) {
+                out.writeUTF(String.valueOf(openingDays[i]));
+            }
+            Pizza[] menu = restaurant.menu();
+            out.writeInt(menu == null ? -1 : menu.length);
+            for (int i = 0; menu != null && i < menu.length; i++) {
+                out.writeUTF(String.valueOf(menu[i].name()));
+                out.writeInt(menu[i].priceInPence());
+            }
+        }
+        out.writeInt(noFlyZones.size());
+        for (NoFlyZone zone : noFlyZones) {
+            out.writeUTF(String.valueOf(zone.getName()));
+            writeVertices(out, zone.getVertices());
+        }
+        writeVertices(out, centralArea);
+    }
+
+    private static void writeVertices(DataOutputStream out, List<LngLat> vertices) throws IOException {
+        out.writeInt(vertices == null ? -1 : vertices.size());
+        for (int i = 0; vertices != null && i < vertices.size(); i++) {
+            writeLngLat(out, vertices.get(i));
+        }
+    }
+
+    private static void writeLngLat(DataOutputStream out, LngLat position) throws IOException {
+        out.writeBoolean(position != null);
+        if (position != null) {
+            out.writeDouble(position.lng());
+            out.writeDouble(position.lat());
+        }
+    }
+
+    /**
+     * Retrieves an index of this snapshot, building it on first use. Concurrent first uses build it once.
+     *
+     * @param index The index to retrieve.
+     * @return The index built from this snapshot.
+     */
+    public <T> T index(DerivedIndex<T> index) {
+        @SuppressWarnings("unchecked")
+        T value = (T) indices.computeIfAbsent(index, key -> new IndexHolder()).get(index, this);
+        return value;
+    }
+
+    /**
+     * Retrieves an index of this snapshot only if it has already been built or preloaded, without building it.
+     *
+     * @param index The index to retrieve.
+     * @return The index, or null if it has not been built.
+     */
+    public <T> T builtIndex(DerivedIndex<T> index) {
+        IndexHolder holder = indices.get(index);
+        @SuppressWarnings("unchecked")
+        T value = holder == null ? null : (T) holder.value;
+        return value;
+    }
+
+    /**
+     * Supplies an index built elsewhere from the same data, such as one read back from disk, so it is not rebuilt.
+     * An index this snapshot has already built is kept.
+     *
+     * @param index The index to supply.
+     * @param value The index built from data equal to this snapshot's.
+     */
+    public <T> void preloadIndex(DerivedIndex<T> index, T value) {
+        indices.computeIfAbsent(index, key -> new IndexHolder()).preload(value);
+    }
+
+    /**
+     * Finds the restaurant an order is from: the first restaurant, in upstream order, with any of its pizzas on the menu.
+     *
+     * @param pizzas The pizzas in the order.
+     * @return The restaurant, or null if no restaurant has any of the pizzas.
+     */
+    public Restaurant findRestaurantServing(Pizza[] pizzas) {
+        Map<String, Integer> restaurantByPizza = index(RESTAURANT_BY_PIZZA);
+        int first = Integer.MAX_VALUE;
+        for (Pizza pizza : pizzas) {
+            Integer restaurant = restaurantByPizza.get(pizza.name());
+            if (restaurant != null && restaurant < first) {
+                first = restaurant;
+            }
+        }
+        return first == Integer.MAX_VALUE ? null : restaurants[first];
+    }
+
+    /**
+     * Builds an index outside the map's own locking, so a builder may read other indices.
+     */
+    private static final class IndexHolder {
+        private volatile Object value;
+
+        Object get(DerivedIndex<?> index, ReferenceDataSnapshot snapshot) {
+            Object built = value;
+            if (built == null) {
+                synchronized (this) {
+                    built = value;
+                    if (built == null) {
+                        built = index.build(snapshot);
+                        value = built;
+                    }
+                }
+            }
+            return built;
+        }
+
+        synchronized void preload(Object preloaded) {
+            if (value == null) {
+                value = preloaded;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceDataSnapshot{version=" + version + ", restaurants=" + restaurants.length
+                + ", noFlyZones=" + noFlyZones.size() + ", centralArea=" + centralArea.size() + "}";
+    }
+}
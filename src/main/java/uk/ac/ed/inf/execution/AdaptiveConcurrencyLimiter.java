@@ -0,0 +1,143 @@
+package uk.ac.ed.inf.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for path searches using additive-increase/multiplicative-decrease (AIMD).
+ * Every search that finishes within the latency target raises the limit by one per limit's worth of searches,
+ * and every search that is slower, times out or is dropped cuts it by a constant factor.
+ * Requests beyond the current limit are refused straight away instead of queueing behind searches that
+ * would already miss their deadline.
+ */
+@Component
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_FACTOR = 0.75;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final int retryAfterSeconds;
+    private final Counter rejected;
+
+    private double limit;
+    private int inFlight;
+
+    /**
+     * Constructs the limiter from configuration.
+     *
+     * @param enabled           Whether requests are limited at all.
+     * @param initialLimit      The limit to start from, 0 for twice the number of cores.
+     * @param minLimit          The lowest the limit can be cut to.
+     * @param maxLimit          The highest the limit can grow to.
+     * @param latencyTargetMs   The search latency above which the limit is cut.
+     * @param retryAfterSeconds The delay suggested to refused clients.
+     * @param meterRegistry     The registry the limiter metrics are published to.
+     */
+    public AdaptiveConcurrencyLimiter(@Value("${pizzadronz.limiter.enabled:true}") boolean enabled,
+                                      @Value("${pizzadronz.limiter.initial-limit:0}") int initialLimit,
+                                      @Value("${pizzadronz.limiter.min-limit:1}") int minLimit,
+                                      @Value("${pizzadronz.limiter.max-limit:256}") int maxLimit,
+                                      @Value("${pizzadronz.limiter.latency-target-ms:1000}") long latencyTargetMs,
+                                      @Value("${pizzadronz.limiter.retry-after-seconds:1}") int retryAfterSeconds,
+                                      MeterRegistry meterRegistry) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limiter bounds must satisfy 0 < min-limit <= max-limit");
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMs);
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        int start = initialLimit == 0 ? 2 * Runtime.getRuntime().availableProcessors() : initialLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, start));
+
+        this.rejected = Counter.builder("pizzadronz.limiter.rejected")
+                .description("Path requests refused because the concurrency limit was reached")
+                .register(meterRegistry);
+
+        // Registered last: the class is final, so every field is set once the gauges can read it
+        Gauge.builder("pizzadronz.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current number of path searches admitted at once")
+                .register(meterRegistry);
+        Gauge.builder("pizzadronz.limiter.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Path searches currently admitted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a search if fewer than the current limit are in flight.
+     * Every admitted search must be ended with exactly one call to {@link #onSuccess} or {@link #onDropped}.
+     *
+     * @return true if the search may run, false if the request should be refused.
+     */
+    public synchronized boolean tryAcquire() {
+        if (enabled && inFlight >= (int) limit) {
+            rejected.increment();
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Ends an admitted search that completed, whether or not it found a path.
+     *
+     * @param latencyNanos The time from admission to completion.
+     */
+    public synchronized void onSuccess(long latencyNanos) {
+        inFlight--;
+        if (latencyNanos > latencyTargetNanos) {
+            decrease();
+        } else {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    /**
+     * Ends an admitted search that timed out, was cancelled or could not be scheduled.
+     */
+    public synchronized void onDropped() {
+        inFlight--;
+        decrease();
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * BACKOFF_FACTOR);
+    }
+
+    /**
+     * Retrieves the current limit.
+     *
+     * @return The number of searches admitted at once.
+     */
+    public synchronized double getLimit() {
+        return Math.floor(limit);
+    }
+
+    /**
+     * Retrieves the number of admitted searches that have not ended yet.
+     *
+     * @return The searches in flight.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Retrieves the delay suggested to refused clients in the Retry-After header.
+     *
+     * @return The delay in seconds.
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
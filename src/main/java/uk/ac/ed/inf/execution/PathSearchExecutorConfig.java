@@ -0,0 +1,71 @@
+package uk.ac.ed.inf.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.ac.ed.inf.constant.RejectionPolicy;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration of the bounded thread pool that runs CPU-bound path searches apart from the servlet threads.
+ * The pool publishes the standard executor metrics under the name "pathSearch", including the queue depth
+ * as executor.queued, and counts refused searches in pizzadronz.compute.rejected.
+ */
+@Configuration
+public class PathSearchExecutorConfig {
+
+    static final String EXECUTOR_NAME = "pathSearch";
+
+    /**
+     * Builds the path search pool.
+     *
+     * @param threads         The number of search threads, 0 for one per core.
+     * @param queueCapacity   The number of searches that may wait for a thread.
+     * @param rejectionPolicy What to do with a search submitted while the pool and queue are full.
+     * @param meterRegistry   The registry the pool metrics are published to.
+     * @return The pool.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService pathSearchExecutor(@Value("${pizzadronz.compute.threads:0}") int threads,
+                                              @Value("${pizzadronz.compute.queue-capacity:64}") int queueCapacity,
+                                              @Value("${pizzadronz.compute.rejection-policy:REJECT}") RejectionPolicy rejectionPolicy,
+                                              MeterRegistry meterRegistry) {
+        int poolSize = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+        Counter rejected = Counter.builder("pizzadronz.compute.rejected")
+                .description("Path searches refused or run on the caller because the compute pool was full")
+                .tag("policy", rejectionPolicy.name().toLowerCase())
+                .register(meterRegistry);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), rejectionHandler(rejectionPolicy, rejected));
+
+        new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "path-search-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(RejectionPolicy policy, Counter rejected) {
+        RejectedExecutionHandler delegate = switch (policy) {
+            case REJECT -> new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+        };
+        return (runnable, executor) -> {
+            rejected.increment();
+            delegate.rejectedExecution(runnable, executor);
+        };
+    }
+}
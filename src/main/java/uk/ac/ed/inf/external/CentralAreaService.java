@@ -1,11 +1,16 @@
 package uk.ac.ed.inf.external;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.LngLat;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service class responsible for fetching the central area from the API.
@@ -14,32 +19,50 @@ import java.util.Map;
 public class CentralAreaService {
 
     private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final String url;
 
     public CentralAreaService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate; // ✅ Uses the injected RestTemplate
+        this(restTemplate, WebClient.create(), SystemConstants.ILP_REST_BASE_URL);
+    }
+
+    public CentralAreaService(RestTemplate restTemplate, String baseUrl) {
+        this(restTemplate, WebClient.create(), baseUrl);
     }
 
     /**
-     * Fetches the central area coordinates from the external API.
+     * Constructs the service against the configured REST service.
      *
-     * @return A list of {@link LngLat} objects representing the vertices of the central area.
-     * @throws RuntimeException if the request fails or the response structure is incorrect.
+     * @param restTemplate The client blocking fetches are made with.
+     * @param webClient    The client non-blocking fetches are made with.
+     * @param baseUrl      The base URL of the REST service, without the /centralArea path.
      */
-    public List<LngLat> fetchCentralArea() {
-        String url = "https://ilp-rest-2024.azurewebsites.net/centralArea";
-        Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-
-        if (response == null || !response.containsKey("vertices")) {
-            // return List.of();
-            throw new NullPointerException("Received null response from API");
-        }
-
-        List<Map<String, Double>> verticesData =
-                (List<Map<String, Double>>) response.get("vertices");
-        return verticesData.stream()
-                .map(v -> new LngLat(v.get("lng"), v.get("lat")))
-                .toList();
+    @Autowired
+    public CentralAreaService(RestTemplate restTemplate, WebClient webClient,
+                              @Value("${pizzadronz.reference-data.base-url:" + SystemConstants.ILP_REST_BASE_URL + "}") String baseUrl) {
+        this.restTemplate = restTemplate; // ✅ Uses the injected RestTemplate
+        this.webClient = webClient;
+        this.url = Objects.requireNonNullElse(baseUrl, SystemConstants.ILP_REST_BASE_URL).replaceAll("/+$", "") + "/centralArea";
+    }
 
+    /**
+     * Fetches the central area coordinates unless they still match the version the caller holds.
+     *
+     * @param validators The validators of the central area the caller holds, or {@link Validators#NONE}.
+     * @return The central area vertices and their validators, or no body if they have not changed.
+     */
+    public ConditionalFetch<List<LngLat>> fetchCentralArea(Validators validators) {
+        return ConditionalFetch.get(restTemplate, url, ReferenceDataParser::readCentralArea, validators);
     }
 
+    /**
+     * Fetches the central area coordinates unless they still match the version the caller holds,
+     * without blocking the calling thread.
+     *
+     * @param validators The validators of the central area the caller holds, or {@link Validators#NONE}.
+     * @return The central area vertices and their validators, or no body if they have not changed.
+     */
+    public CompletableFuture<ConditionalFetch<List<LngLat>>> fetchCentralAreaAsync(Validators validators) {
+        return ConditionalFetch.retrieve(webClient, url, ReferenceDataParser::readCentralArea, validators);
+    }
 }
@@ -0,0 +1,119 @@
+package uk.ac.ed.inf.external;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The result of a conditional GET: either a new body with its validators, or "not modified",
+ * in which case the caller keeps what it already has and nothing was deserialized.
+ *
+ * @param body the new body, or null if the resource has not changed
+ * @param validators the validators to send on the next fetch
+ * @param <T> the type of the body
+ */
+public record ConditionalFetch<T>(T body, Validators validators) {
+
+    /**
+     * @return true if the resource changed and {@link #body()} holds the new version
+     */
+    public boolean isModified() {
+        return body != null;
+    }
+
+    /**
+     * Fetches a resource unless it still matches the given validators, streaming a new body straight into the reader.
+     *
+     * @param restTemplate The client to fetch with.
+     * @param url          The resource to fetch.
+     * @param reader       The streaming parser a new body is read with.
+     * @param validators   The validators of the version the caller holds, or {@link Validators#NONE}.
+     * @return The new body and validators, or the given validators without a body on 304 Not Modified.
+     * @throws NullPointerException if the upstream answers 200 with an empty body.
+     */
+    static <T> ConditionalFetch<T> get(RestTemplate restTemplate, String url, ReferenceDataParser.Reader<T> reader,
+                                       Validators validators) {
+        ConditionalFetch<T> fetched = restTemplate.execute(url, HttpMethod.GET,
+                request -> {
+                    request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                    validators.applyTo(request.getHeaders());
+                },
+                response -> {
+                    if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return new ConditionalFetch<>(null, validators);
+                    }
+                    T body = ReferenceDataParser.parse(response.getBody(), reader);
+                    if (body == null) {
+                        throw new NullPointerException("Received null response from API");
+                    }
+                    return new ConditionalFetch<>(body, Validators.from(response.getHeaders()));
+                });
+        if (fetched == null) {
+            throw new NullPointerException("Received null response from API");
+        }
+        return fetched;
+    }
+
+    /**
+     * Fetches a resource unless it still matches the given validators, without blocking the calling thread.
+     * A new body is collected as it arrives and parsed by the reader once complete.
+     *
+     * @param webClient  The client to fetch with.
+     * @param url        The resource to fetch.
+     * @param reader     The streaming parser a new body is read with.
+     * @param validators The validators of the version the caller holds, or {@link Validators#NONE}.
+     * @return The new body and validators, or the given validators without a body on 304 Not Modified.
+     *         Completes with a {@link NullPointerException} if the upstream answers 200 with an empty body.
+     */
+    static <T> CompletableFuture<ConditionalFetch<T>> retrieve(WebClient webClient, String url,
+                                                               ReferenceDataParser.Reader<T> reader,
+                                                               Validators validators) {
+        return webClient.get()
+                .uri(url)
+                .accept(MediaType.APPLICATION_JSON)
+                .headers(validators::applyTo)
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return response.releaseBody().thenReturn(new ConditionalFetch<T>(null, validators));
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.createError();
+                    }
+                    Validators received = Validators.from(response.headers().asHttpHeaders());
+                    return DataBufferUtils.join(response.body(BodyExtractors.toDataBuffers()))
+                            .<ConditionalFetch<T>>handle((content, sink) -> {
+                                T body = parse(content, reader);
+                                if (body == null) {
+                                    sink.error(new NullPointerException("Received null response from API"));
+                                } else {
+                                    sink.next(new ConditionalFetch<>(body, received));
+                                }
+                            })
+                            .switchIfEmpty(Mono.error(() -> new NullPointerException("Received null response from API")));
+                })
+                .toFuture();
+    }
+
+    /**
+     * Parses a complete body, releasing its buffer once read.
+     */
+    private static <T> T parse(DataBuffer content, ReferenceDataParser.Reader<T> reader) {
+        try (InputStream in = content.asInputStream(true)) {
+            return ReferenceDataParser.parse(in, reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
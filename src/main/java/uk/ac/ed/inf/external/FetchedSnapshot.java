@@ -0,0 +1,16 @@
+package uk.ac.ed.inf.external;
+
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+
+/**
+ * A reference data snapshot together with the upstream validators of each dataset it was built from,
+ * so the next refresh can ask for only what has changed.
+ *
+ * @param snapshot the snapshot
+ * @param restaurants the validators of the restaurants
+ * @param noFlyZones the validators of the no-fly zones
+ * @param centralArea the validators of the central area
+ */
+public record FetchedSnapshot(ReferenceDataSnapshot snapshot, Validators restaurants, Validators noFlyZones,
+                              Validators centralArea) {
+}
@@ -0,0 +1,88 @@
+package uk.ac.ed.inf.external;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.interfaces.ReferenceDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Reads the reference data from restaurants.json, noFlyZones.json and centralArea.json under
+ * pizzadronz.reference-data.location, in the same JSON layout as the ILP REST service, so benchmarks and soak tests
+ * can run without it. The location is a Spring resource location: classpath:reference-data/ is the sample data
+ * bundled with the application, and a file: location can be edited while the service runs.
+ * Each file's ETag is the hash of its contents, so a refresh only parses the files that changed,
+ * with the same streaming parsers as the HTTP source.
+ * Selected by setting pizzadronz.reference-data.source to file.
+ */
+@Service
+@ConditionalOnProperty(name = "pizzadronz.reference-data.source", havingValue = "file")
+public class FileReferenceDataSource implements ReferenceDataSource {
+
+    private final String location;
+    private final ResourceLoader resourceLoader;
+
+    /**
+     * Constructs the source.
+     *
+     * @param location       The directory the three files are in, as a Spring resource location.
+     * @param resourceLoader The loader the location is resolved with.
+     */
+    public FileReferenceDataSource(@Value("${pizzadronz.reference-data.location:classpath:reference-data/}") String location,
+                                   ResourceLoader resourceLoader) {
+        this.location = location.endsWith("/") ? location : location + "/";
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public ConditionalFetch<Restaurant[]> fetchRestaurants(Validators validators) {
+        return read("restaurants.json", validators, ReferenceDataParser::readRestaurants);
+    }
+
+    @Override
+    public ConditionalFetch<List<NoFlyZone>> fetchNoFlyZones(Validators validators) {
+        return read("noFlyZones.json", validators, ReferenceDataParser::readNoFlyZones);
+    }
+
+    @Override
+    public ConditionalFetch<List<LngLat>> fetchCentralArea(Validators validators) {
+        return read("centralArea.json", validators, ReferenceDataParser::readCentralArea);
+    }
+
+    /**
+     * Reads a file and parses it unless its hash matches the ETag the caller holds.
+     */
+    private <T> ConditionalFetch<T> read(String name, Validators validators, ReferenceDataParser.Reader<T> reader) {
+        Resource resource = resourceLoader.getResource(location + name);
+        try (InputStream in = resource.getInputStream()) {
+            byte[] content = in.readAllBytes();
+            String eTag = "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)) + "\"";
+            if (eTag.equals(validators.eTag())) {
+                return new ConditionalFetch<>(null, validators);
+            }
+
+            T body = ReferenceDataParser.parse(new ByteArrayInputStream(content), reader);
+            if (body == null) {
+                throw new NullPointerException("Received null response from " + resource.getDescription());
+            }
+            return new ConditionalFetch<>(body, new Validators(eTag, null));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + resource.getDescription(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
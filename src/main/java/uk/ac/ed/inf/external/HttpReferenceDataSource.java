@@ -0,0 +1,73 @@
+package uk.ac.ed.inf.external;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.interfaces.ReferenceDataSource;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads the reference data from the ILP REST service at pizzadronz.reference-data.base-url, with conditional GETs.
+ * The async fetches go through the WebClient and never take a thread while waiting for the upstream.
+ * This is the source unless pizzadronz.reference-data.source selects another.
+ */
+@Service
+@ConditionalOnProperty(name = "pizzadronz.reference-data.source", havingValue = "http", matchIfMissing = true)
+public class HttpReferenceDataSource implements ReferenceDataSource {
+
+    private final RestaurantService restaurantService;
+    private final NoFlyZoneService noFlyZoneService;
+    private final CentralAreaService centralAreaService;
+
+    /**
+     * Constructor to initialize dependencies.
+     *
+     * @param restaurantService  Service for fetching restaurant data.
+     * @param noFlyZoneService   Service for fetching no-fly zones.
+     * @param centralAreaService Service for fetching the central area boundary.
+     */
+    public HttpReferenceDataSource(RestaurantService restaurantService, NoFlyZoneService noFlyZoneService,
+                                   CentralAreaService centralAreaService) {
+        this.restaurantService = restaurantService;
+        this.noFlyZoneService = noFlyZoneService;
+        this.centralAreaService = centralAreaService;
+    }
+
+    @Override
+    public ConditionalFetch<Restaurant[]> fetchRestaurants(Validators validators) {
+        return restaurantService.fetchRestaurants(validators);
+    }
+
+    @Override
+    public ConditionalFetch<List<NoFlyZone>> fetchNoFlyZones(Validators validators) {
+        return noFlyZoneService.fetchNoFlyZones(validators);
+    }
+
+    @Override
+    public ConditionalFetch<List<LngLat>> fetchCentralArea(Validators validators) {
+        return centralAreaService.fetchCentralArea(validators);
+    }
+
+    @Override
+    public CompletableFuture<ConditionalFetch<Restaurant[]>> fetchRestaurantsAsync(Validators validators,
+                                                                                  Executor executor) {
+        return restaurantService.fetchRestaurantsAsync(validators);
+    }
+
+    @Override
+    public CompletableFuture<ConditionalFetch<List<NoFlyZone>>> fetchNoFlyZonesAsync(Validators validators,
+                                                                                    Executor executor) {
+        return noFlyZoneService.fetchNoFlyZonesAsync(validators);
+    }
+
+    @Override
+    public CompletableFuture<ConditionalFetch<List<LngLat>>> fetchCentralAreaAsync(Validators validators,
+                                                                                  Executor executor) {
+        return centralAreaService.fetchCentralAreaAsync(validators);
+    }
+}
@@ -1,12 +1,16 @@
 package uk.ac.ed.inf.external;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.NoFlyZone;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service class responsible for fetching the no-fly zones from the API.
@@ -15,25 +19,51 @@ import java.util.List;
 public class NoFlyZoneService {
 
     private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final String url;
 
     // ✅ Correctly inject the RestTemplate
     public NoFlyZoneService(RestTemplate restTemplate) {
+        this(restTemplate, WebClient.create(), SystemConstants.ILP_REST_BASE_URL);
+    }
+
+    public NoFlyZoneService(RestTemplate restTemplate, String baseUrl) {
+        this(restTemplate, WebClient.create(), baseUrl);
+    }
+
+    /**
+     * Constructs the service against the configured REST service.
+     *
+     * @param restTemplate The client blocking fetches are made with.
+     * @param webClient    The client non-blocking fetches are made with.
+     * @param baseUrl      The base URL of the REST service, without the /noFlyZones path.
+     */
+    @Autowired
+    public NoFlyZoneService(RestTemplate restTemplate, WebClient webClient,
+                            @Value("${pizzadronz.reference-data.base-url:" + SystemConstants.ILP_REST_BASE_URL + "}") String baseUrl) {
         this.restTemplate = restTemplate;
+        this.webClient = webClient;
+        this.url = Objects.requireNonNullElse(baseUrl, SystemConstants.ILP_REST_BASE_URL).replaceAll("/+$", "") + "/noFlyZones";
+    }
+
+    /**
+     * Fetches the list of no-fly zones unless it still matches the version the caller holds.
+     *
+     * @param validators The validators of the zones the caller holds, or {@link Validators#NONE}.
+     * @return The no-fly zones and their validators, or no body if they have not changed.
+     */
+    public ConditionalFetch<List<NoFlyZone>> fetchNoFlyZones(Validators validators) {
+        return ConditionalFetch.get(restTemplate, url, ReferenceDataParser::readNoFlyZones, validators);
     }
 
     /**
-     * Fetches the list of no-fly zones.
+     * Fetches the list of no-fly zones unless it still matches the version the caller holds,
+     * without blocking the calling thread.
      *
-     * @return A list of {@link NoFlyZone} objects representing no-fly areas.
-     * If the API response is null, throws an exception.
+     * @param validators The validators of the zones the caller holds, or {@link Validators#NONE}.
+     * @return The no-fly zones and their validators, or no body if they have not changed.
      */
-    public List<NoFlyZone> fetchNoFlyZones() {
-        String url = "https://ilp-rest-2024.azurewebsites.net/noFlyZones";
-        NoFlyZone[] zonesArray = restTemplate.getForObject(url, NoFlyZone[].class);
-
-        if (zonesArray == null) {
-            throw new NullPointerException("Received null response from API");
-        }
-        return Arrays.asList(zonesArray);
+    public CompletableFuture<ConditionalFetch<List<NoFlyZone>>> fetchNoFlyZonesAsync(Validators validators) {
+        return ConditionalFetch.retrieve(webClient, url, ReferenceDataParser::readNoFlyZones, validators);
     }
 }
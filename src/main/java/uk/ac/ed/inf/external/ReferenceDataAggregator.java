@@ -0,0 +1,185 @@
+package uk.ac.ed.inf.external;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.interfaces.ReferenceDataSource;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Service class that fetches the restaurants, no-fly zones and central area concurrently from the configured
+ * {@link ReferenceDataSource}, so fetching all three takes as long as the slowest rather than the sum of the three.
+ * Each fetch is hedged by the {@link RequestHedger}, so one slow upstream response does not hold up the refresh.
+ * The snapshot can be fetched either blocking the caller or as a future, for callers that must not block.
+ */
+@Service
+public class ReferenceDataAggregator {
+
+    private final ReferenceDataSource source;
+    private final RequestHedger hedger;
+    private final long fetchTimeoutMillis;
+    private final ExecutorService fetchExecutor;
+
+    /**
+     * Constructs the aggregator over a reference data source, sending every fetch once.
+     *
+     * @param source             The source the three datasets are fetched from.
+     * @param fetchTimeoutMillis The time all three fetches together may take.
+     */
+    public ReferenceDataAggregator(ReferenceDataSource source, long fetchTimeoutMillis) {
+        this(source, RequestHedger.disabled(), fetchTimeoutMillis);
+    }
+
+    /**
+     * Constructs the aggregator over a reference data source.
+     *
+     * @param source             The source the three datasets are fetched from.
+     * @param hedger             The hedger each fetch is sent through.
+     * @param fetchTimeoutMillis The time all three fetches together may take, hedges included.
+     */
+    @Autowired
+    public ReferenceDataAggregator(ReferenceDataSource source, RequestHedger hedger,
+                                   @Value("${pizzadronz.reference-data.fetch-timeout-ms:5000}") long fetchTimeoutMillis) {
+        if (fetchTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Fetch timeout must be positive");
+        }
+        this.source = source;
+        this.hedger = hedger;
+        this.fetchTimeoutMillis = fetchTimeoutMillis;
+        // The fetches only wait on the network, so a virtual thread each is enough
+        this.fetchExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("reference-data-fetch-", 0).factory());
+    }
+
+    /**
+     * Stops any fetches still running when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Fetches all three datasets concurrently and waits for them within the shared timeout.
+     *
+     * @return The snapshot of the three datasets.
+     * @throws IllegalStateException if the fetches do not all finish within the timeout.
+     * @throws RuntimeException      the failure of the first fetch that failed. Fetches still running are left to finish
+     *                               in the background, as a blocking HTTP call cannot be interrupted.
+     */
+    public ReferenceDataSnapshot fetchSnapshot() {
+        return fetchSnapshot(null).snapshot();
+    }
+
+    /**
+     * Fetches the datasets that changed since a previous fetch, concurrently and within the shared timeout.
+     * Each fetch is a conditional GET, so an unchanged dataset costs one small round trip and is not deserialized.
+     *
+     * @param previous The previous fetch, or null to fetch everything.
+     * @return The previous fetch itself if no dataset changed, otherwise a new snapshot that reuses
+     *         the unchanged datasets of the previous one.
+     * @throws IllegalStateException if the fetches do not all finish within the timeout.
+     * @throws RuntimeException      the failure of the first fetch that failed.
+     */
+    public FetchedSnapshot fetchSnapshot(FetchedSnapshot previous) {
+        CompletableFuture<FetchedSnapshot> fetched = merge(previous,
+                hedger.fetch("restaurants", () -> source.fetchRestaurants(validators(previous, FetchedSnapshot::restaurants)),
+                        fetchExecutor),
+                hedger.fetch("noFlyZones", () -> source.fetchNoFlyZones(validators(previous, FetchedSnapshot::noFlyZones)),
+                        fetchExecutor),
+                hedger.fetch("centralArea", () -> source.fetchCentralArea(validators(previous, FetchedSnapshot::centralArea)),
+                        fetchExecutor));
+        try {
+            return fetched.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches the datasets that changed since a previous fetch like {@link #fetchSnapshot(FetchedSnapshot)},
+     * without blocking the calling thread. A source that can fetch without blocking takes no thread while
+     * it waits for the upstream; any other runs its fetches on the fetch threads.
+     *
+     * @param previous The previous fetch, or null to fetch everything.
+     * @return The fetch, completing with the previous fetch itself if no dataset changed and with a new snapshot
+     *         otherwise, or failing with an {@link IllegalStateException} on timeout or the first fetch that failed.
+     */
+    public CompletableFuture<FetchedSnapshot> fetchSnapshotAsync(FetchedSnapshot previous) {
+        return merge(previous,
+                hedger.fetchAsync("restaurants", () -> source.fetchRestaurantsAsync(
+                        validators(previous, FetchedSnapshot::restaurants), fetchExecutor)),
+                hedger.fetchAsync("noFlyZones", () -> source.fetchNoFlyZonesAsync(
+                        validators(previous, FetchedSnapshot::noFlyZones), fetchExecutor)),
+                hedger.fetchAsync("centralArea", () -> source.fetchCentralAreaAsync(
+                        validators(previous, FetchedSnapshot::centralArea), fetchExecutor)));
+    }
+
+    private static Validators validators(FetchedSnapshot previous, Function<FetchedSnapshot, Validators> dataset) {
+        return previous == null ? Validators.NONE : dataset.apply(previous);
+    }
+
+    /**
+     * Waits for all three fetches within the shared timeout, failing as soon as any of them fails instead of
+     * waiting for the rest, and builds the snapshot from the datasets that changed.
+     */
+    private CompletableFuture<FetchedSnapshot> merge(FetchedSnapshot previous,
+                                                     CompletableFuture<ConditionalFetch<Restaurant[]>> restaurants,
+                                                     CompletableFuture<ConditionalFetch<List<NoFlyZone>>> noFlyZones,
+                                                     CompletableFuture<ConditionalFetch<List<LngLat>>> centralArea) {
+        CompletableFuture<Object> firstFailure = new CompletableFuture<>();
+        for (CompletableFuture<?> fetch : List.of(restaurants, noFlyZones, centralArea)) {
+            fetch.whenComplete((result, error) -> {
+                if (error != null) {
+                    firstFailure.completeExceptionally(error);
+                }
+            });
+        }
+        return CompletableFuture.anyOf(CompletableFuture.allOf(restaurants, noFlyZones, centralArea), firstFailure)
+                .orTimeout(fetchTimeoutMillis, TimeUnit.MILLISECONDS)
+                .thenApply(done -> merge(previous, restaurants.join(), noFlyZones.join(), centralArea.join()))
+                .exceptionallyCompose(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        cause = new IllegalStateException(
+                                "Reference data not fetched within " + fetchTimeoutMillis + " ms", cause);
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    private static FetchedSnapshot merge(FetchedSnapshot previous, ConditionalFetch<Restaurant[]> fetchedRestaurants,
+                                         ConditionalFetch<List<NoFlyZone>> fetchedNoFlyZones,
+                                         ConditionalFetch<List<LngLat>> fetchedCentralArea) {
+        if (previous == null && !(fetchedRestaurants.isModified() && fetchedNoFlyZones.isModified()
+                && fetchedCentralArea.isModified())) {
+            throw new IllegalStateException("Upstream answered Not Modified to an unconditional request");
+        }
+        if (!fetchedRestaurants.isModified() && !fetchedNoFlyZones.isModified() && !fetchedCentralArea.isModified()) {
+            return previous;    // Nothing to rebuild, so the snapshot and its indices stay as they are
+        }
+
+        ReferenceDataSnapshot snapshot = new ReferenceDataSnapshot(
+                fetchedRestaurants.isModified() ? fetchedRestaurants.body() : previous.snapshot().restaurants(),
+                fetchedNoFlyZones.isModified() ? fetchedNoFlyZones.body() : previous.snapshot().noFlyZones(),
+                fetchedCentralArea.isModified() ? fetchedCentralArea.body() : previous.snapshot().centralArea());
+        return new FetchedSnapshot(snapshot, fetchedRestaurants.validators(), fetchedNoFlyZones.validators(),
+                fetchedCentralArea.validators());
+    }
+}
@@ -0,0 +1,380 @@
+package uk.ac.ed.inf.external;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.flightpath.RoutingArtifactStore;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Service class that caches the reference data snapshot, since the upstream data changes about once a day.
+ * Refreshes are conditional GETs, so datasets that have not changed upstream are neither downloaded nor rebuilt.
+ * Only the very first request waits for a fetch. Once the snapshot is older than the TTL it is served stale while it
+ * revalidates: the next request still gets it straight away and a single background refresh replaces it, so a slow
+ * upstream never holds up a request. A failed refresh keeps the old snapshot. With a max-stale set, a snapshot that
+ * has been stale for longer than that is no longer served straight away: requests wait for the running refresh,
+ * and only fall back to the stale snapshot if it fails.
+ * The snapshot can also be taken as a future, for callers that must not block: then the fetches are non-blocking
+ * as well, and the first snapshot and refreshes past the max-stale are waited for without holding a thread.
+ * Each new snapshot replaces the old one in a single atomic swap, so a request sees one version throughout
+ * and indices derived from it are built once per version rather than per request.
+ * With the {@link ReferenceDataStore} enabled, every new snapshot is also written to disk, and the stored one is loaded
+ * at startup as already expired: the first request is served from it while a background refresh replaces it,
+ * and if the upstream cannot be reached it keeps being served.
+ * With the {@link RoutingArtifactStore} enabled, the routing data of every snapshot is mapped from disk,
+ * or built and written once on the refresh thread if no instance has stored it for equal data yet.
+ * Lookups are counted in pizzadronz.reference-data.cache (result hit or miss), refreshes in
+ * pizzadronz.reference-data.refresh (outcome success, unchanged or failure), the version in use is pizzadronz.reference-data.version
+ * and its age in seconds pizzadronz.reference-data.age.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private final ReferenceDataAggregator aggregator;
+    private final ReferenceDataStore store;
+    private final RoutingArtifactStore routingArtifacts;
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final ExecutorService refreshExecutor;
+    private final AtomicReference<CachedSnapshot> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<ReferenceDataSnapshot>> backgroundRefresh = new AtomicReference<>();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter refreshSuccesses;
+    private final Counter refreshFailures;
+    private final Counter refreshesUnchanged;
+
+    private record CachedSnapshot(FetchedSnapshot fetched, long fetchedAtNanos) {
+
+        ReferenceDataSnapshot snapshot() {
+            return fetched.snapshot();
+        }
+    }
+
+    /**
+     * Constructs a cache that serves a stale snapshot for as long as it cannot be replaced.
+     *
+     * @param aggregator    The aggregator the snapshots are fetched with.
+     * @param store         The store new snapshots are written to and the startup snapshot is read from.
+     * @param routingArtifacts The store the routing data of each snapshot is mapped from or written to.
+     * @param ttlSeconds    How long a snapshot is served before it is refreshed in the background.
+     * @param meterRegistry The registry the cache metrics are published to.
+     */
+    public ReferenceDataCache(ReferenceDataAggregator aggregator, ReferenceDataStore store,
+                              RoutingArtifactStore routingArtifacts, long ttlSeconds, MeterRegistry meterRegistry) {
+        this(aggregator, store, routingArtifacts, ttlSeconds, 0, meterRegistry);
+    }
+
+    /**
+     * Constructs the cache.
+     *
+     * @param aggregator    The aggregator the snapshots are fetched with.
+     * @param store         The store new snapshots are written to and the startup snapshot is read from.
+     * @param routingArtifacts The store the routing data of each snapshot is mapped from or written to.
+     * @param ttlSeconds    How long a snapshot is served before it is refreshed in the background.
+     * @param maxStaleSeconds How long past the TTL a snapshot is still served without waiting for its refresh,
+     *                        0 for no limit.
+     * @param meterRegistry The registry the cache metrics are published to.
+     */
+    @Autowired
+    public ReferenceDataCache(ReferenceDataAggregator aggregator, ReferenceDataStore store,
+                              RoutingArtifactStore routingArtifacts,
+                              @Value("${pizzadronz.reference-data.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${pizzadronz.reference-data.max-stale-seconds:0}") long maxStaleSeconds,
+                              MeterRegistry meterRegistry) {
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        if (maxStaleSeconds < 0) {
+            throw new IllegalArgumentException("Max-stale must not be negative");
+        }
+        this.aggregator = aggregator;
+        this.store = store;
+        this.routingArtifacts = routingArtifacts;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxStaleNanos = TimeUnit.SECONDS.toNanos(maxStaleSeconds);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reference-data-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hits = lookupCounter("hit", meterRegistry);
+        this.misses = lookupCounter("miss", meterRegistry);
+        this.refreshSuccesses = refreshCounter("success", meterRegistry);
+        this.refreshFailures = refreshCounter("failure", meterRegistry);
+        this.refreshesUnchanged = refreshCounter("unchanged", meterRegistry);
+        Gauge.builder("pizzadronz.reference-data.version", current, cached -> {
+                    CachedSnapshot snapshot = cached.get();
+                    return snapshot == null ? 0 : snapshot.snapshot().version();
+                })
+                .description("Version of the reference data snapshot requests are planned against")
+                .register(meterRegistry);
+        Gauge.builder("pizzadronz.reference-data.age", current, cached -> {
+                    CachedSnapshot snapshot = cached.get();
+                    return snapshot == null ? 0 : (System.nanoTime() - snapshot.fetchedAtNanos()) / 1e9;
+                })
+                .description("Seconds since the reference data snapshot in use was fetched or last revalidated")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("pizzadronz.reference-data.cache")
+                .description("Reference data lookups, by whether a cached snapshot was available")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter refreshCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("pizzadronz.reference-data.refresh")
+                .description("Reference data refreshes, by whether they replaced, kept or failed to replace the cached snapshot")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the stored snapshot, if any, so requests do not wait for the upstream after a restart.
+     * It counts as expired, so the first request that uses it also refreshes it.
+     * Its routing data is mapped straight away if stored, and built in the background otherwise.
+     */
+    @PostConstruct
+    public void loadStoredSnapshot() {
+        store.load().ifPresent(stored -> {
+            if (current.compareAndSet(null, new CachedSnapshot(stored, System.nanoTime() - ttlNanos - 1))
+                    && !routingArtifacts.attach(stored.snapshot())) {
+                persistInBackground(stored, false);
+            }
+        });
+    }
+
+    /**
+     * Stops a background refresh still running when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Retrieves the cached snapshot, fetching it only if there is none yet.
+     * A snapshot older than the TTL is still returned, and a background refresh is started for later requests.
+     * A snapshot stale for longer than the max-stale is returned only once its refresh has failed.
+     *
+     * @return The current snapshot.
+     * @throws RuntimeException if there is no snapshot yet and fetching one fails.
+     */
+    public ReferenceDataSnapshot getSnapshot() {
+        CachedSnapshot cached = current.get();
+        if (cached == null) {
+            misses.increment();
+            return loadFirstSnapshot();
+        }
+        hits.increment();
+        long age = System.nanoTime() - cached.fetchedAtNanos();
+        if (age > ttlNanos) {
+            CompletableFuture<ReferenceDataSnapshot> refreshing = refreshInBackground(this::refreshOnRefreshThread);
+            if (maxStaleNanos > 0 && age - ttlNanos > maxStaleNanos) {
+                return awaitRefresh(refreshing, cached);
+            }
+        }
+        return cached.snapshot();
+    }
+
+    /**
+     * Retrieves the cached snapshot like {@link #getSnapshot()}, without blocking the calling thread.
+     * The fetches it starts do not block either when the source can fetch without blocking, so a request waiting for
+     * the first snapshot, or for the refresh of one past its max-stale, takes no thread while it waits.
+     * Concurrent first requests share a single fetch.
+     *
+     * @return The current snapshot, or the fetch of the first one, which fails if fetching it fails.
+     */
+    public CompletableFuture<ReferenceDataSnapshot> getSnapshotAsync() {
+        CachedSnapshot cached = current.get();
+        if (cached == null) {
+            misses.increment();
+            // A copy, so a caller that cancels does not cancel the fetch other callers share
+            return refreshInBackground(this::refreshAsync).copy();
+        }
+        hits.increment();
+        long age = System.nanoTime() - cached.fetchedAtNanos();
+        if (age > ttlNanos) {
+            CompletableFuture<ReferenceDataSnapshot> refreshing = refreshInBackground(this::refreshAsync);
+            if (maxStaleNanos > 0 && age - ttlNanos > maxStaleNanos) {
+                return refreshing.handle((snapshot, error) -> error == null ? snapshot : cached.snapshot());
+            }
+        }
+        return CompletableFuture.completedFuture(cached.snapshot());
+    }
+
+    /**
+     * Waits for a running refresh, which the aggregator bounds by its fetch timeout,
+     * and falls back to the stale snapshot if it fails.
+     */
+    private static ReferenceDataSnapshot awaitRefresh(CompletableFuture<ReferenceDataSnapshot> refreshing,
+                                                      CachedSnapshot stale) {
+        try {
+            return refreshing.join();
+        } catch (CompletionException | CancellationException e) {
+            return stale.snapshot();
+        }
+    }
+
+    /**
+     * Fetches the datasets that changed upstream now and replaces the cached snapshot if any did.
+     * If none changed, the cached snapshot is kept, with its indices, and counts as fresh again.
+     *
+     * @return The new snapshot, or the cached one if nothing changed.
+     * @throws RuntimeException if the fetch fails, in which case the cached snapshot is kept.
+     */
+    public ReferenceDataSnapshot refresh() {
+        try {
+            CachedSnapshot previous = current.get();
+            return replace(previous, aggregator.fetchSnapshot(previous == null ? null : previous.fetched()));
+        } catch (RuntimeException e) {
+            refreshFailures.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches the datasets that changed upstream like {@link #refresh()}, without blocking the calling thread.
+     *
+     * @return The refresh, completing with the new snapshot, or the cached one if nothing changed,
+     *         or failing if the fetch fails, in which case the cached snapshot is kept.
+     */
+    public CompletableFuture<ReferenceDataSnapshot> refreshAsync() {
+        CachedSnapshot previous = current.get();
+        CompletableFuture<FetchedSnapshot> fetching;
+        try {
+            fetching = aggregator.fetchSnapshotAsync(previous == null ? null : previous.fetched());
+        } catch (RuntimeException e) {
+            fetching = CompletableFuture.failedFuture(e);
+        }
+        return fetching.whenComplete((fetched, error) -> {
+                    if (error != null) {
+                        refreshFailures.increment();
+                    }
+                })
+                .thenApply(fetched -> replace(previous, fetched));
+    }
+
+    /**
+     * Swaps in a fetched snapshot and writes it to the stores unless it is the previous one unchanged.
+     */
+    private ReferenceDataSnapshot replace(CachedSnapshot previous, FetchedSnapshot fetched) {
+        CachedSnapshot refreshed = new CachedSnapshot(fetched, System.nanoTime());
+        // A forced and a background refresh can overlap, and the one built last holds the newer data
+        current.accumulateAndGet(refreshed, (cached, next) ->
+                cached != null && cached.snapshot().version() > next.snapshot().version() ? cached : next);
+        if (previous != null && fetched == previous.fetched()) {
+            refreshesUnchanged.increment();
+        } else {
+            refreshSuccesses.increment();
+            persistInBackground(fetched, true);
+        }
+        return fetched.snapshot();
+    }
+
+    /**
+     * Concurrent first requests share a single fetch instead of each fetching. The lock is a {@link ReentrantLock}
+     * rather than a monitor so that virtual threads waiting on the fetch do not pin their carrier threads.
+     */
+    private ReferenceDataSnapshot loadFirstSnapshot() {
+        loadLock.lock();
+        try {
+            CachedSnapshot cached = current.get();
+            if (cached != null) {
+                return cached.snapshot();
+            }
+            return refresh();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a new snapshot to the stores on the refresh thread, since preparing its routing data may plan paths.
+     */
+    private void persistInBackground(FetchedSnapshot fetched, boolean saveSnapshot) {
+        boolean save = saveSnapshot && store.isEnabled();
+        if (!save && !routingArtifacts.isEnabled()) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    if (save) {
+                        store.save(fetched);
+                    }
+                } catch (RuntimeException e) {
+                    e.printStackTrace();    // The previous stored snapshot stays in place
+                }
+                try {
+                    routingArtifacts.prepare(fetched.snapshot());
+                } catch (RuntimeException e) {
+                    e.printStackTrace();    // Requests plan their own paths instead
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the next start loads the previous stored snapshot
+        }
+    }
+
+    /**
+     * Runs a blocking refresh on the refresh thread.
+     */
+    private CompletableFuture<ReferenceDataSnapshot> refreshOnRefreshThread() {
+        return CompletableFuture.supplyAsync(this::refresh, refreshExecutor);
+    }
+
+    /**
+     * Starts a refresh unless one is already running.
+     *
+     * @param refresh Starts the refresh and returns it without waiting for it.
+     * @return The running refresh, completing with the refreshed snapshot or the failure.
+     */
+    private CompletableFuture<ReferenceDataSnapshot> refreshInBackground(
+            Supplier<CompletableFuture<ReferenceDataSnapshot>> refresh) {
+        CompletableFuture<ReferenceDataSnapshot> refreshing = new CompletableFuture<>();
+        CompletableFuture<ReferenceDataSnapshot> running = backgroundRefresh.compareAndExchange(null, refreshing);
+        if (running != null) {
+            return running;
+        }
+        CompletableFuture<ReferenceDataSnapshot> started;
+        try {
+            started = refresh.get();
+        } catch (RejectedExecutionException e) {
+            started = CompletableFuture.failedFuture(e);    // Shutting down
+        }
+        started.whenComplete((snapshot, error) -> {
+            backgroundRefresh.set(null);
+            if (error == null) {
+                refreshing.complete(snapshot);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof RejectedExecutionException)) {
+                cause.printStackTrace();    // Keep serving the old snapshot and retry on a later request
+            }
+            refreshing.completeExceptionally(cause);
+        });
+        return refreshing;
+    }
+}
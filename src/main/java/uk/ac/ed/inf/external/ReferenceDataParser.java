@@ -0,0 +1,255 @@
+package uk.ac.ed.inf.external;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Pizza;
+import uk.ac.ed.inf.data.Polygon;
+import uk.ac.ed.inf.data.Restaurant;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming parsers for the three reference datasets, in the JSON layout of the ILP REST service.
+ * They read the token stream once and build the domain objects directly: region vertices go straight into the
+ * primitive coordinate arrays of a {@link Polygon}, with no intermediate maps, boxed coordinates or vertex objects.
+ * Unknown fields are skipped, so new upstream fields do not break parsing.
+ */
+public final class ReferenceDataParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /**
+     * Reads one dataset from a parser positioned before its first token.
+     *
+     * @param <T> the type of the dataset
+     */
+    @FunctionalInterface
+    public interface Reader<T> {
+
+        /**
+         * @return the dataset, or null if the document is empty or null
+         * @throws IOException if the document is not valid JSON or does not have the expected layout.
+         */
+        T read(JsonParser parser) throws IOException;
+    }
+
+    private ReferenceDataParser() {
+    }
+
+    /**
+     * Parses a document with one of the readers, closing the stream.
+     *
+     * @param content The document.
+     * @param reader  The reader of the dataset.
+     * @return The dataset, or null if the document is empty or null.
+     * @throws IOException if the document cannot be read or parsed.
+     */
+    public static <T> T parse(InputStream content, Reader<T> reader) throws IOException {
+        try (JsonParser parser = JSON.createParser(content)) {
+            return reader.read(parser);
+        }
+    }
+
+    /**
+     * Reads the restaurants: an array of objects with a name, a location, opening days and a menu.
+     */
+    public static Restaurant[] readRestaurants(JsonParser parser) throws IOException {
+        if (!startArray(parser)) {
+            return null;
+        }
+        List<Restaurant> restaurants = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            restaurants.add(readRestaurant(parser));
+        }
+        return restaurants.toArray(Restaurant[]::new);
+    }
+
+    /**
+     * Reads the no-fly zones: an array of named regions.
+     */
+    public static List<NoFlyZone> readNoFlyZones(JsonParser parser) throws IOException {
+        if (!startArray(parser)) {
+            return null;
+        }
+        List<NoFlyZone> zones = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser, JsonToken.START_OBJECT);
+            String name = null;
+            Polygon vertices = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = readString(parser);
+                    case "vertices" -> vertices = readPolygon(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            zones.add(new NoFlyZone(name, vertices));
+        }
+        return zones;
+    }
+
+    /**
+     * Reads the central area: a named region, of which only the vertices are kept.
+     *
+     * @throws NullPointerException if the region has no vertices.
+     */
+    public static List<LngLat> readCentralArea(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_OBJECT);
+        Polygon vertices = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("vertices")) {
+                vertices = readPolygon(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (vertices == null) {
+            throw new NullPointerException("Received null response from API");
+        }
+        return vertices;
+    }
+
+    private static Restaurant readRestaurant(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        String name = null;
+        LngLat location = null;
+        DayOfWeek[] openingDays = null;
+        Pizza[] menu = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "name" -> name = readString(parser);
+                case "location" -> location = parser.currentToken() == JsonToken.VALUE_NULL ? null : readLngLat(parser);
+                case "openingDays" -> openingDays = readOpeningDays(parser);
+                case "menu" -> menu = readMenu(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Restaurant(name, location, openingDays, menu);
+    }
+
+    private static DayOfWeek[] readOpeningDays(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+        List<DayOfWeek> days = new ArrayList<>(7);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            days.add(DayOfWeek.valueOf(parser.getValueAsString()));
+        }
+        return days.toArray(DayOfWeek[]::new);
+    }
+
+    private static Pizza[] readMenu(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+        List<Pizza> menu = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser, JsonToken.START_OBJECT);
+            String name = null;
+            int priceInPence = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = readString(parser);
+                    case "priceInPence" -> priceInPence = parser.getValueAsInt();
+                    default -> parser.skipChildren();
+                }
+            }
+            menu.add(new Pizza(name, priceInPence));
+        }
+        return menu.toArray(Pizza[]::new);
+    }
+
+    /**
+     * Reads an array of {"lng", "lat"} objects into growable primitive buffers, trimmed once at the end.
+     */
+    private static Polygon readPolygon(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+        double[] lngs = new double[8];
+        double[] lats = new double[8];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser, JsonToken.START_OBJECT);
+            if (size == lngs.length) {
+                lngs = Arrays.copyOf(lngs, size * 2);
+                lats = Arrays.copyOf(lats, size * 2);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "lng" -> lngs[size] = parser.getDoubleValue();
+                    case "lat" -> lats[size] = parser.getDoubleValue();
+                    default -> parser.skipChildren();
+                }
+            }
+            size++;
+        }
+        return new Polygon(lngs, lats, size);
+    }
+
+    private static LngLat readLngLat(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        double lng = 0;
+        double lat = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "lng" -> lng = parser.getDoubleValue();
+                case "lat" -> lat = parser.getDoubleValue();
+                default -> parser.skipChildren();
+            }
+        }
+        return new LngLat(lng, lat);
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    /**
+     * Moves to the first token of a top-level array.
+     *
+     * @return false if the document is empty or null
+     */
+    private static boolean startArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+        return true;
+    }
+
+    private static void expect(JsonParser parser, JsonToken expected) throws IOException {
+        if (parser.currentToken() != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + parser.currentToken());
+        }
+    }
+}
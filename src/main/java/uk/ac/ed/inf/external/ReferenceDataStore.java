@@ -0,0 +1,171 @@
+package uk.ac.ed.inf.external;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service class that keeps the last good reference data snapshot in a JSON file, so a restarted service is warm
+ * before its first request and can keep planning while the ILP REST service is unreachable.
+ * The file holds the datasets, in the layout of the ILP REST service, and their upstream validators; the routing
+ * data derived from them is kept by {@link uk.ac.ed.inf.flightpath.RoutingArtifactStore}.
+ * The datasets are read back with {@link ReferenceDataParser}, so a loaded snapshot is built exactly like a fetched one.
+ * The store is disabled unless pizzadronz.reference-data.store.enabled is set.
+ */
+@Service
+public class ReferenceDataStore {
+
+    /**
+     * Bumped whenever the file layout changes, so a file written by another version is ignored instead of misread.
+     */
+    static final int FORMAT_VERSION = 3;
+
+    private final boolean enabled;
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    private record StoredReferenceData(int formatVersion, Instant savedAt, Restaurant[] restaurants,
+                                       List<NoFlyZone> noFlyZones, StoredCentralArea centralArea,
+                                       Validators restaurantsValidators, Validators noFlyZonesValidators,
+                                       Validators centralAreaValidators) {
+    }
+
+    private record StoredCentralArea(List<LngLat> vertices) {
+    }
+
+    /**
+     * Constructs the store.
+     *
+     * @param enabled      Whether snapshots are written to and read from disk at all.
+     * @param file         The file the snapshot is kept in.
+     * @param objectMapper The mapper the file is written and read with.
+     */
+    public ReferenceDataStore(@Value("${pizzadronz.reference-data.store.enabled:false}") boolean enabled,
+                              @Value("${pizzadronz.reference-data.store.file:data/reference-data.json}") String file,
+                              ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return whether the store reads and writes snapshots
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads the stored snapshot back.
+     * A missing, unreadable or outdated file counts as no stored snapshot.
+     *
+     * @return The stored snapshot as a new version, or empty if the store is disabled or has none.
+     */
+    public Optional<FetchedSnapshot> load() {
+        if (!enabled || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (JsonParser parser = objectMapper.createParser(file.toFile())) {
+            return read(parser);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();    // Start cold rather than fail to start
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes a snapshot, replacing the stored one. The file is replaced in one move, so a crash mid-write
+     * leaves the previous snapshot in place.
+     *
+     * @param fetched The snapshot to store, with its upstream validators.
+     * @throws UncheckedIOException if the file cannot be written.
+     */
+    public void save(FetchedSnapshot fetched) {
+        if (!enabled) {
+            return;
+        }
+        ReferenceDataSnapshot snapshot = fetched.snapshot();
+        StoredReferenceData stored = new StoredReferenceData(FORMAT_VERSION, Instant.now(), snapshot.restaurants(),
+                snapshot.noFlyZones(), new StoredCentralArea(snapshot.centralArea()), fetched.restaurants(),
+                fetched.noFlyZones(), fetched.centralArea());
+
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                objectMapper.writeValue(temporary.toFile(), stored);
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the stored fields in one pass. The format version is written first, so a file of another version is
+     * given up on before any of its datasets are parsed.
+     */
+    private Optional<FetchedSnapshot> read(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected START_OBJECT but found " + parser.currentToken());
+        }
+        int formatVersion = -1;
+        Restaurant[] restaurants = null;
+        List<NoFlyZone> noFlyZones = null;
+        List<LngLat> centralArea = null;
+        Validators restaurantsValidators = Validators.NONE;
+        Validators noFlyZonesValidators = Validators.NONE;
+        Validators centralAreaValidators = Validators.NONE;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            switch (parser.currentName()) {
+                case "formatVersion" -> {
+                    formatVersion = parser.nextIntValue(-1);
+                    if (formatVersion != FORMAT_VERSION) {
+                        return Optional.empty();
+                    }
+                }
+                case "restaurants" -> restaurants = ReferenceDataParser.readRestaurants(parser);
+                case "noFlyZones" -> noFlyZones = ReferenceDataParser.readNoFlyZones(parser);
+                case "centralArea" -> centralArea = ReferenceDataParser.readCentralArea(parser);
+                case "restaurantsValidators" -> restaurantsValidators = readValidators(parser);
+                case "noFlyZonesValidators" -> noFlyZonesValidators = readValidators(parser);
+                case "centralAreaValidators" -> centralAreaValidators = readValidators(parser);
+                default -> {
+                    parser.nextToken();
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (formatVersion != FORMAT_VERSION) {
+            return Optional.empty();
+        }
+
+        ReferenceDataSnapshot snapshot = new ReferenceDataSnapshot(restaurants, noFlyZones, centralArea);
+        return Optional.of(new FetchedSnapshot(snapshot, restaurantsValidators, noFlyZonesValidators,
+                centralAreaValidators));
+    }
+
+    private Validators readValidators(JsonParser parser) throws IOException {
+        parser.nextToken();
+        return objectMapper.readValue(parser, Validators.class);
+    }
+}
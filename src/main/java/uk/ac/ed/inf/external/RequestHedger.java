@@ -0,0 +1,210 @@
+package uk.ac.ed.inf.external;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Service class that hedges upstream fetches against tail latency: if a fetch has not answered once it is slower
+ * than the configured percentile of its recent fetches, a second identical fetch is sent and whichever answers first
+ * is used. Only the slowest few percent of fetches are sent twice, so the upstream load barely grows while a single
+ * slow response no longer sets the fetch latency. The fetches are GETs, so sending one twice is harmless.
+ * <p>
+ * Latencies are kept per dataset, over its last pizzadronz.reference-data.hedge.window successful fetches.
+ * Until enough have been seen, the hedge is sent after the initial delay.
+ * Hedges are counted in pizzadronz.reference-data.hedge (result sent, or won when the hedge answered first).
+ */
+@Service
+public class RequestHedger {
+
+    /**
+     * Fewer samples than this give a percentile too noisy to hedge on.
+     */
+    static final int MIN_SAMPLES = 8;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long initialDelayMillis;
+    private final int window;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+
+    /**
+     * Recent successful fetch latencies of one dataset, in a ring buffer.
+     */
+    private static final class LatencyWindow {
+        private final long[] nanos;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.nanos = new long[capacity];
+        }
+
+        synchronized void record(long latencyNanos) {
+            nanos[next] = latencyNanos;
+            next = (next + 1) % nanos.length;
+            size = Math.min(size + 1, nanos.length);
+        }
+
+        /**
+         * @return the nearest-rank percentile in nanoseconds, or -1 while there are too few samples
+         */
+        synchronized long percentile(double percentile) {
+            if (size < Math.min(MIN_SAMPLES, nanos.length)) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * size);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+
+    /**
+     * Constructs the hedger.
+     *
+     * @param enabled            Whether a slow fetch is hedged at all.
+     * @param percentile         The percentile of recent latencies after which a fetch is hedged, e.g. 95.
+     * @param minDelayMillis     The shortest delay before hedging, so fast upstreams are not hit twice on jitter.
+     * @param initialDelayMillis The delay before hedging while too few latencies have been seen.
+     * @param window             The number of recent latencies kept per dataset.
+     * @param meterRegistry      The registry the hedge counters are published to.
+     */
+    public RequestHedger(@Value("${pizzadronz.reference-data.hedge.enabled:true}") boolean enabled,
+                         @Value("${pizzadronz.reference-data.hedge.percentile:95}") double percentile,
+                         @Value("${pizzadronz.reference-data.hedge.min-delay-ms:50}") long minDelayMillis,
+                         @Value("${pizzadronz.reference-data.hedge.initial-delay-ms:500}") long initialDelayMillis,
+                         @Value("${pizzadronz.reference-data.hedge.window:64}") int window,
+                         MeterRegistry meterRegistry) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Hedge percentile must be in (0, 100]");
+        }
+        if (minDelayMillis < 0 || initialDelayMillis < 0 || window <= 0) {
+            throw new IllegalArgumentException("Hedge delays must not be negative and the window must be positive");
+        }
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.initialDelayMillis = initialDelayMillis;
+        this.window = window;
+        this.hedgesSent = hedgeCounter("sent", meterRegistry);
+        this.hedgesWon = hedgeCounter("won", meterRegistry);
+    }
+
+    /**
+     * @return a hedger that sends every fetch once
+     */
+    public static RequestHedger disabled() {
+        return new RequestHedger(false, 95, 0, 0, 1, new SimpleMeterRegistry());
+    }
+
+    private static Counter hedgeCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("pizzadronz.reference-data.hedge")
+                .description("Hedged reference data fetches, and how many of them answered before the original")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a fetch, and a second identical one if the first is still running after the hedge delay.
+     * The result completes with the first fetch to succeed, or with the failure of the last to fail.
+     * A fetch that fails before the hedge is due is not hedged, so failures are reported as soon as before.
+     *
+     * @param dataset  The dataset the latencies are kept under.
+     * @param fetch    The fetch to run.
+     * @param executor The executor the fetches run on.
+     * @return The result of the first fetch to succeed.
+     */
+    public <T> CompletableFuture<T> fetch(String dataset, Supplier<T> fetch, Executor executor) {
+        return fetchAsync(dataset, () -> CompletableFuture.supplyAsync(fetch, executor), executor);
+    }
+
+    /**
+     * Starts a fetch that does not block, and a second identical one if the first has not completed
+     * after the hedge delay, as {@link #fetch(String, Supplier, Executor)} does for blocking fetches.
+     *
+     * @param dataset The dataset the latencies are kept under.
+     * @param fetch   Starts the fetch and returns it without waiting for it.
+     * @return The result of the first fetch to succeed.
+     */
+    public <T> CompletableFuture<T> fetchAsync(String dataset, Supplier<CompletableFuture<T>> fetch) {
+        return fetchAsync(dataset, fetch, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs the fetches, starting the hedge on the given executor.
+     */
+    private <T> CompletableFuture<T> fetchAsync(String dataset, Supplier<CompletableFuture<T>> fetch,
+                                                Executor executor) {
+        LatencyWindow latencyWindow = latencies.computeIfAbsent(dataset, key -> new LatencyWindow(window));
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        attempt(fetch, latencyWindow, result, running, false);
+        if (!enabled) {
+            return result;
+        }
+
+        CompletableFuture.runAsync(() -> {
+            if (!result.isDone()) {
+                running.incrementAndGet();
+                hedgesSent.increment();
+                attempt(fetch, latencyWindow, result, running, true);
+            }
+        }, CompletableFuture.delayedExecutor(hedgeDelayMillis(latencyWindow), TimeUnit.MILLISECONDS, executor));
+        return result;
+    }
+
+    /**
+     * @return the delay after which a fetch of the dataset is hedged
+     */
+    public long hedgeDelayMillis(String dataset) {
+        return hedgeDelayMillis(latencies.computeIfAbsent(dataset, key -> new LatencyWindow(window)));
+    }
+
+    private long hedgeDelayMillis(LatencyWindow latencyWindow) {
+        long percentileNanos = latencyWindow.percentile(percentile);
+        long delay = percentileNanos < 0 ? initialDelayMillis : TimeUnit.NANOSECONDS.toMillis(percentileNanos);
+        return Math.max(minDelayMillis, delay);
+    }
+
+    /**
+     * Runs one fetch, recording its latency if it succeeds. Only the last running fetch to fail fails the result.
+     */
+    private <T> void attempt(Supplier<CompletableFuture<T>> fetch, LatencyWindow latencyWindow,
+                             CompletableFuture<T> result, AtomicInteger running, boolean hedge) {
+        long start = System.nanoTime();
+        CompletableFuture<T> attempt;
+        try {
+            attempt = fetch.get();
+        } catch (RuntimeException e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+        attempt.whenComplete((value, error) -> {
+            if (error == null) {
+                latencyWindow.record(System.nanoTime() - start);
+                if (result.complete(value) && hedge) {
+                    hedgesWon.increment();
+                }
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+    }
+}
@@ -1,9 +1,16 @@
 package uk.ac.ed.inf.external;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.Restaurant;
 
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Service class responsible for fetching restaurant data from the API.
  */
@@ -11,24 +18,50 @@ import uk.ac.ed.inf.data.Restaurant;
 public class RestaurantService {
 
     private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final String url;
 
     public RestaurantService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+        this(restTemplate, WebClient.create(), SystemConstants.ILP_REST_BASE_URL);
+    }
+
+    public RestaurantService(RestTemplate restTemplate, String baseUrl) {
+        this(restTemplate, WebClient.create(), baseUrl);
     }
 
     /**
-     * Fetches restaurant data from the external API.
+     * Constructs the service against the configured REST service.
      *
-     * @return an array of {@link Restaurant} objects retrieved from the API, or an empty array if the request fails.
+     * @param restTemplate The client blocking fetches are made with.
+     * @param webClient    The client non-blocking fetches are made with.
+     * @param baseUrl      The base URL of the REST service, without the /restaurants path.
      */
-    public Restaurant[] fetchRestaurants() {
-        String url = "https://ilp-rest-2024.azurewebsites.net/restaurants";
-        Restaurant[] restaurants = restTemplate.getForObject(url, Restaurant[].class);
+    @Autowired
+    public RestaurantService(RestTemplate restTemplate, WebClient webClient,
+                             @Value("${pizzadronz.reference-data.base-url:" + SystemConstants.ILP_REST_BASE_URL + "}") String baseUrl) {
+        this.restTemplate = restTemplate;
+        this.webClient = webClient;
+        this.url = Objects.requireNonNullElse(baseUrl, SystemConstants.ILP_REST_BASE_URL).replaceAll("/+$", "") + "/restaurants";
+    }
 
-        if (restaurants == null) {
-            throw new NullPointerException("Received null response from restaurant API");
-        }
+    /**
+     * Fetches restaurant data from the external API unless it still matches the version the caller holds.
+     *
+     * @param validators The validators of the restaurants the caller holds, or {@link Validators#NONE}.
+     * @return The restaurants and their validators, or no body if they have not changed.
+     */
+    public ConditionalFetch<Restaurant[]> fetchRestaurants(Validators validators) {
+        return ConditionalFetch.get(restTemplate, url, ReferenceDataParser::readRestaurants, validators);
+    }
 
-        return restTemplate.getForObject(url, Restaurant[].class);
+    /**
+     * Fetches the restaurants unless they still match the version the caller holds,
+     * without blocking the calling thread.
+     *
+     * @param validators The validators of the restaurants the caller holds, or {@link Validators#NONE}.
+     * @return The restaurants and their validators, or no body if they have not changed.
+     */
+    public CompletableFuture<ConditionalFetch<Restaurant[]>> fetchRestaurantsAsync(Validators validators) {
+        return ConditionalFetch.retrieve(webClient, url, ReferenceDataParser::readRestaurants, validators);
     }
 }
@@ -0,0 +1,158 @@
+package uk.ac.ed.inf.external;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration of the client the reference data is fetched with. A single JDK {@link HttpClient} is shared by
+ * every call, so its pooled connections are reused and only the first request to the ILP REST service pays for
+ * the TCP and TLS handshakes; HTTP/2 is negotiated when the service offers it and multiplexes the concurrent fetches
+ * over one connection. Blocking fetches go through a {@link RestTemplate} and non-blocking ones through a
+ * {@link WebClient}, both on top of that client.
+ * <p>
+ * The client's own threads publish the standard executor metrics under the name "upstreamHttp", the number of
+ * requests waiting for the upstream by either client is published as pizzadronz.upstream.in-flight, and each request
+ * is timed in http.client.requests.
+ */
+@Configuration
+public class UpstreamHttpClientConfig {
+
+    static final String EXECUTOR_NAME = "upstreamHttp";
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Builds the shared HTTP client.
+     *
+     * @param version          The preferred protocol version; HTTP_2 falls back to HTTP/1.1 if the upstream lacks it.
+     * @param connectTimeoutMs The time a new connection may take to open.
+     * @param threads          The number of threads the client completes requests on.
+     * @param meterRegistry    The registry the client thread metrics are published to.
+     * @return The client.
+     */
+    @Bean
+    public HttpClient upstreamHttpClient(@Value("${pizzadronz.upstream.http-version:HTTP_2}") HttpClient.Version version,
+                                         @Value("${pizzadronz.upstream.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                         @Value("${pizzadronz.upstream.threads:4}") int threads,
+                                         MeterRegistry meterRegistry) {
+        if (connectTimeoutMs <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Upstream connect timeout and threads must be positive");
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Builds the template the reference data services fetch with, on top of the shared client.
+     *
+     * @param upstreamHttpClient  The shared HTTP client.
+     * @param readTimeoutMs       The time a response may take once the request is sent.
+     * @param restTemplateBuilder The builder that adds the http.client.requests instrumentation.
+     * @param meterRegistry       The registry the in-flight gauge is published to.
+     * @return The template.
+     */
+    @Bean
+    public RestTemplate restTemplate(HttpClient upstreamHttpClient,
+                                     @Value("${pizzadronz.upstream.read-timeout-ms:5000}") long readTimeoutMs,
+                                     RestTemplateBuilder restTemplateBuilder, MeterRegistry meterRegistry) {
+        if (readTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Upstream read timeout must be positive");
+        }
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(upstreamHttpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        return restTemplateBuilder
+                .requestFactory(() -> requestFactory)
+                .additionalInterceptors(inFlightGauge(meterRegistry))
+                .build();
+    }
+
+    /**
+     * Builds the client the reference data services fetch with without blocking, on top of the shared client.
+     *
+     * @param upstreamHttpClient The shared HTTP client.
+     * @param readTimeoutMs      The time a response may take once the request is sent.
+     * @param webClientBuilder   The builder that adds the http.client.requests instrumentation.
+     * @param meterRegistry      The registry the in-flight gauge is published to.
+     * @return The client.
+     */
+    @Bean
+    public WebClient upstreamWebClient(HttpClient upstreamHttpClient,
+                                       @Value("${pizzadronz.upstream.read-timeout-ms:5000}") long readTimeoutMs,
+                                       WebClient.Builder webClientBuilder, MeterRegistry meterRegistry) {
+        if (readTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Upstream read timeout must be positive");
+        }
+        Duration readTimeout = Duration.ofMillis(readTimeoutMs);
+        registerInFlightGauge(meterRegistry);
+        // The JDK connector has no read timeout of its own, so the wait for the response is bounded here
+        ExchangeFilterFunction inFlightAndTimeout = (request, next) -> {
+            inFlight.incrementAndGet();
+            return next.exchange(request)
+                    .timeout(readTimeout)
+                    .doFinally(signal -> inFlight.decrementAndGet());
+        };
+
+        return webClientBuilder
+                .clientConnector(new JdkClientHttpConnector(upstreamHttpClient))
+                .filter(inFlightAndTimeout)
+                .build();
+    }
+
+    private void registerInFlightGauge(MeterRegistry meterRegistry) {
+        // Registering again returns the existing gauge, which reads the same counter
+        Gauge.builder("pizzadronz.upstream.in-flight", inFlight, AtomicInteger::get)
+                .description("Requests to the ILP REST service waiting for a response")
+                .register(meterRegistry);
+    }
+
+    private ClientHttpRequestInterceptor inFlightGauge(MeterRegistry meterRegistry) {
+        registerInFlightGauge(meterRegistry);
+        return (request, body, execution) -> {
+            inFlight.incrementAndGet();
+            try {
+                return execution.execute(request, body);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "upstream-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package uk.ac.ed.inf.external;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * The cache validators an upstream response came with, sent back on the next fetch of the same resource
+ * so the upstream can answer 304 Not Modified instead of the full body.
+ *
+ * @param eTag the ETag header, or null if there was none
+ * @param lastModified the Last-Modified header, or null if there was none
+ */
+public record Validators(String eTag, String lastModified) {
+
+    /**
+     * No validators, for a resource that has not been fetched yet. A fetch with these is unconditional.
+     */
+    public static final Validators NONE = new Validators(null, null);
+
+    /**
+     * Reads the validators of a response.
+     *
+     * @param headers The response headers.
+     * @return The validators, {@link #NONE} if the response has neither header.
+     */
+    public static Validators from(HttpHeaders headers) {
+        String eTag = headers.getFirst(HttpHeaders.ETAG);
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        return eTag == null && lastModified == null ? NONE : new Validators(eTag, lastModified);
+    }
+
+    /**
+     * Adds the conditional request headers for these validators.
+     *
+     * @param headers The request headers to add If-None-Match and If-Modified-Since to.
+     */
+    public void applyTo(HttpHeaders headers) {
+        if (eTag != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, eTag);
+        }
+        if (lastModified != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+    }
+}
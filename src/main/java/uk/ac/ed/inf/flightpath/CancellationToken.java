@@ -0,0 +1,30 @@
+package uk.ac.ed.inf.flightpath;
+
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A search monitor that ignores progress and cancels the search once {@link #cancel()} has been called,
+ * typically because the request waiting for the path has timed out or disconnected.
+ */
+public class CancellationToken implements SearchMonitor {
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    /**
+     * Marks the search as no longer needed. It stops at its next cancellation check.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    @Override
+    public void onProgress(int expansions, double bestFCost) {
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+}
@@ -0,0 +1,128 @@
+package uk.ac.ed.inf.flightpath;
+
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+
+import java.util.List;
+
+/**
+ * A region around the straight line from start to goal that bounds which positions a search may visit.
+ * Every position has an excess: for an ellipse, how much longer the detour through it is than the straight line,
+ * and for a box, twice its distance from the segment. A position is inside if its excess is at most the slack,
+ * and the slack is widened so that any no-fly zone touching the corridor can be flown around.
+ */
+public class Corridor {
+
+    private static final double MIN_SLACK = 4 * SystemConstants.DRONE_MOVE_DISTANCE;
+    private static final double DETOUR_MARGIN = 2 * SystemConstants.DRONE_MOVE_DISTANCE;
+
+    private final CorridorShape shape;
+    private final LngLat start;
+    private final LngLat goal;
+    private final double length;
+    private final double slack;
+
+    /**
+     * Builds the corridor between two positions.
+     *
+     * @param shape      The shape of the corridor, either {@link CorridorShape#ELLIPSE} or {@link CorridorShape#BOX}.
+     * @param start      The starting position of the drone.
+     * @param goal       The target destination.
+     * @param slack      The allowed excess before widening around no-fly zones.
+     * @param noFlyZones The no-fly zones the corridor is widened around.
+     */
+    public Corridor(CorridorShape shape, LngLat start, LngLat goal, double slack, List<NoFlyZone> noFlyZones) {
+        if (shape == CorridorShape.NONE) {
+            throw new IllegalArgumentException("A corridor needs a shape");
+        }
+        this.shape = shape;
+        this.start = start;
+        this.goal = goal;
+        this.length = start.distanceTo(goal);
+
+        double corridorSlack = Math.max(slack, MIN_SLACK);
+
+        // Widen until every zone that intersects the corridor fits inside it with room to pass.
+        // Widening for one zone can bring another into the corridor, so repeat until nothing changes.
+        boolean widened;
+        do {
+            widened = false;
+            for (NoFlyZone zone : noFlyZones) {
+                if (!intersects(zone, corridorSlack)) {
+                    continue;
+                }
+                for (LngLat vertex : zone.getVertices()) {
+                    double required = excess(vertex) + DETOUR_MARGIN;
+                    if (required > corridorSlack) {
+                        corridorSlack = required;
+                        widened = true;
+                    }
+                }
+            }
+        } while (widened);
+        this.slack = corridorSlack;
+    }
+
+    /**
+     * Builds a corridor of the same shape with the slack multiplied by the given factor.
+     *
+     * @param factor     The widening factor.
+     * @param noFlyZones The no-fly zones the corridor is widened around.
+     * @return The wider corridor.
+     */
+    public Corridor widen(double factor, List<NoFlyZone> noFlyZones) {
+        return new Corridor(shape, start, goal, slack * factor, noFlyZones);
+    }
+
+    /**
+     * Checks whether a position lies inside the corridor.
+     *
+     * @param position The position to check.
+     * @return true if the position is inside the corridor, false otherwise.
+     */
+    public boolean contains(LngLat position) {
+        return excess(position) <= slack;
+    }
+
+    private double excess(LngLat position) {
+        if (shape == CorridorShape.ELLIPSE) {
+            return position.distanceTo(start) + position.distanceTo(goal) - length;
+        }
+
+        // Distance along and across the segment, measured from the start
+        double dx = position.lng() - start.lng();
+        double dy = position.lat() - start.lat();
+        if (length == 0) {
+            return 2 * Math.sqrt(dx * dx + dy * dy);
+        }
+        double ux = (goal.lng() - start.lng()) / length;
+        double uy = (goal.lat() - start.lat()) / length;
+        double along = dx * ux + dy * uy;
+        double across = Math.abs(dx * uy - dy * ux);
+        double overhang = Math.max(0, Math.max(-along, along - length));
+        return 2 * Math.max(across, overhang);
+    }
+
+    /**
+     * A zone intersects the corridor if any point of its boundary lies inside it.
+     * Edges are sampled at the move distance, which is as fine as the search itself can resolve.
+     */
+    private boolean intersects(NoFlyZone zone, double corridorSlack) {
+        List<LngLat> vertices = zone.getVertices();
+        for (int i = 0; i < vertices.size(); i++) {
+            LngLat from = vertices.get(i);
+            LngLat to = vertices.get((i + 1) % vertices.size());
+            int samples = Math.max(1, (int) Math.ceil(from.distanceTo(to) / SystemConstants.DRONE_MOVE_DISTANCE));
+            for (int k = 0; k <= samples; k++) {
+                double t = (double) k / samples;
+                LngLat point = new LngLat(from.lng() + t * (to.lng() - from.lng()), from.lat() + t * (to.lat() - from.lat()));
+                if (excess(point) <= corridorSlack) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,104 @@
+package uk.ac.ed.inf.flightpath;
+
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+
+import java.util.BitSet;
+
+/**
+ * Precomputed set of positions close to a goal, so the termination test of a search is a constant-time lookup.
+ * The square around the goal is split into small cells. Cells entirely inside the close distance answer true,
+ * cells entirely outside answer false, and only the thin ring of cells on the boundary falls back to
+ * {@link LngLat#isCloseTo}, which keeps the answers identical to calling it directly.
+ */
+public class GoalBasin {
+
+    private static final int CELLS_PER_RADIUS = 16;
+    private static final double MARGIN = 1e-9;  // Relative slack so rounding never misclassifies a cell
+
+    private static final GoalBasin APPLETON_TOWER = new GoalBasin(
+            new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT),
+            SystemConstants.DRONE_IS_CLOSE_DISTANCE);
+
+    private final LngLat goal;
+    private final double tolerance;
+    private final double cellSize;
+    private final double originLng;
+    private final double originLat;
+    private final int size;
+    private final BitSet inside;
+    private final BitSet boundary;
+
+    /**
+     * Builds the basin of all positions closer than the tolerance to the goal.
+     *
+     * @param goal      The target destination.
+     * @param tolerance The distance below which a position counts as close.
+     */
+    public GoalBasin(LngLat goal, double tolerance) {
+        this.goal = goal;
+        this.tolerance = tolerance;
+        this.cellSize = tolerance / CELLS_PER_RADIUS;
+
+        // One extra ring of cells so that everything outside the grid is certainly far away
+        this.size = 2 * CELLS_PER_RADIUS + 2;
+        this.originLng = goal.lng() - (CELLS_PER_RADIUS + 1) * cellSize;
+        this.originLat = goal.lat() - (CELLS_PER_RADIUS + 1) * cellSize;
+        this.inside = new BitSet(size * size);
+        this.boundary = new BitSet(size * size);
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                double minDx = originLng + x * cellSize - goal.lng();
+                double minDy = originLat + y * cellSize - goal.lat();
+                double maxDx = minDx + cellSize;
+                double maxDy = minDy + cellSize;
+
+                double farX = Math.max(Math.abs(minDx), Math.abs(maxDx));
+                double farY = Math.max(Math.abs(minDy), Math.abs(maxDy));
+                double nearX = minDx > 0 ? minDx : (maxDx < 0 ? -maxDx : 0);
+                double nearY = minDy > 0 ? minDy : (maxDy < 0 ? -maxDy : 0);
+
+                int cell = y * size + x;
+                if (Math.sqrt(farX * farX + farY * farY) < tolerance * (1 - MARGIN)) {
+                    inside.set(cell);
+                } else if (Math.sqrt(nearX * nearX + nearY * nearY) <= tolerance * (1 + MARGIN)) {
+                    boundary.set(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the basin for a goal at the drone's close distance, reusing the precomputed one for Appleton Tower.
+     *
+     * @param goal The target destination.
+     * @return The basin around the goal.
+     */
+    public static GoalBasin around(LngLat goal) {
+        if (goal.equals(APPLETON_TOWER.goal)) {
+            return APPLETON_TOWER;
+        }
+        return new GoalBasin(goal, SystemConstants.DRONE_IS_CLOSE_DISTANCE);
+    }
+
+    /**
+     * Checks whether a position is close to the goal, with the same result as {@link LngLat#isCloseTo}.
+     *
+     * @param position The position to check.
+     * @return true if the position is closer than the tolerance to the goal, false otherwise.
+     */
+    public boolean contains(LngLat position) {
+        int x = (int) Math.floor((position.lng() - originLng) / cellSize);
+        int y = (int) Math.floor((position.lat() - originLat) / cellSize);
+        if (x < 0 || y < 0 || x >= size || y >= size) {
+            return false;
+        }
+
+        int cell = y * size + x;
+        if (inside.get(cell)) {
+            return true;
+        }
+        return boundary.get(cell) && position.isCloseTo(goal, tolerance);
+    }
+}
@@ -0,0 +1,354 @@
+package uk.ac.ed.inf.flightpath;
+
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel pathfinding using hash-distributed A* (HDA*).
+ * Lattice positions are partitioned by hash. Each partition owns the open list and best costs of its positions,
+ * and successors that belong to another partition are passed to it between rounds.
+ * <p>
+ * The search runs in rounds. In each round every partition with work expands a few of its best nodes, and the
+ * successors it produced for other partitions are delivered in partition order before the next round starts.
+ * The calling thread works through the partitions of a round itself and helper tasks on the executor take some of
+ * them off it, so which thread runs a partition never changes the result and a saturated executor only makes the
+ * search slower. The search shares the expansion and node budget of {@link PathfindingAlgorithm}.
+ * <p>
+ * Experimental: on the routes this service plans, best-first order only leaves one or two expansions per partition
+ * and round, so the round barrier costs more than the expansions it spreads out and the search is slower than A*.
+ * Larger rounds do not help, they leave best-first order and run out of the node budget off the route.
+ * It stays off unless {@code PathSearchBenchmark} shows it beating A* on the target hardware.
+ */
+public class HashDistributedSearch {
+
+    // Small rounds keep the partitions close to best-first order, larger ones exhaust the node budget off the route
+    private static final int EXPANSIONS_PER_ROUND = 2;
+
+    /**
+     * Open list order: lowest estimated total cost first, with ties broken by position so that the order never
+     * depends on arrival order.
+     */
+    private static final Comparator<SearchNode> NODE_ORDER = Comparator.comparingDouble(SearchNode::fCost)
+            .thenComparingDouble(node -> node.position().lng())
+            .thenComparingDouble(node -> node.position().lat())
+            .thenComparing(SearchNode::hasEnteredCentralArea);
+
+    private final int partitions;
+    private final ExecutorService executor;
+
+    private record SearchNode(LngLat position, SearchNode parent, double gCost, double fCost,
+                              boolean hasEnteredCentralArea) {
+
+        NodeKey key() {
+            return new NodeKey(position, hasEnteredCentralArea);
+        }
+    }
+
+    private record NodeKey(LngLat position, boolean hasEnteredCentralArea) {
+    }
+
+    /**
+     * The search state owned by one partition. Only the thread running the partition in the current round, or the
+     * calling thread between rounds, touches it.
+     */
+    private static final class Partition {
+        private final PriorityQueue<SearchNode> openSet = new PriorityQueue<>(NODE_ORDER);
+        private final Map<NodeKey, Double> bestCosts = new HashMap<>();
+        private final List<SearchNode> inbox = new ArrayList<>();
+        private final List<List<SearchNode>> outboxes = new ArrayList<>();  // Successors for each partition
+        private SearchNode goalNode;
+        private int expansions;
+
+        private Partition(int partitions) {
+            for (int i = 0; i < partitions; i++) {
+                outboxes.add(new ArrayList<>());
+            }
+        }
+
+        private void relax(SearchNode node) {
+            Double best = bestCosts.get(node.key());
+            if (best == null || node.gCost() < best) {
+                bestCosts.put(node.key(), node.gCost());
+                openSet.add(node);
+            }
+        }
+
+        private boolean hasWork() {
+            return !openSet.isEmpty() || !inbox.isEmpty();
+        }
+    }
+
+    /**
+     * The partitions of one round, claimed one at a time by the calling thread and the helpers.
+     */
+    private static final class Round {
+        private final int[] active;
+        private final int quota;
+        private final AtomicInteger nextClaim = new AtomicInteger();
+        private final CountDownLatch completed;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Round(int[] active, int quota) {
+            this.active = active;
+            this.quota = quota;
+            this.completed = new CountDownLatch(active.length);
+        }
+    }
+
+    /**
+     * Constructs a parallel search.
+     *
+     * @param partitions The number of partitions the lattice is split into, and the most threads one search uses.
+     * @param executor   The executor the helper tasks run on. It may be bounded: helpers it rejects or does not start
+     *                   in time leave their partitions to the calling thread.
+     */
+    public HashDistributedSearch(int partitions, ExecutorService executor) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Partition count must be positive");
+        }
+        this.partitions = partitions;
+        this.executor = Objects.requireNonNull(executor, "executor");
+    }
+
+    /**
+     * Finds a path using all partitions, reporting progress to a monitor and stopping when it cancels.
+     * The monitor is only called from the calling thread, between rounds.
+     *
+     * @param start        The starting position of the drone.
+     * @param goal         The target destination.
+     * @param noFlyZones   A list of restricted no-fly zones.
+     * @param centralArea  The central area the drone must remain inside once entered.
+     * @param reachability The reachability map of the no-fly zones and central area, see {@link ReachabilityMap#INDEX}.
+     * @param monitor      The monitor notified of progress and checked for cancellation.
+     * @return A list of {@link LngLat} positions representing the calculated path, or null if no valid path is found,
+     *         the budget ran out or the search was cancelled.
+     * @throws IllegalStateException If expanding a partition failed. The other partitions of that round stop early.
+     */
+    public List<LngLat> findPath(LngLat start, LngLat goal, List<NoFlyZone> noFlyZones, List<LngLat> centralArea,
+                                 ReachabilityMap reachability, SearchMonitor monitor) {
+        if (!reachability.isReachable(start, goal)) {
+            return null;
+        }
+        if (start.isCloseTo(goal, SystemConstants.DRONE_IS_CLOSE_DISTANCE)) {
+            return List.of(start);
+        }
+
+        Partition[] state = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            state[i] = new Partition(partitions);
+        }
+        boolean startInside = PathfindingAlgorithm.isPointInsidePolygon(start, centralArea);
+        SearchNode startNode = new SearchNode(start, null, 0, PathfindingAlgorithm.heuristic(start, goal), startInside);
+        state[ownerOf(startNode.key())].relax(startNode);
+
+        GoalBasin goalBasin = GoalBasin.around(goal);
+        int expansions = 0;
+        int nextReport = SearchMonitor.REPORT_INTERVAL;
+        while (expansions < PathfindingAlgorithm.MAX_ITERATIONS) {
+            int[] active = activePartitions(state);
+            if (active.length == 0) {
+                return null;  // Search space exhausted
+            }
+
+            // Split what is left of the budget so the last round cannot overrun it
+            int remaining = PathfindingAlgorithm.MAX_ITERATIONS - expansions;
+            Round round = new Round(active, Math.min(EXPANSIONS_PER_ROUND, Math.ceilDiv(remaining, active.length)));
+            if (!runRound(round, state, goal, goalBasin, noFlyZones, centralArea)) {
+                return null;
+            }
+
+            SearchNode goalNode = null;
+            int nodes = 0;
+            for (Partition partition : state) {
+                if (partition.goalNode != null
+                        && (goalNode == null || NODE_ORDER.compare(partition.goalNode, goalNode) < 0)) {
+                    goalNode = partition.goalNode;
+                }
+                expansions += partition.expansions;
+                partition.expansions = 0;
+                nodes += partition.bestCosts.size();
+            }
+            if (goalNode != null) {
+                return reconstructPath(goalNode);
+            }
+            if (nodes > PathfindingAlgorithm.MAX_NODES) {
+                return null;
+            }
+            deliverMessages(state);
+
+            if (expansions >= nextReport) {
+                if (monitor.isCancelled()) {
+                    return null;  // Nobody is waiting for the result any more
+                }
+                monitor.onProgress(expansions, bestFCost(state));
+                nextReport = (expansions / SearchMonitor.REPORT_INTERVAL + 1) * SearchMonitor.REPORT_INTERVAL;
+            }
+        }
+        return null;  // Abort if too many expansions
+    }
+
+    /**
+     * Runs one round on the calling thread and any helpers the executor starts.
+     *
+     * @return false if the calling thread was interrupted while helpers were still running.
+     */
+    private boolean runRound(Round round, Partition[] state, LngLat goal, GoalBasin goalBasin,
+                             List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        Runnable work = () -> claimPartitions(round, state, goal, goalBasin, noFlyZones, centralArea);
+        List<Future<?>> helpers = new ArrayList<>();
+        try {
+            for (int i = 1; i < round.active.length; i++) {
+                try {
+                    helpers.add(executor.submit(work));
+                } catch (RejectedExecutionException e) {
+                    break;  // The pool is full, the calling thread takes the remaining partitions
+                }
+            }
+            work.run();
+            round.completed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            round.failure.compareAndSet(null, e);    // Stops the helpers still expanding
+            return false;
+        } finally {
+            // Helpers that have not started yet have nothing left to claim, and must not hold queue slots that
+            // other requests need
+            for (Future<?> helper : helpers) {
+                helper.cancel(false);
+            }
+            if (!helpers.isEmpty() && executor instanceof ThreadPoolExecutor pool) {
+                pool.purge();
+            }
+        }
+
+        Throwable failure = round.failure.get();
+        if (failure != null) {
+            throw new IllegalStateException("Parallel path search failed", failure);
+        }
+        return true;
+    }
+
+    private void claimPartitions(Round round, Partition[] state, LngLat goal, GoalBasin goalBasin,
+                                 List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        int claim;
+        while ((claim = round.nextClaim.getAndIncrement()) < round.active.length) {
+            int index = round.active[claim];
+            try {
+                if (round.failure.get() == null) {
+                    expand(index, state[index], round, goal, goalBasin, noFlyZones, centralArea);
+                }
+            } catch (RuntimeException | Error e) {
+                round.failure.compareAndSet(null, e);
+            } finally {
+                round.completed.countDown();
+            }
+        }
+    }
+
+    private void expand(int index, Partition partition, Round round, LngLat goal, GoalBasin goalBasin,
+                        List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        // Take in successors sent by other partitions
+        for (SearchNode message : partition.inbox) {
+            partition.relax(message);
+        }
+        partition.inbox.clear();
+
+        while (partition.expansions < round.quota && round.failure.get() == null) {
+            SearchNode current = partition.openSet.poll();
+            if (current == null) {
+                return;
+            }
+            if (current.gCost() > partition.bestCosts.get(current.key())) {
+                continue;   // Superseded by a cheaper entry
+            }
+            if (goalBasin.contains(current.position())) {
+                partition.goalNode = current;
+                return;
+            }
+            partition.expansions++;
+
+            for (double angle : PathfindingAlgorithm.COMPASS_DIRECTIONS) {
+                LngLat nextPos = PathfindingAlgorithm.moveInDirection(current.position(), angle);
+                if (PathfindingAlgorithm.isInNoFlyZone(nextPos, noFlyZones)) {
+                    continue;
+                }
+                boolean inside = PathfindingAlgorithm.isPointInsidePolygon(nextPos, centralArea);
+                if (current.hasEnteredCentralArea() && !inside) {
+                    continue;
+                }
+
+                double gCost = current.gCost() + SystemConstants.DRONE_MOVE_DISTANCE;
+                SearchNode next = new SearchNode(nextPos, current, gCost,
+                        gCost + PathfindingAlgorithm.heuristic(nextPos, goal), current.hasEnteredCentralArea() || inside);
+                int owner = ownerOf(next.key());
+                if (owner == index) {
+                    partition.relax(next);
+                } else {
+                    partition.outboxes.get(owner).add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the successors produced in the last round to their owners, in sender order so the next round sees
+     * them in the same order on every run.
+     */
+    private static void deliverMessages(Partition[] state) {
+        for (int receiver = 0; receiver < state.length; receiver++) {
+            for (Partition sender : state) {
+                List<SearchNode> outbox = sender.outboxes.get(receiver);
+                state[receiver].inbox.addAll(outbox);
+                outbox.clear();
+            }
+        }
+    }
+
+    private static int[] activePartitions(Partition[] state) {
+        int[] active = new int[state.length];
+        int count = 0;
+        for (int i = 0; i < state.length; i++) {
+            if (state[i].hasWork()) {
+                active[count++] = i;
+            }
+        }
+        return Arrays.copyOf(active, count);
+    }
+
+    private static double bestFCost(Partition[] state) {
+        double best = Double.POSITIVE_INFINITY;
+        for (Partition partition : state) {
+            SearchNode head = partition.openSet.peek();
+            if (head != null) {
+                best = Math.min(best, head.fCost());
+            }
+            for (SearchNode message : partition.inbox) {
+                best = Math.min(best, message.fCost());
+            }
+        }
+        return best;
+    }
+
+    private int ownerOf(NodeKey key) {
+        long bits = Double.doubleToLongBits(key.position().lng()) * 31 + Double.doubleToLongBits(key.position().lat());
+        long mixed = (bits * 2 + (key.hasEnteredCentralArea() ? 1 : 0)) * 0x9e3779b97f4a7c15L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 32), (long) partitions);
+    }
+
+    private static List<LngLat> reconstructPath(SearchNode node) {
+        List<LngLat> path = new ArrayList<>();
+        while (node != null) {
+            path.add(node.position());
+            node = node.parent();
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
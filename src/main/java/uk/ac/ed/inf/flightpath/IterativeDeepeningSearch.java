@@ -0,0 +1,221 @@
+package uk.ac.ed.inf.flightpath;
+
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Memory-bounded pathfinding using iterative-deepening A* (IDA*).
+ * Instead of an open set that grows with the search, it keeps only the current path on a fixed-size stack
+ * and a fixed-size transposition table, so the heap used by one search is known up front.
+ */
+public class IterativeDeepeningSearch {
+
+    private static final double THRESHOLD_STEP = SystemConstants.DRONE_MOVE_DISTANCE;
+    private static final double TABLE_RESOLUTION = SystemConstants.DRONE_MOVE_DISTANCE / 4;
+    private static final long EMPTY_SLOT = Long.MIN_VALUE;
+    private static final int MAX_TABLE_SIZE = 1 << 30;     // Largest power of two an int can hold
+
+    private final int maxExpansions;
+    private final int tableSize;
+
+    /**
+     * Constructs a memory-bounded search.
+     *
+     * @param maxExpansions The number of node expansions after which the search gives up.
+     * @param tableSize     The number of transposition table entries, rounded up to a power of two. At most 2^30.
+     */
+    public IterativeDeepeningSearch(int maxExpansions, int tableSize) {
+        if (maxExpansions <= 0 || tableSize <= 0) {
+            throw new IllegalArgumentException("Expansion limit and table size must be positive");
+        }
+        if (tableSize > MAX_TABLE_SIZE) {
+            throw new IllegalArgumentException("Table size must be at most " + MAX_TABLE_SIZE);
+        }
+        this.maxExpansions = maxExpansions;
+        this.tableSize = Integer.highestOneBit(Math.max(1, tableSize - 1)) << 1;
+    }
+
+    /**
+     * One level of the depth-first stack: a position and its successors ordered by fCost.
+     */
+    private static final class Frame {
+        private final LngLat[] successors = new LngLat[PathfindingAlgorithm.COMPASS_DIRECTIONS.length];
+        private final double[] fCosts = new double[PathfindingAlgorithm.COMPASS_DIRECTIONS.length];
+        private final boolean[] insideCentral = new boolean[PathfindingAlgorithm.COMPASS_DIRECTIONS.length];
+        private LngLat position;
+        private double gCost;
+        private boolean hasEnteredCentralArea;
+        private int count;
+        private int next;
+    }
+
+    /**
+     * Finds a path within the configured memory bounds, reporting progress to a monitor and stopping when it cancels.
+     *
+     * @param start        The starting position of the drone.
+     * @param goal         The target destination.
+     * @param noFlyZones   A list of restricted no-fly zones.
+     * @param centralArea  The central area the drone must remain inside once entered.
+     * @param reachability The reachability map of the no-fly zones and central area, see {@link ReachabilityMap#INDEX}.
+     * @param monitor      The monitor notified of progress and checked for cancellation.
+     * @return A list of {@link LngLat} positions representing the calculated path, or null if no valid path is found
+     *         or the search was cancelled.
+     */
+    public List<LngLat> findPath(LngLat start, LngLat goal, List<NoFlyZone> noFlyZones, List<LngLat> centralArea,
+                                 ReachabilityMap reachability, SearchMonitor monitor) {
+        if (!reachability.isReachable(start, goal)) {
+            return null;
+        }
+        if (start.isCloseTo(goal, SystemConstants.DRONE_IS_CLOSE_DISTANCE)) {
+            return List.of(start);
+        }
+
+        GoalBasin goalBasin = GoalBasin.around(goal);
+        int maxDepth = SystemConstants.DRONE_MAX_MOVES;
+        Frame[] stack = new Frame[maxDepth + 1];
+        long[] tableKeys = new long[tableSize];
+        double[] tableCosts = new double[tableSize];
+
+        double threshold = PathfindingAlgorithm.heuristic(start, goal);
+        int expansions = 0;
+
+        while (true) {
+            Arrays.fill(tableKeys, EMPTY_SLOT);
+            double nextThreshold = Double.POSITIVE_INFINITY;
+
+            Frame root = frameAt(stack, 0);
+            expand(root, start, 0, PathfindingAlgorithm.isPointInsidePolygon(start, centralArea),
+                    goal, noFlyZones, centralArea);
+            int depth = 0;
+
+            while (depth >= 0) {
+                Frame frame = stack[depth];
+                if (frame.next >= frame.count) {
+                    depth--;    // All successors tried, backtrack
+                    continue;
+                }
+
+                int i = frame.next++;
+                LngLat position = frame.successors[i];
+                double gCost = frame.gCost + SystemConstants.DRONE_MOVE_DISTANCE;
+
+                if (goalBasin.contains(position)) {
+                    return buildPath(stack, depth, position);
+                }
+                if (frame.fCosts[i] > threshold) {
+                    nextThreshold = Math.min(nextThreshold, frame.fCosts[i]);
+                    continue;
+                }
+                if (depth + 1 >= maxDepth) {
+                    continue;   // Would exceed the battery
+                }
+
+                boolean entered = frame.hasEnteredCentralArea || frame.insideCentral[i];
+                if (!recordInTable(tableKeys, tableCosts, position, entered, gCost)) {
+                    continue;   // Already reached this cell at least as cheaply
+                }
+                if (++expansions > maxExpansions) {
+                    return null;
+                }
+                if (expansions % SearchMonitor.REPORT_INTERVAL == 0) {
+                    if (monitor.isCancelled()) {
+                        return null;
+                    }
+                    monitor.onProgress(expansions, frame.fCosts[i]);
+                }
+
+                depth++;
+                expand(frameAt(stack, depth), position, gCost, entered, goal, noFlyZones, centralArea);
+            }
+
+            if (nextThreshold == Double.POSITIVE_INFINITY) {
+                return null;    // Nothing left beyond the current bound
+            }
+            threshold = Math.max(nextThreshold, threshold + THRESHOLD_STEP);
+        }
+    }
+
+    private static Frame frameAt(Frame[] stack, int depth) {
+        if (stack[depth] == null) {
+            stack[depth] = new Frame();
+        }
+        return stack[depth];
+    }
+
+    /**
+     * Fills a frame with the valid successors of a position, sorted by ascending fCost.
+     */
+    private static void expand(Frame frame, LngLat position, double gCost, boolean hasEnteredCentralArea,
+                               LngLat goal, List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        frame.position = position;
+        frame.gCost = gCost;
+        frame.hasEnteredCentralArea = hasEnteredCentralArea;
+        frame.count = 0;
+        frame.next = 0;
+
+        for (double angle : PathfindingAlgorithm.COMPASS_DIRECTIONS) {
+            LngLat nextPos = PathfindingAlgorithm.moveInDirection(position, angle);
+            if (PathfindingAlgorithm.isInNoFlyZone(nextPos, noFlyZones)) {
+                continue;
+            }
+            boolean inside = PathfindingAlgorithm.isPointInsidePolygon(nextPos, centralArea);
+            if (hasEnteredCentralArea && !inside) {
+                continue;
+            }
+            double fCost = gCost + SystemConstants.DRONE_MOVE_DISTANCE + PathfindingAlgorithm.heuristic(nextPos, goal);
+
+            // Insertion sort keeps the most promising successor first
+            int slot = frame.count++;
+            while (slot > 0 && frame.fCosts[slot - 1] > fCost) {
+                frame.successors[slot] = frame.successors[slot - 1];
+                frame.fCosts[slot] = frame.fCosts[slot - 1];
+                frame.insideCentral[slot] = frame.insideCentral[slot - 1];
+                slot--;
+            }
+            frame.successors[slot] = nextPos;
+            frame.fCosts[slot] = fCost;
+            frame.insideCentral[slot] = inside;
+        }
+    }
+
+    /**
+     * Records the cost of reaching a cell, overwriting on collision so the table never grows.
+     *
+     * @return false if the cell was already reached at the same or lower cost in this iteration.
+     */
+    private boolean recordInTable(long[] keys, double[] costs, LngLat position, boolean entered, double gCost) {
+        long cellX = (long) Math.floor(position.lng() / TABLE_RESOLUTION);
+        long cellY = (long) Math.floor(position.lat() / TABLE_RESOLUTION);
+        long key = ((cellX << 32) ^ (cellY & 0xffffffffL)) * 2 + (entered ? 1 : 0);
+
+        int slot = (int) (mix(key) & (tableSize - 1));
+        if (keys[slot] == key && costs[slot] <= gCost) {
+            return false;
+        }
+        keys[slot] = key;
+        costs[slot] = gCost;
+        return true;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static List<LngLat> buildPath(Frame[] stack, int depth, LngLat last) {
+        List<LngLat> path = new ArrayList<>(depth + 2);
+        for (int i = 0; i <= depth; i++) {
+            path.add(stack[i].position);
+        }
+        path.add(last);
+        return path;
+    }
+}
@@ -0,0 +1,169 @@
+package uk.ac.ed.inf.flightpath;
+
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.*;
+
+/**
+ * Finds paths to several targets with a single search that expands outward from one shared origin.
+ * The search leaves the central area at most once and never re-enters it, which is the central-area rule
+ * seen backwards: reversing a path gives a route into the central area that never leaves it again.
+ */
+public class MultiTargetSearch {
+
+    private static final double CELL_SIZE = SystemConstants.DRONE_MOVE_DISTANCE / 2;
+    private static final int MAX_EXPANSIONS = 400_000;
+
+    private record SearchNode(LngLat position, SearchNode parent, double gCost, double fCost,
+                              boolean hasLeftCentralArea) {
+    }
+
+    /**
+     * Finds the path from every restaurant location to Appleton Tower with one search started at Appleton Tower.
+     * Each path begins at the lattice point close to the restaurant and ends exactly at Appleton Tower.
+     *
+     * @param restaurantLocations The restaurant locations to reach.
+     * @param noFlyZones          A list of restricted no-fly zones.
+     * @param centralArea         The central area the drone must remain inside once entered.
+     * @param reachability        The reachability map of the no-fly zones and central area, see
+     *                            {@link ReachabilityMap#INDEX}.
+     * @return The path for each reachable restaurant location, keyed by that location in the requested order.
+     */
+    public static Map<LngLat, List<LngLat>> findPathsToAppleton(List<LngLat> restaurantLocations,
+                                                               List<NoFlyZone> noFlyZones, List<LngLat> centralArea,
+                                                               ReachabilityMap reachability) {
+        LngLat appletonTower = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+        Map<LngLat, List<LngLat>> paths = findPathsFrom(appletonTower, restaurantLocations, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+
+        for (List<LngLat> path : paths.values()) {
+            Collections.reverse(path);
+        }
+        return paths;
+    }
+
+    /**
+     * Searches outward from the origin until every target is reached or no target can be reached any more.
+     *
+     * @param origin       The shared starting position of all paths.
+     * @param targets      The positions to reach.
+     * @param noFlyZones   A list of restricted no-fly zones.
+     * @param centralArea  The central area which, once left, may not be re-entered.
+     * @param reachability The reachability map of the no-fly zones and central area, see {@link ReachabilityMap#INDEX}.
+     * @param monitor      The monitor notified of progress and checked for cancellation.
+     * @return The path from the origin to a point close to each reachable target, keyed by target in the
+     *         requested order. Targets that cannot be reached, or were not reached before the monitor cancelled,
+     *         are omitted.
+     */
+    public static Map<LngLat, List<LngLat>> findPathsFrom(LngLat origin, List<LngLat> targets,
+                                                          List<NoFlyZone> noFlyZones, List<LngLat> centralArea,
+                                                          ReachabilityMap reachability, SearchMonitor monitor) {
+        Map<LngLat, List<LngLat>> paths = new LinkedHashMap<>();
+
+        // Reversed, every path runs from the target into the origin, so check reachability in that direction
+        List<LngLat> remaining = new ArrayList<>();
+        for (LngLat target : targets) {
+            if (reachability.isReachable(target, origin) && !remaining.contains(target)) {
+                remaining.add(target);
+            }
+        }
+
+        boolean originInside = PathfindingAlgorithm.isPointInsidePolygon(origin, centralArea);
+        PriorityQueue<SearchNode> openSet = new PriorityQueue<>(Comparator.comparingDouble(SearchNode::fCost));
+        Map<Long, Double> bestCosts = new HashMap<>();  // Cheapest gCost found per lattice cell
+
+        openSet.add(new SearchNode(origin, null, 0, nearestDistance(origin, remaining), !originInside));
+        bestCosts.put(cellKey(origin, !originInside), 0.0);
+
+        int expansions = 0;
+        while (!openSet.isEmpty() && !remaining.isEmpty() && ++expansions <= MAX_EXPANSIONS) {
+            SearchNode current = openSet.poll();
+
+            if (expansions % SearchMonitor.REPORT_INTERVAL == 0) {
+                if (monitor.isCancelled()) {
+                    break;  // Nobody is waiting for the remaining paths any more
+                }
+                monitor.onProgress(expansions, current.fCost());
+            }
+
+            if (current.gCost() > bestCosts.get(cellKey(current.position(), current.hasLeftCentralArea()))) {
+                continue;   // A cheaper route to this cell was found after this entry was queued
+            }
+
+            // Targets reached since this node was queued raise its heuristic, so re-queue it if needed
+            double fCost = current.gCost() + nearestDistance(current.position(), remaining);
+            if (fCost > current.fCost() + 1e-12) {
+                openSet.add(new SearchNode(current.position(), current.parent(), current.gCost(), fCost,
+                        current.hasLeftCentralArea()));
+                continue;
+            }
+
+            Iterator<LngLat> it = remaining.iterator();
+            while (it.hasNext()) {
+                LngLat target = it.next();
+                if (current.position().isCloseTo(target, SystemConstants.DRONE_IS_CLOSE_DISTANCE)) {
+                    paths.put(target, reconstructPath(current));
+                    it.remove();
+                }
+            }
+
+            for (double angle : PathfindingAlgorithm.COMPASS_DIRECTIONS) {
+                LngLat nextPos = PathfindingAlgorithm.moveInDirection(current.position(), angle);
+                if (PathfindingAlgorithm.isInNoFlyZone(nextPos, noFlyZones)) {
+                    continue;
+                }
+
+                boolean inside = PathfindingAlgorithm.isPointInsidePolygon(nextPos, centralArea);
+                if (current.hasLeftCentralArea() && inside) {
+                    continue;   // Would re-enter the central area
+                }
+
+                boolean hasLeft = current.hasLeftCentralArea() || !inside;
+                double gCost = current.gCost() + SystemConstants.DRONE_MOVE_DISTANCE;
+                long key = cellKey(nextPos, hasLeft);
+                Double best = bestCosts.get(key);
+                if (best == null || gCost < best) {
+                    bestCosts.put(key, gCost);
+                    openSet.add(new SearchNode(nextPos, current, gCost,
+                            gCost + nearestDistance(nextPos, remaining), hasLeft));
+                }
+            }
+        }
+
+        // Keep the caller's target order
+        Map<LngLat, List<LngLat>> ordered = new LinkedHashMap<>();
+        for (LngLat target : targets) {
+            if (paths.containsKey(target)) {
+                ordered.put(target, paths.get(target));
+            }
+        }
+        return ordered;
+    }
+
+    private static double nearestDistance(LngLat position, List<LngLat> targets) {
+        double nearest = targets.isEmpty() ? 0 : Double.POSITIVE_INFINITY;
+        for (LngLat target : targets) {
+            nearest = Math.min(nearest, position.distanceTo(target));
+        }
+        return nearest;
+    }
+
+    private static long cellKey(LngLat position, boolean hasLeftCentralArea) {
+        long cellX = (long) Math.floor(position.lng() / CELL_SIZE);
+        long cellY = (long) Math.floor(position.lat() / CELL_SIZE);
+        return (((cellX << 32) ^ (cellY & 0xffffffffL)) << 1) | (hasLeftCentralArea ? 1 : 0);
+    }
+
+    private static List<LngLat> reconstructPath(SearchNode node) {
+        List<LngLat> path = new ArrayList<>();
+        while (node != null) {
+            path.add(node.position());
+            node = node.parent();
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
@@ -0,0 +1,363 @@
+package uk.ac.ed.inf.flightpath;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.PathfindingMode;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.DerivedIndex;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class that runs the path search strategy selected in the application configuration.
+ */
+@Service
+public class PathPlanner {
+
+    // Two positions closer than this are the same lattice point, reached through a different sum of moves
+    private static final double LATTICE_TOLERANCE = 1e-12;
+
+    private final PathfindingMode mode;
+    private final IterativeDeepeningSearch iterativeDeepeningSearch;
+    private final HashDistributedSearch hashDistributedSearch;
+    private final int parallelThresholdMoves;
+    private final boolean smoothingEnabled;
+    private final CorridorShape corridorShape;
+    private final double corridorSlack;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary movesSaved;
+    private final Counter returnLegsReversed;
+    private final Counter returnLegsSearched;
+    private final String configurationKey;
+    // Created on first use, so the index never holds a planner that is still being constructed
+    private volatile DerivedIndex<Map<LngLat, List<LngLat>>> pathsToAppleton;
+
+    /**
+     * Constructs a planner without the parallel search.
+     *
+     * @param mode             The search strategy to use.
+     * @param maxExpansions    The expansion limit for the memory-bounded search.
+     * @param tableSize        The transposition table size for the memory-bounded search.
+     * @param smoothingEnabled Whether found paths are shortened by {@link PathSmoother}.
+     * @param corridorShape    The corridor A* searches are first restricted to, or NONE to search unrestricted.
+     * @param corridorSlackMoves The initial corridor slack in moves, see {@link Corridor}.
+     * @param meterRegistry    The registry the planner metrics are published to.
+     */
+    public PathPlanner(PathfindingMode mode, int maxExpansions, int tableSize, boolean smoothingEnabled,
+                       CorridorShape corridorShape, int corridorSlackMoves, MeterRegistry meterRegistry) {
+        this(mode, maxExpansions, tableSize, 1, 0, smoothingEnabled, corridorShape, corridorSlackMoves, null,
+                meterRegistry);
+    }
+
+    /**
+     * Constructs the planner from configuration.
+     *
+     * @param mode             The search strategy to use.
+     * @param maxExpansions    The expansion limit for the memory-bounded search.
+     * @param tableSize        The transposition table size for the memory-bounded search.
+     * @param parallelWorkers  The number of partitions for the parallel search, 0 for one per core. Fewer than two
+     *                         disables it, which is the default until it is shown to beat A* on the deployed hardware.
+     * @param parallelThresholdMoves The estimated path length in moves from which A* requests use the parallel search.
+     * @param smoothingEnabled Whether found paths are shortened by {@link PathSmoother}.
+     * @param corridorShape    The corridor A* searches are first restricted to, or NONE to search unrestricted.
+     * @param corridorSlackMoves The initial corridor slack in moves, see {@link Corridor}.
+     * @param searchExecutor   The bounded path search pool the parallel search borrows helper threads from.
+     * @param meterRegistry    The registry the planner metrics are published to.
+     */
+    @Autowired
+    public PathPlanner(@Value("${pizzadronz.pathfinding.mode:A_STAR}") PathfindingMode mode,
+                       @Value("${pizzadronz.pathfinding.ida.max-expansions:200000}") int maxExpansions,
+                       @Value("${pizzadronz.pathfinding.ida.table-size:65536}") int tableSize,
+                       @Value("${pizzadronz.pathfinding.parallel.workers:1}") int parallelWorkers,
+                       @Value("${pizzadronz.pathfinding.parallel.threshold-moves:150}") int parallelThresholdMoves,
+                       @Value("${pizzadronz.pathfinding.smoothing.enabled:true}") boolean smoothingEnabled,
+                       @Value("${pizzadronz.pathfinding.corridor.shape:NONE}") CorridorShape corridorShape,
+                       @Value("${pizzadronz.pathfinding.corridor.slack-moves:8}") int corridorSlackMoves,
+                       @Qualifier("pathSearchExecutor") ExecutorService searchExecutor,
+                       MeterRegistry meterRegistry) {
+        this.mode = mode;
+        this.configurationKey = mode + ";ida=" + maxExpansions + "/" + tableSize
+                + ";parallel=" + parallelWorkers + "/" + parallelThresholdMoves + ";smoothing=" + smoothingEnabled
+                + ";corridor=" + corridorShape + "/" + corridorSlackMoves;
+        this.iterativeDeepeningSearch = new IterativeDeepeningSearch(maxExpansions, tableSize);
+        this.parallelThresholdMoves = parallelThresholdMoves;
+        int workers = parallelWorkers == 0 ? Runtime.getRuntime().availableProcessors() : parallelWorkers;
+        // A single partition only adds message passing overhead to plain A*
+        this.hashDistributedSearch = workers < 2 ? null : new HashDistributedSearch(workers, searchExecutor);
+        this.smoothingEnabled = smoothingEnabled;
+        this.corridorShape = corridorShape;
+        this.corridorSlack = corridorSlackMoves * SystemConstants.DRONE_MOVE_DISTANCE;
+        this.meterRegistry = meterRegistry;
+        this.movesSaved = DistributionSummary.builder("pizzadronz.path.smoothing.moves.saved")
+                .description("Moves removed from each path by smoothing")
+                .baseUnit("moves")
+                .register(meterRegistry);
+        this.returnLegsReversed = Counter.builder("pizzadronz.path.roundtrip.return")
+                .description("Return legs planned for round trips")
+                .tag("strategy", "reversed")
+                .register(meterRegistry);
+        this.returnLegsSearched = Counter.builder("pizzadronz.path.roundtrip.return")
+                .description("Return legs planned for round trips")
+                .tag("strategy", "searched")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retrieves the configured search strategy.
+     *
+     * @return The {@link PathfindingMode} in use.
+     */
+    public PathfindingMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Describes every setting that can change the path a search returns, so paths planned and stored by one planner
+     * are only reused by a planner that would find the same ones.
+     *
+     * @return The configuration key.
+     */
+    public String getConfigurationKey() {
+        return configurationKey;
+    }
+
+    /**
+     * Finds a path using the configured strategy, reporting progress to a monitor and stopping when it cancels.
+     *
+     * @param start        The starting position of the drone.
+     * @param goal         The target destination.
+     * @param noFlyZones   A list of restricted no-fly zones.
+     * @param centralArea  The central area the drone must remain inside once entered.
+     * @param reachability The reachability map of the no-fly zones and central area, see {@link ReachabilityMap#INDEX}.
+     * @param monitor      The monitor notified of progress and checked for cancellation.
+     * @return A list of {@link LngLat} positions representing the calculated path, or null if no valid path is found
+     *         or the search was cancelled.
+     */
+    public List<LngLat> findPath(LngLat start, LngLat goal, List<NoFlyZone> noFlyZones, List<LngLat> centralArea,
+                                 ReachabilityMap reachability, SearchMonitor monitor) {
+        // Long A* routes are worth spreading over several cores
+        double estimatedMoves = start.distanceTo(goal) / SystemConstants.DRONE_MOVE_DISTANCE;
+        boolean parallel = mode == PathfindingMode.A_STAR && hashDistributedSearch != null
+                && estimatedMoves >= parallelThresholdMoves;
+        String strategy = parallel ? "hda_star" : mode.name().toLowerCase();
+
+        long startTime = System.nanoTime();
+        List<LngLat> path;
+        if (parallel) {
+            path = hashDistributedSearch.findPath(start, goal, noFlyZones, centralArea, reachability, monitor);
+        } else {
+            path = switch (mode) {
+                case A_STAR -> PathfindingAlgorithm.findPath(start, goal, noFlyZones, centralArea,
+                        corridorShape, corridorSlack, reachability, monitor);
+                case IDA_STAR -> iterativeDeepeningSearch.findPath(start, goal, noFlyZones, centralArea, reachability,
+                        monitor);
+            };
+        }
+        Timer.builder("pizzadronz.path.search")
+                .description("Time spent searching for a path")
+                .tag("strategy", strategy)
+                .tag("found", String.valueOf(path != null))
+                .register(meterRegistry)
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+
+        if (path == null || !smoothingEnabled) {
+            return path;
+        }
+        return smooth(path, goal, noFlyZones, centralArea);
+    }
+
+    /**
+     * Finds the paths from several restaurants to Appleton Tower with a single shared search, smoothed like the
+     * paths of {@link #findPath}.
+     * The shared search runs on the lattice around Appleton Tower, so its paths begin at a lattice point close to the
+     * restaurant. Such a path is used when the restaurant is one legal move away from that point, otherwise the
+     * restaurant is planned on its own with {@link #findPath}.
+     *
+     * @param restaurantLocations The restaurant locations to plan for.
+     * @param noFlyZones          A list of restricted no-fly zones.
+     * @param centralArea         The central area the drone must remain inside once entered.
+     * @param reachability        The reachability map of the no-fly zones and central area, see
+     *                            {@link ReachabilityMap#INDEX}.
+     * @return The path for each reachable restaurant location, keyed by that location. Each path begins exactly at
+     *         the restaurant and ends at a point close to Appleton Tower.
+     */
+    public Map<LngLat, List<LngLat>> findPathsToAppleton(List<LngLat> restaurantLocations,
+                                                        List<NoFlyZone> noFlyZones, List<LngLat> centralArea,
+                                                        ReachabilityMap reachability) {
+        long startTime = System.nanoTime();
+        Map<LngLat, List<LngLat>> shared = MultiTargetSearch.findPathsToAppleton(restaurantLocations, noFlyZones,
+                centralArea, reachability);
+        Timer.builder("pizzadronz.path.search")
+                .description("Time spent searching for a path")
+                .tag("strategy", "multi_target")
+                .tag("found", String.valueOf(!shared.isEmpty()))
+                .register(meterRegistry)
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+
+        LngLat appletonTower = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+        Map<LngLat, List<LngLat>> paths = new LinkedHashMap<>();
+        for (Map.Entry<LngLat, List<LngLat>> entry : shared.entrySet()) {
+            LngLat location = entry.getKey();
+            List<LngLat> path = startAt(location, entry.getValue(), noFlyZones, centralArea);
+            if (path == null) {
+                path = findPath(location, appletonTower, noFlyZones, centralArea, reachability, SearchMonitor.NONE);
+            } else if (smoothingEnabled) {
+                path = smooth(path, appletonTower, noFlyZones, centralArea);
+            }
+            if (path != null) {
+                paths.put(location, path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Joins the restaurant location to the front of a path that begins at a lattice point close to it.
+     *
+     * @return The path beginning at the location, or null if the location is not one legal move away from its
+     *         first point.
+     */
+    private static List<LngLat> startAt(LngLat location, List<LngLat> path, List<NoFlyZone> noFlyZones,
+                                        List<LngLat> centralArea) {
+        LngLat first = path.get(0);
+        if (first.equals(location)) {
+            return path;
+        }
+        // Once inside the central area the drone may not leave it again
+        if (PathfindingAlgorithm.isPointInsidePolygon(location, centralArea)
+                && !PathfindingAlgorithm.isPointInsidePolygon(first, centralArea)) {
+            return null;
+        }
+        for (double angle : PathfindingAlgorithm.COMPASS_DIRECTIONS) {
+            LngLat next = PathfindingAlgorithm.moveInDirection(location, angle);
+            if (next.isCloseTo(first, LATTICE_TOLERANCE) && !PathfindingAlgorithm.isInNoFlyZone(next, noFlyZones)) {
+                List<LngLat> joined = new ArrayList<>(path.size() + 1);
+                joined.add(location);
+                joined.add(next);
+                joined.addAll(path.subList(1, path.size()));
+                return joined;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Declares the path from every restaurant of a snapshot to Appleton Tower as an index of that snapshot.
+     * The paths are found with {@link #findPathsToAppleton}, one search for all restaurants.
+     *
+     * @return The index, keyed by restaurant location. Restaurants without a path are omitted.
+     */
+    public DerivedIndex<Map<LngLat, List<LngLat>>> pathsToAppletonIndex() {
+        DerivedIndex<Map<LngLat, List<LngLat>>> index = pathsToAppleton;
+        if (index == null) {
+            synchronized (this) {
+                index = pathsToAppleton;
+                if (index == null) {
+                    index = new DerivedIndex<>("pathsToAppleton", this::planPathsToAppleton);
+                    pathsToAppleton = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private Map<LngLat, List<LngLat>> planPathsToAppleton(ReferenceDataSnapshot snapshot) {
+        Set<LngLat> locations = new LinkedHashSet<>();
+        for (Restaurant restaurant : snapshot.restaurants()) {
+            locations.add(restaurant.location());
+        }
+        Map<LngLat, List<LngLat>> paths = new LinkedHashMap<>();
+        findPathsToAppleton(new ArrayList<>(locations), snapshot.noFlyZones(), snapshot.centralArea(),
+                snapshot.index(ReachabilityMap.INDEX))
+                .forEach((location, path) -> paths.put(location, List.copyOf(path)));
+        return Collections.unmodifiableMap(paths);
+    }
+
+    private List<LngLat> smooth(List<LngLat> path, LngLat goal, List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        List<LngLat> smoothed = PathSmoother.smooth(path, goal, noFlyZones, centralArea);
+        movesSaved.record(path.size() - smoothed.size());
+        return smoothed;
+    }
+
+    /**
+     * Extends an outbound path into a round trip back to where it started.
+     * The return leg is the outbound path reversed, and is only searched for if the reversal breaks a flight rule.
+     *
+     * @param outboundPath The path from the restaurant to the delivery point.
+     * @param returnGoal   The position the drone returns to, normally the restaurant location.
+     * @param noFlyZones   A list of restricted no-fly zones.
+     * @param centralArea  The central area, which the return leg may leave once but not re-enter.
+     * @param reachability The reachability map of the no-fly zones and central area, see {@link ReachabilityMap#INDEX}.
+     * @param monitor      The monitor notified of progress and checked for cancellation if the return leg is searched.
+     * @return The outbound path, a hover at the delivery point and the return path, or null if no return path
+     *         exists, the search for it was cancelled or the round trip needs more than
+     *         {@link SystemConstants#DRONE_MAX_MOVES} moves.
+     */
+    public List<LngLat> findRoundTrip(List<LngLat> outboundPath, LngLat returnGoal,
+                                      List<NoFlyZone> noFlyZones, List<LngLat> centralArea,
+                                      ReachabilityMap reachability, SearchMonitor monitor) {
+        LngLat deliveryPoint = outboundPath.get(outboundPath.size() - 1);
+
+        List<LngLat> returnPath = new ArrayList<>(outboundPath);
+        Collections.reverse(returnPath);
+
+        // A searched return leg only gets close to the goal as well, so a reversal ending close to it is as good
+        if (returnPath.get(returnPath.size() - 1).isCloseTo(returnGoal, SystemConstants.DRONE_IS_CLOSE_DISTANCE)
+                && isLegalReturnLeg(returnPath, noFlyZones, centralArea)) {
+            returnLegsReversed.increment();
+        } else {
+            returnPath = MultiTargetSearch.findPathsFrom(deliveryPoint, List.of(returnGoal), noFlyZones, centralArea,
+                    reachability, monitor).get(returnGoal);
+            returnLegsSearched.increment();
+            if (returnPath == null) {
+                return null;
+            }
+        }
+
+        // The return path starts at the delivery point, so joining the legs repeats it once as the delivery hover
+        List<LngLat> roundTrip = new ArrayList<>(outboundPath.size() + returnPath.size());
+        roundTrip.addAll(outboundPath);
+        roundTrip.addAll(returnPath);
+
+        if (roundTrip.size() - 1 > SystemConstants.DRONE_MAX_MOVES) {
+            return null;
+        }
+        return roundTrip;
+    }
+
+    /**
+     * Checks that a return leg avoids the no-fly zones and never re-enters the central area after leaving it.
+     */
+    private static boolean isLegalReturnLeg(List<LngLat> path, List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        boolean hasLeftCentralArea = false;
+        for (int i = 1; i < path.size(); i++) {
+            LngLat position = path.get(i);
+            boolean inside = PathfindingAlgorithm.isPointInsidePolygon(position, centralArea);
+            if (PathfindingAlgorithm.isInNoFlyZone(position, noFlyZones) || (hasLeftCentralArea && inside)) {
+                return false;
+            }
+            hasLeftCentralArea = hasLeftCentralArea || !inside;
+        }
+        return true;
+    }
+}
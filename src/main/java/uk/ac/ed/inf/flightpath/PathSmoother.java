@@ -0,0 +1,157 @@
+package uk.ac.ed.inf.flightpath;
+
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Post-processes lattice paths by replacing zig-zag stretches with straight runs along a single compass heading.
+ * A straight run rarely ends exactly on the original path, so the rest of the path is shifted by the difference
+ * and the shortcut is only kept if the shifted remainder is still legal and still ends close to the goal.
+ */
+public class PathSmoother {
+
+    private static final int MAX_LOOKAHEAD = 64;
+    private static final double MAX_RUN_ERROR = SystemConstants.DRONE_MOVE_DISTANCE / 2;
+    private static final double HEADING_STEP = 360.0 / PathfindingAlgorithm.COMPASS_DIRECTIONS.length;
+
+    /**
+     * Shortens a path without changing its start or breaking any flight rule.
+     *
+     * @param path        The path to smooth, as returned by the path search.
+     * @param goal        The target destination the last position must stay close to.
+     * @param noFlyZones  A list of restricted no-fly zones.
+     * @param centralArea The central area the drone must remain inside once entered.
+     * @return A path with the same start and at most as many moves, or the original path if it is too short to smooth.
+     */
+    public static List<LngLat> smooth(List<LngLat> path, LngLat goal, List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        if (path == null || path.size() < 3) {
+            return path;
+        }
+
+        List<LngLat> smoothed = new ArrayList<>();
+        LngLat current = path.get(0);
+        smoothed.add(current);
+        boolean entered = PathfindingAlgorithm.isPointInsidePolygon(current, centralArea);
+        double offsetLng = 0;
+        double offsetLat = 0;
+        int last = path.size() - 1;
+        int i = 0;
+
+        while (i < last) {
+            boolean shortened = false;
+
+            for (int j = Math.min(last, i + MAX_LOOKAHEAD); j >= i + 2 && !shortened; j--) {
+                // The final run only has to finish close to the goal, not on the original end point
+                LngLat target = j == last ? goal : shift(path.get(j), offsetLng, offsetLat);
+                double maxError = j == last ? SystemConstants.DRONE_IS_CLOSE_DISTANCE : MAX_RUN_ERROR;
+                List<LngLat> run = straightRun(current, target, j - i - 1, maxError, entered, noFlyZones, centralArea);
+                if (run == null) {
+                    continue;
+                }
+
+                LngLat runEnd = run.get(run.size() - 1);
+                double newOffsetLng = offsetLng + runEnd.lng() - target.lng();
+                double newOffsetLat = offsetLat + runEnd.lat() - target.lat();
+                boolean runEntered = entered || isAnyInside(run, centralArea);
+
+                if (isShiftedRemainderLegal(path, j + 1, newOffsetLng, newOffsetLat, runEntered,
+                        runEnd, goal, noFlyZones, centralArea)) {
+                    smoothed.addAll(run);
+                    current = runEnd;
+                    entered = runEntered;
+                    offsetLng = newOffsetLng;
+                    offsetLat = newOffsetLat;
+                    i = j;
+                    shortened = true;
+                }
+            }
+
+            if (!shortened) {
+                i++;
+                current = shift(path.get(i), offsetLng, offsetLat);
+                entered = entered || PathfindingAlgorithm.isPointInsidePolygon(current, centralArea);
+                smoothed.add(current);
+            }
+        }
+        return smoothed;
+    }
+
+    /**
+     * Builds a straight run from the current position towards the target along the nearest compass heading.
+     *
+     * @return The positions of the run (excluding the current position), or null if it would need more than
+     *         maxMoves moves, ends more than maxError from the target, or breaks a flight rule.
+     */
+    private static List<LngLat> straightRun(LngLat current, LngLat target, int maxMoves, double maxError, boolean entered,
+                                            List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        double distance = current.distanceTo(target);
+        int moves = (int) Math.round(distance / SystemConstants.DRONE_MOVE_DISTANCE);
+        if (moves == 0 || moves > maxMoves) {
+            return null;
+        }
+
+        double bearing = Math.toDegrees(Math.atan2(target.lat() - current.lat(), target.lng() - current.lng()));
+        double heading = ((Math.round(bearing / HEADING_STEP) * HEADING_STEP) % 360 + 360) % 360;
+
+        // Check where the run would end before walking it
+        double radians = Math.toRadians(heading);
+        double endLng = current.lng() + moves * SystemConstants.DRONE_MOVE_DISTANCE * Math.cos(radians);
+        double endLat = current.lat() + moves * SystemConstants.DRONE_MOVE_DISTANCE * Math.sin(radians);
+        if (new LngLat(endLng, endLat).distanceTo(target) >= maxError) {
+            return null;
+        }
+
+        List<LngLat> run = new ArrayList<>(moves);
+        LngLat position = current;
+        for (int k = 0; k < moves; k++) {
+            position = PathfindingAlgorithm.moveInDirection(position, heading);
+            boolean inside = PathfindingAlgorithm.isPointInsidePolygon(position, centralArea);
+            if (PathfindingAlgorithm.isInNoFlyZone(position, noFlyZones) || (entered && !inside)) {
+                return null;
+            }
+            entered = entered || inside;
+            run.add(position);
+        }
+        return run;
+    }
+
+    /**
+     * Checks that the original path from the given index, shifted by the offset, keeps to the flight rules
+     * and still finishes close to the goal.
+     */
+    private static boolean isShiftedRemainderLegal(List<LngLat> path, int from, double offsetLng, double offsetLat,
+                                                   boolean entered, LngLat runEnd, LngLat goal,
+                                                   List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        LngLat lastPosition = runEnd;
+        for (int k = from; k < path.size(); k++) {
+            LngLat position = shift(path.get(k), offsetLng, offsetLat);
+            boolean inside = PathfindingAlgorithm.isPointInsidePolygon(position, centralArea);
+            if (PathfindingAlgorithm.isInNoFlyZone(position, noFlyZones) || (entered && !inside)) {
+                return false;
+            }
+            entered = entered || inside;
+            lastPosition = position;
+        }
+        return lastPosition.isCloseTo(goal, SystemConstants.DRONE_IS_CLOSE_DISTANCE);
+    }
+
+    private static boolean isAnyInside(List<LngLat> positions, List<LngLat> centralArea) {
+        for (LngLat position : positions) {
+            if (PathfindingAlgorithm.isPointInsidePolygon(position, centralArea)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LngLat shift(LngLat position, double offsetLng, double offsetLat) {
+        if (offsetLng == 0 && offsetLat == 0) {
+            return position;
+        }
+        return new LngLat(position.lng() + offsetLng, position.lat() + offsetLat);
+    }
+}
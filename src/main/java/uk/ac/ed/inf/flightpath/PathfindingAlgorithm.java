@@ -1,8 +1,11 @@
 package uk.ac.ed.inf.flightpath;
 
+import uk.ac.ed.inf.constant.CorridorShape;
 import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.LngLat;
 import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Polygon;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
 
 import java.util.*;
 
@@ -10,16 +13,20 @@ import java.util.*;
  * Implements a pathfinding algorithm for drone navigation.
  */
 public class PathfindingAlgorithm {
-    private static final double[] COMPASS_DIRECTIONS = {
+    static final double[] COMPASS_DIRECTIONS = {
             0, 22.5, 45, 67.5, 90, 112.5, 135, 157.5,
             180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5
     };
 
-    private static final int MAX_ITERATIONS = 5000;
-    private static final int MAX_NODES = 10000;
+    static final int MAX_ITERATIONS = 5000;
+    static final int MAX_NODES = 10000;
+    private static final int CORRIDOR_WIDENINGS = 2;
+    private static final double CORRIDOR_WIDENING_FACTOR = 4;
 
     /**
      * Finds the shortest path from the start position to the goal.
+     * The reachability map is built for this call only, so this is meant for one-off searches and tests. Request
+     * handling passes the map of its snapshot instead, see {@link ReachabilityMap#INDEX}.
      *
      * @param start       The starting position of the drone.
      * @param goal        The target destination.
@@ -28,6 +35,51 @@ public class PathfindingAlgorithm {
      * @return A list of {@link LngLat} positions representing the calculated path, or null if no valid path is found.
      */
     public static List<LngLat> findPath (LngLat start, LngLat goal, List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        return findPath(start, goal, noFlyZones, centralArea, new ReachabilityMap(noFlyZones, centralArea), null,
+                SearchMonitor.NONE);
+    }
+
+    /**
+     * Finds the shortest path within a corridor, reporting progress to a monitor and stopping when it cancels.
+     * The corridor is only widened, and finally dropped, if the search inside it fails.
+     *
+     * @param start        The starting position of the drone.
+     * @param goal         The target destination.
+     * @param noFlyZones   A list of restricted no-fly zones.
+     * @param centralArea  The central area the drone must remain inside once entered.
+     * @param shape        The shape of the corridor, or {@link CorridorShape#NONE} to search without one.
+     * @param slack        The initial slack of the corridor, see {@link Corridor}.
+     * @param reachability The reachability map of the no-fly zones and central area, see {@link ReachabilityMap#INDEX}.
+     * @param monitor      The monitor notified of progress and checked for cancellation.
+     * @return A list of {@link LngLat} positions representing the calculated path, or null if no valid path is found
+     *         or the search was cancelled.
+     */
+    public static List<LngLat> findPath (LngLat start, LngLat goal, List<NoFlyZone> noFlyZones, List<LngLat> centralArea,
+                                         CorridorShape shape, double slack, ReachabilityMap reachability,
+                                         SearchMonitor monitor) {
+        if (shape == CorridorShape.NONE || !reachability.isReachable(start, goal)) {
+            return findPath(start, goal, noFlyZones, centralArea, reachability, null, monitor);
+        }
+
+        Corridor corridor = new Corridor(shape, start, goal, slack, noFlyZones);
+        for (int attempt = 0; attempt <= CORRIDOR_WIDENINGS; attempt++) {
+            List<LngLat> path = findPath(start, goal, noFlyZones, centralArea, reachability, corridor, monitor);
+            if (path != null || monitor.isCancelled()) {
+                return path;
+            }
+            corridor = corridor.widen(CORRIDOR_WIDENING_FACTOR, noFlyZones);
+        }
+        return findPath(start, goal, noFlyZones, centralArea, reachability, null, monitor);
+    }
+
+    private static List<LngLat> findPath (LngLat start, LngLat goal, List<NoFlyZone> noFlyZones, List<LngLat> centralArea,
+                                          ReachabilityMap reachability, Corridor corridor, SearchMonitor monitor) {
+        // Fail fast when the goal lies in a different free-space component than the start
+        if (!reachability.isReachable(start, goal)) {
+            return null;
+        }
+
+        GoalBasin goalBasin = GoalBasin.around(goal);
         PriorityQueue<Node> openSet = new PriorityQueue<>();  // Nodes to be  explored
         Map<LngLat, Node> allNodes = new HashMap<>(); // Tracks visited nodes
         Set<LngLat> closedSet = new HashSet<>();  // Prevents revising nodes
@@ -47,7 +99,14 @@ public class PathfindingAlgorithm {
 
             Node current = openSet.poll();  // Get the node with the lowest cost
 
-            if (current.getPosition().isCloseTo(goal, SystemConstants.DRONE_IS_CLOSE_DISTANCE)) {
+            if (iterations % SearchMonitor.REPORT_INTERVAL == 0) {
+                if (monitor.isCancelled()) {
+                    return null;  // Nobody is waiting for the result any more
+                }
+                monitor.onProgress(iterations, current.getFCost());
+            }
+
+            if (goalBasin.contains(current.getPosition())) {
                 return reconstructPath(current);
             }
 
@@ -65,6 +124,9 @@ public class PathfindingAlgorithm {
                 if (closedSet.contains(nextPos) || isInNoFlyZone(nextPos,noFlyZones) ||!isInsideCentralArea(nextPos, centralArea, hasEnteredCentralArea)) {
                     continue;
                 }
+                if (corridor != null && !corridor.contains(nextPos)) {
+                    continue;
+                }
 
                 double gCost = current.getGCost() + SystemConstants.DRONE_MOVE_DISTANCE;
 
@@ -89,7 +151,7 @@ public class PathfindingAlgorithm {
      * @param b The second point.
      * @return The estimated cost between the two points.
      */
-    private static double heuristic(LngLat a, LngLat b) {
+    static double heuristic(LngLat a, LngLat b) {
         return 1.5 * Math.sqrt(Math.pow(a.lng() - b.lng(), 2) + Math.pow(a.lat() - b.lat(), 2));
     }
 
@@ -100,7 +162,7 @@ public class PathfindingAlgorithm {
      * @param angle    The movement direction in degrees.
      * @return The new position after the move.
      */
-    private static LngLat moveInDirection(LngLat position, double angle) {
+    static LngLat moveInDirection(LngLat position, double angle) {
         double radians = Math.toRadians(angle);
         double newLng = position.lng() + SystemConstants.DRONE_MOVE_DISTANCE * Math.cos(radians);
         double newLat = position.lat() + SystemConstants.DRONE_MOVE_DISTANCE * Math.sin(radians);
@@ -114,7 +176,7 @@ public class PathfindingAlgorithm {
      * @param noFlyZones The list of no-fly zones.
      * @return true if the position is inside a no-fly zone, false otherwise.
      */
-    private static boolean isInNoFlyZone (LngLat position, List<NoFlyZone> noFlyZones) {
+    static boolean isInNoFlyZone (LngLat position, List<NoFlyZone> noFlyZones) {
         for (NoFlyZone zone : noFlyZones) {
             if (isPointInsidePolygon(position, zone.getVertices())) {
                 return true;
@@ -145,12 +207,16 @@ public class PathfindingAlgorithm {
 
     /**
      * Determines whether a point is inside a given polygon using the ray-casting algorithm.
+     * A {@link Polygon} is tested on its coordinate arrays, without creating a vertex object per edge.
      *
      * @param point   The point to check.
      * @param polygon The polygon represented as a list of vertices.
      * @return true if the point is inside the polygon, false otherwise.
      */
-    private static boolean isPointInsidePolygon(LngLat point, List<LngLat> polygon) {
+    static boolean isPointInsidePolygon(LngLat point, List<LngLat> polygon) {
+        if (polygon instanceof Polygon vertices) {
+            return isPointInsidePolygon(point.lng(), point.lat(), vertices);
+        }
         int intersections = 0;
         int numVertices = polygon.size();
 
@@ -158,12 +224,11 @@ public class PathfindingAlgorithm {
             LngLat v1 = polygon.get(i);
             LngLat v2 = polygon.get(j);
 
-            if (isPointOnEdge(point, v1, v2)) {
+            if (isPointOnEdge(point.lng(), point.lat(), v1.lng(), v1.lat(), v2.lng(), v2.lat())) {
                 return true;
             }
 
-            if (((v1.lat() > point.lat()) != (v2.lat() > point.lat())) &&
-                    (point.lng() < (v2.lng() - v1.lng()) * (point.lat() - v1.lat()) / (v2.lat() - v1.lat()) + v1.lng())) {
+            if (crossesRay(point.lng(), point.lat(), v1.lng(), v1.lat(), v2.lng(), v2.lat())) {
                 intersections++;
             }
 
@@ -171,24 +236,54 @@ public class PathfindingAlgorithm {
         return (intersections % 2 == 1);
     }
 
+    private static boolean isPointInsidePolygon(double lng, double lat, Polygon polygon) {
+        int intersections = 0;
+        int numVertices = polygon.size();
+
+        for (int i = 0, j = numVertices - 1; i < numVertices; j = i++) {
+            double lng1 = polygon.lng(i);
+            double lat1 = polygon.lat(i);
+            double lng2 = polygon.lng(j);
+            double lat2 = polygon.lat(j);
+
+            if (isPointOnEdge(lng, lat, lng1, lat1, lng2, lat2)) {
+                return true;
+            }
+            if (crossesRay(lng, lat, lng1, lat1, lng2, lat2)) {
+                intersections++;
+            }
+        }
+        return (intersections % 2 == 1);
+    }
+
+    /**
+     * Checks whether the edge from (lng1, lat1) to (lng2, lat2) crosses the ray cast from the point towards +lng.
+     */
+    private static boolean crossesRay(double lng, double lat, double lng1, double lat1, double lng2, double lat2) {
+        return ((lat1 > lat) != (lat2 > lat)) && (lng < (lng2 - lng1) * (lat - lat1) / (lat2 - lat1) + lng1);
+    }
+
     /**
      * Checks whether a point lies exactly on the edge of a polygon segment.
      *
-     * @param point The point to check.
-     * @param v1    The first vertex of the segment.
-     * @param v2    The second vertex of the segment.
+     * @param lng  The longitude of the point to check.
+     * @param lat  The latitude of the point to check.
+     * @param lng1 The longitude of the first vertex of the segment.
+     * @param lat1 The latitude of the first vertex of the segment.
+     * @param lng2 The longitude of the second vertex of the segment.
+     * @param lat2 The latitude of the second vertex of the segment.
      * @return true if the point is on the segment, false otherwise.
      */
-    private static boolean isPointOnEdge(LngLat point, LngLat v1, LngLat v2) {
-        double minX = Math.min(v1.lng(), v2.lng());
-        double maxX = Math.max(v1.lng(), v2.lng());
-        double minY = Math.min(v1.lat(), v2.lat());
-        double maxY = Math.max(v1.lat(), v2.lat());
-
-        return (point.lng() >= minX && point.lng() <= maxX &&
-                point.lat() >= minY && point.lat() <= maxY &&
-                Math.abs((v2.lng() - v1.lng()) * (point.lat() - v1.lat()) -
-                        (point.lng() - v1.lng()) * (v2.lat() - v1.lat())) < 1e-9);
+    private static boolean isPointOnEdge(double lng, double lat, double lng1, double lat1, double lng2, double lat2) {
+        double minX = Math.min(lng1, lng2);
+        double maxX = Math.max(lng1, lng2);
+        double minY = Math.min(lat1, lat2);
+        double maxY = Math.max(lat1, lat2);
+
+        return (lng >= minX && lng <= maxX &&
+                lat >= minY && lat <= maxY &&
+                Math.abs((lng2 - lng1) * (lat - lat1) -
+                        (lng - lng1) * (lat2 - lat1)) < 1e-9);
     }
 
     public static boolean testIsPointInsidePolygon(LngLat point, List<LngLat> polygon) {
@@ -0,0 +1,312 @@
+package uk.ac.ed.inf.flightpath;
+
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.DerivedIndex;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connected-component labelling of the rasterized free space around the no-fly zones and central area.
+ * The map is conservative: a cell only counts as blocked when it lies completely inside a no-fly zone,
+ * so a start/goal pair is only rejected when no lattice path can possibly connect them.
+ * The labels can be mapped from a file written by {@link RoutingArtifactStore} instead of being computed again.
+ */
+public class ReachabilityMap {
+
+    // Slightly larger than one move so that consecutive lattice points always land in neighbouring cells
+    private static final double CELL_SIZE = SystemConstants.DRONE_MOVE_DISTANCE * 1.01;
+    private static final int MARGIN_CELLS = 2;
+
+    /**
+     * The map of a snapshot's regions, built once per snapshot unless {@link RoutingArtifactStore} preloads it.
+     */
+    public static final DerivedIndex<ReachabilityMap> INDEX = new DerivedIndex<>("reachability",
+            snapshot -> new ReachabilityMap(snapshot.noFlyZones(), snapshot.centralArea()));
+
+    private final List<LngLat> centralArea;
+    private final double originLng;
+    private final double originLat;
+    private final int width;
+    private final int height;
+    private final IntBuffer freeLabels;     // Components of all cells not fully inside a no-fly zone
+    private final IntBuffer centralLabels;  // Components of free cells that touch the central area
+
+    /**
+     * Builds the reachability map for the given regions.
+     *
+     * @param noFlyZones  The list of restricted no-fly zones.
+     * @param centralArea The central area the drone must remain inside once entered.
+     */
+    public ReachabilityMap(List<NoFlyZone> noFlyZones, List<LngLat> centralArea) {
+        this.centralArea = centralArea;
+
+        List<List<LngLat>> zones = new ArrayList<>();
+        for (NoFlyZone zone : noFlyZones) {
+            zones.add(zone.getVertices());
+        }
+
+        double minLng = Double.POSITIVE_INFINITY, minLat = Double.POSITIVE_INFINITY;
+        double maxLng = Double.NEGATIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        List<List<LngLat>> regions = new ArrayList<>(zones);
+        regions.add(centralArea);
+        for (List<LngLat> region : regions) {
+            for (LngLat vertex : region) {
+                minLng = Math.min(minLng, vertex.lng());
+                minLat = Math.min(minLat, vertex.lat());
+                maxLng = Math.max(maxLng, vertex.lng());
+                maxLat = Math.max(maxLat, vertex.lat());
+            }
+        }
+
+        if (minLng > maxLng) {
+            // Nothing to rasterize, every pair is reachable
+            originLng = 0;
+            originLat = 0;
+            width = 0;
+            height = 0;
+            freeLabels = IntBuffer.allocate(0);
+            centralLabels = IntBuffer.allocate(0);
+            return;
+        }
+
+        originLng = minLng - MARGIN_CELLS * CELL_SIZE;
+        originLat = minLat - MARGIN_CELLS * CELL_SIZE;
+        width = (int) Math.ceil((maxLng - minLng) / CELL_SIZE) + 2 * MARGIN_CELLS + 1;
+        height = (int) Math.ceil((maxLat - minLat) / CELL_SIZE) + 2 * MARGIN_CELLS + 1;
+
+        boolean[] free = new boolean[width * height];
+        boolean[] central = new boolean[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double cellMinLng = originLng + x * CELL_SIZE;
+                double cellMinLat = originLat + y * CELL_SIZE;
+                int cell = y * width + x;
+
+                free[cell] = true;
+                for (List<LngLat> zone : zones) {
+                    if (isCellInsidePolygon(cellMinLng, cellMinLat, zone)) {
+                        free[cell] = false;
+                        break;
+                    }
+                }
+                central[cell] = free[cell] && doesCellTouchPolygon(cellMinLng, cellMinLat, centralArea);
+            }
+        }
+
+        freeLabels = IntBuffer.wrap(labelComponents(free));
+        centralLabels = IntBuffer.wrap(labelComponents(central));
+    }
+
+    private ReachabilityMap(List<LngLat> centralArea, double originLng, double originLat, int width, int height,
+                            IntBuffer freeLabels, IntBuffer centralLabels) {
+        this.centralArea = centralArea;
+        this.originLng = originLng;
+        this.originLat = originLat;
+        this.width = width;
+        this.height = height;
+        this.freeLabels = freeLabels;
+        this.centralLabels = centralLabels;
+    }
+
+    /**
+     * Writes the grid and its labels, in the layout {@link #read} expects.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeDouble(originLng);
+        out.writeDouble(originLat);
+        out.writeInt(width);
+        out.writeInt(height);
+        for (IntBuffer labels : List.of(freeLabels, centralLabels)) {
+            for (int i = 0; i < width * height; i++) {
+                out.writeInt(labels.get(i));
+            }
+        }
+    }
+
+    /**
+     * Reads a map written by {@link #writeTo} without copying its labels, which stay views of the buffer.
+     * Advances the buffer past the map.
+     *
+     * @param buffer      The buffer positioned at the start of the map.
+     * @param centralArea The central area the map was built for.
+     */
+    static ReachabilityMap read(ByteBuffer buffer, List<LngLat> centralArea) {
+        double originLng = buffer.getDouble();
+        double originLat = buffer.getDouble();
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int cells = Math.multiplyExact(width, height);
+
+        IntBuffer freeLabels = buffer.slice(buffer.position(), cells * Integer.BYTES).asIntBuffer();
+        buffer.position(buffer.position() + cells * Integer.BYTES);
+        IntBuffer centralLabels = buffer.slice(buffer.position(), cells * Integer.BYTES).asIntBuffer();
+        buffer.position(buffer.position() + cells * Integer.BYTES);
+        return new ReachabilityMap(centralArea, originLng, originLat, width, height, freeLabels, centralLabels);
+    }
+
+    /**
+     * Checks in constant time whether the goal can possibly be reached from the start.
+     *
+     * @param start The starting position of the drone.
+     * @param goal  The target destination.
+     * @return false if no lattice path can connect the start to the goal, true otherwise.
+     */
+    public boolean isReachable(LngLat start, LngLat goal) {
+        if (width == 0 || start.isCloseTo(goal, SystemConstants.DRONE_IS_CLOSE_DISTANCE)) {
+            return true;
+        }
+
+        // Once the search starts inside the central area it can never leave it
+        boolean startInside = !centralArea.isEmpty() && PathfindingAlgorithm.isPointInsidePolygon(start, centralArea);
+        IntBuffer labels = startInside ? centralLabels : freeLabels;
+
+        int startX = cellX(start.lng());
+        int startY = cellY(start.lat());
+        int goalX = cellX(goal.lng());
+        int goalY = cellY(goal.lat());
+
+        // Neighbouring cells cover the first move from the start and every point close to the goal
+        for (int sy = startY - 1; sy <= startY + 1; sy++) {
+            for (int sx = startX - 1; sx <= startX + 1; sx++) {
+                int startLabel = labelAt(labels, sx, sy);
+                if (startLabel == 0) {
+                    continue;
+                }
+                for (int gy = goalY - 1; gy <= goalY + 1; gy++) {
+                    for (int gx = goalX - 1; gx <= goalX + 1; gx++) {
+                        if (labelAt(labels, gx, gy) == startLabel) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int cellX(double lng) {
+        return (int) Math.floor((lng - originLng) / CELL_SIZE);
+    }
+
+    private int cellY(double lat) {
+        return (int) Math.floor((lat - originLat) / CELL_SIZE);
+    }
+
+    /**
+     * Looks up the component label of a cell, clamping positions outside the grid onto its free border.
+     */
+    private int labelAt(IntBuffer labels, int x, int y) {
+        int clampedX = Math.max(0, Math.min(width - 1, x));
+        int clampedY = Math.max(0, Math.min(height - 1, y));
+        return labels.get(clampedY * width + clampedX);
+    }
+
+    /**
+     * Labels the 8-connected components of the given cells, starting from 1. Cells not in the mask get 0.
+     */
+    private int[] labelComponents(boolean[] mask) {
+        int[] labels = new int[mask.length];
+        int[] queue = new int[mask.length];
+        int nextLabel = 0;
+
+        for (int seed = 0; seed < mask.length; seed++) {
+            if (!mask[seed] || labels[seed] != 0) {
+                continue;
+            }
+            nextLabel++;
+            labels[seed] = nextLabel;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = seed;
+
+            while (head < tail) {
+                int cell = queue[head++];
+                int x = cell % width;
+                int y = cell / width;
+                for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++) {
+                    for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++) {
+                        int neighbour = ny * width + nx;
+                        if (mask[neighbour] && labels[neighbour] == 0) {
+                            labels[neighbour] = nextLabel;
+                            queue[tail++] = neighbour;
+                        }
+                    }
+                }
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * A cell is completely inside a polygon if its centre is inside and no polygon edge crosses the cell.
+     */
+    private static boolean isCellInsidePolygon(double cellMinLng, double cellMinLat, List<LngLat> polygon) {
+        if (polygon.isEmpty()) {
+            return false;
+        }
+        LngLat centre = new LngLat(cellMinLng + CELL_SIZE / 2, cellMinLat + CELL_SIZE / 2);
+        return PathfindingAlgorithm.isPointInsidePolygon(centre, polygon)
+                && !doesAnyEdgeCrossCell(cellMinLng, cellMinLat, polygon);
+    }
+
+    /**
+     * A cell touches a polygon if its centre is inside or any polygon edge crosses the cell.
+     */
+    private static boolean doesCellTouchPolygon(double cellMinLng, double cellMinLat, List<LngLat> polygon) {
+        if (polygon.isEmpty()) {
+            return false;
+        }
+        LngLat centre = new LngLat(cellMinLng + CELL_SIZE / 2, cellMinLat + CELL_SIZE / 2);
+        return PathfindingAlgorithm.isPointInsidePolygon(centre, polygon)
+                || doesAnyEdgeCrossCell(cellMinLng, cellMinLat, polygon);
+    }
+
+    private static boolean doesAnyEdgeCrossCell(double cellMinLng, double cellMinLat, List<LngLat> polygon) {
+        for (int i = 0, j = polygon.size() - 1; i < polygon.size(); j = i++) {
+            if (segmentIntersectsBox(polygon.get(j), polygon.get(i),
+                    cellMinLng, cellMinLat, cellMinLng + CELL_SIZE, cellMinLat + CELL_SIZE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Liang-Barsky clipping of the segment a-b against an axis-aligned box.
+     */
+    private static boolean segmentIntersectsBox(LngLat a, LngLat b,
+                                                double minLng, double minLat, double maxLng, double maxLat) {
+        double dx = b.lng() - a.lng();
+        double dy = b.lat() - a.lat();
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {a.lng() - minLng, maxLng - a.lng(), a.lat() - minLat, maxLat - a.lat()};
+        double t0 = 0;
+        double t1 = 1;
+
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return false;   // Parallel to and outside this boundary
+                }
+            } else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) {
+                    t0 = Math.max(t0, t);
+                } else {
+                    t1 = Math.min(t1, t);
+                }
+                if (t0 > t1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
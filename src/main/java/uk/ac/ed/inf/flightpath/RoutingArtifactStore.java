@@ -0,0 +1,188 @@
+package uk.ac.ed.inf.flightpath;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class that keeps the routing data derived from a reference data snapshot in a binary file:
+ * the {@link ReachabilityMap} labels and the path from every restaurant to Appleton Tower.
+ * The file is written once per snapshot, and any instance planning against equal data maps it instead of
+ * computing the same data again. The labels stay in the mapped file rather than being copied onto the heap.
+ * <p>
+ * The file is big-endian: a magic number, the format version, the SHA-256 of the snapshot data
+ * ({@link ReferenceDataSnapshot#contentHash()}) and the planner configuration key, then the reachability map,
+ * then the path table. A file whose header does not match the snapshot and planner it is used with is ignored.
+ * The store is disabled unless pizzadronz.routing-artifact.enabled is set.
+ */
+@Service
+public class RoutingArtifactStore {
+
+    static final int MAGIC = 0x505A5241;    // "PZRA"
+    static final int FORMAT_VERSION = 2;     // 2: paths start exactly at the restaurant
+
+    private final boolean enabled;
+    private final Path file;
+    private final PathPlanner pathPlanner;
+
+    /**
+     * Constructs the store.
+     *
+     * @param enabled     Whether routing artifacts are written and mapped at all.
+     * @param file        The file the artifact is kept in.
+     * @param pathPlanner The planner whose paths to Appleton Tower are stored.
+     */
+    public RoutingArtifactStore(@Value("${pizzadronz.routing-artifact.enabled:false}") boolean enabled,
+                                @Value("${pizzadronz.routing-artifact.file:data/routing.bin}") String file,
+                                PathPlanner pathPlanner) {
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.pathPlanner = pathPlanner;
+    }
+
+    /**
+     * @return whether the store writes and maps routing artifacts
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Makes the routing data for a snapshot available, mapping the stored artifact if it was built from equal data
+     * and otherwise building the data and replacing the artifact. Building plans a path per restaurant,
+     * so this should not run on a request thread.
+     *
+     * @param snapshot The snapshot to prepare the routing data of.
+     * @throws UncheckedIOException if a new artifact cannot be written.
+     */
+    public void prepare(ReferenceDataSnapshot snapshot) {
+        if (enabled && !attach(snapshot)) {
+            write(snapshot);
+        }
+    }
+
+    /**
+     * Maps the stored artifact if its header matches the snapshot and the planner configuration, then preloads its
+     * reachability map and its paths into the snapshot.
+     *
+     * @param snapshot The snapshot the artifact has to match.
+     * @return true if the artifact was mapped, false if the store is disabled or the artifact is missing,
+     *         built from other data or unreadable.
+     */
+    public boolean attach(ReferenceDataSnapshot snapshot) {
+        if (!enabled || !Files.isRegularFile(file)) {
+            return false;
+        }
+        // The mapping outlives the channel
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return false;
+            }
+            byte[] contentHash = new byte[buffer.getInt()];
+            buffer.get(contentHash);
+            byte[] configurationKey = new byte[buffer.getInt()];
+            buffer.get(configurationKey);
+            if (!Arrays.equals(contentHash, snapshot.contentHash())
+                    || !pathPlanner.getConfigurationKey().equals(new String(configurationKey, StandardCharsets.UTF_8))) {
+                return false;
+            }
+
+            ReachabilityMap reachability = ReachabilityMap.read(buffer, snapshot.centralArea());
+            Map<LngLat, List<LngLat>> paths = readPaths(buffer);
+            snapshot.preloadIndex(ReachabilityMap.INDEX, reachability);
+            snapshot.preloadIndex(pathPlanner.pathsToAppletonIndex(), paths);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();    // Build the data again rather than fail
+            return false;
+        }
+    }
+
+    /**
+     * Builds the routing data of a snapshot if needed and writes it, replacing the stored artifact in one move.
+     *
+     * @param snapshot The snapshot to write the routing data of.
+     * @throws UncheckedIOException if the file cannot be written.
+     */
+    public void write(ReferenceDataSnapshot snapshot) {
+        Map<LngLat, List<LngLat>> paths = snapshot.index(pathPlanner.pathsToAppletonIndex());
+        ReachabilityMap reachability = snapshot.index(ReachabilityMap.INDEX);
+
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    byte[] contentHash = snapshot.contentHash();
+                    out.writeInt(contentHash.length);
+                    out.write(contentHash);
+                    byte[] configurationKey = pathPlanner.getConfigurationKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(configurationKey.length);
+                    out.write(configurationKey);
+                    reachability.writeTo(out);
+                    writePaths(out, paths);
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Each path is its restaurant location, its length and its positions, as pairs of doubles.
+     */
+    private static void writePaths(DataOutputStream out, Map<LngLat, List<LngLat>> paths) throws IOException {
+        out.writeInt(paths.size());
+        for (Map.Entry<LngLat, List<LngLat>> entry : paths.entrySet()) {
+            out.writeDouble(entry.getKey().lng());
+            out.writeDouble(entry.getKey().lat());
+            out.writeInt(entry.getValue().size());
+            for (LngLat position : entry.getValue()) {
+                out.writeDouble(position.lng());
+                out.writeDouble(position.lat());
+            }
+        }
+    }
+
+    private static Map<LngLat, List<LngLat>> readPaths(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        Map<LngLat, List<LngLat>> paths = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            LngLat restaurant = new LngLat(buffer.getDouble(), buffer.getDouble());
+            int length = buffer.getInt();
+            List<LngLat> path = new ArrayList<>(Math.min(length, buffer.remaining() / (2 * Double.BYTES)));
+            for (int j = 0; j < length; j++) {
+                path.add(new LngLat(buffer.getDouble(), buffer.getDouble()));
+            }
+            paths.put(restaurant, List.copyOf(path));
+        }
+        return Collections.unmodifiableMap(paths);
+    }
+}
@@ -0,0 +1,79 @@
+package uk.ac.ed.inf.interfaces;
+
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.ConditionalFetch;
+import uk.ac.ed.inf.external.Validators;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * interface for where the restaurants, no-fly zones and central area are read from.
+ * every fetch is conditional: a source answers without a body if the data still matches the given validators.
+ * the async variants run the blocking fetch on the given executor unless a source can fetch without blocking
+ */
+public interface ReferenceDataSource {
+
+    /**
+     * fetches the restaurants unless they still match the version the caller holds
+     *
+     * @param validators the validators of the restaurants the caller holds, or {@link Validators#NONE}
+     * @return the restaurants and their validators, or no body if they have not changed
+     */
+    ConditionalFetch<Restaurant[]> fetchRestaurants(Validators validators);
+
+    /**
+     * fetches the no-fly zones unless they still match the version the caller holds
+     *
+     * @param validators the validators of the zones the caller holds, or {@link Validators#NONE}
+     * @return the no-fly zones and their validators, or no body if they have not changed
+     */
+    ConditionalFetch<List<NoFlyZone>> fetchNoFlyZones(Validators validators);
+
+    /**
+     * fetches the central area vertices unless they still match the version the caller holds
+     *
+     * @param validators the validators of the central area the caller holds, or {@link Validators#NONE}
+     * @return the central area vertices and their validators, or no body if they have not changed
+     */
+    ConditionalFetch<List<LngLat>> fetchCentralArea(Validators validators);
+
+    /**
+     * fetches the restaurants like {@link #fetchRestaurants(Validators)}, without blocking the calling thread
+     *
+     * @param validators the validators of the restaurants the caller holds, or {@link Validators#NONE}
+     * @param executor   the executor a blocking fetch runs on
+     * @return the fetch, completing with the restaurants and their validators, or no body if they have not changed
+     */
+    default CompletableFuture<ConditionalFetch<Restaurant[]>> fetchRestaurantsAsync(Validators validators,
+                                                                                   Executor executor) {
+        return CompletableFuture.supplyAsync(() -> fetchRestaurants(validators), executor);
+    }
+
+    /**
+     * fetches the no-fly zones like {@link #fetchNoFlyZones(Validators)}, without blocking the calling thread
+     *
+     * @param validators the validators of the zones the caller holds, or {@link Validators#NONE}
+     * @param executor   the executor a blocking fetch runs on
+     * @return the fetch, completing with the no-fly zones and their validators, or no body if they have not changed
+     */
+    default CompletableFuture<ConditionalFetch<List<NoFlyZone>>> fetchNoFlyZonesAsync(Validators validators,
+                                                                                     Executor executor) {
+        return CompletableFuture.supplyAsync(() -> fetchNoFlyZones(validators), executor);
+    }
+
+    /**
+     * fetches the central area like {@link #fetchCentralArea(Validators)}, without blocking the calling thread
+     *
+     * @param validators the validators of the central area the caller holds, or {@link Validators#NONE}
+     * @param executor   the executor a blocking fetch runs on
+     * @return the fetch, completing with the central area vertices and their validators, or no body if they have not changed
+     */
+    default CompletableFuture<ConditionalFetch<List<LngLat>>> fetchCentralAreaAsync(Validators validators,
+                                                                                   Executor executor) {
+        return CompletableFuture.supplyAsync(() -> fetchCentralArea(validators), executor);
+    }
+}
@@ -0,0 +1,42 @@
+package uk.ac.ed.inf.interfaces;
+
+/**
+ * interface to observe and cancel a running path search
+ */
+public interface SearchMonitor {
+
+    /**
+     * the number of expansions between two progress reports and cancellation checks
+     */
+    int REPORT_INTERVAL = 100;
+
+    /**
+     * a monitor that ignores progress and never cancels
+     */
+    SearchMonitor NONE = new SearchMonitor() {
+        @Override
+        public void onProgress(int expansions, double bestFCost) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * called every {@link #REPORT_INTERVAL} expansions while the search runs.
+     * only the thread that started the search calls this, parallel searches included
+     *
+     * @param expansions the number of nodes expanded so far
+     * @param bestFCost  the lowest estimated total path cost still open
+     */
+    void onProgress(int expansions, double bestFCost);
+
+    /**
+     * checked every {@link #REPORT_INTERVAL} expansions, a search that sees true gives up and returns no path
+     *
+     * @return true if the result of the search is no longer needed
+     */
+    boolean isCancelled();
+}
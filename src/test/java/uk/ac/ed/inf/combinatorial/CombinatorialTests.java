@@ -15,7 +15,9 @@ import uk.ac.ed.inf.data.CreditCardInformation;
 import uk.ac.ed.inf.constant.OrderValidationCode;
 import uk.ac.ed.inf.constant.OrderStatus;
 import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.ConditionalFetch;
 import uk.ac.ed.inf.external.RestaurantService;
+import uk.ac.ed.inf.external.Validators;
 import uk.ac.ed.inf.validation.OrderValidationImpl;
 import uk.ac.ed.inf.data.LngLat;
 
@@ -50,7 +52,8 @@ public class CombinatorialTests {
         );
 
         // Mock restaurant service behavior
-        Mockito.when(restaurantService.fetchRestaurants()).thenReturn(new Restaurant[]{testRestaurant});
+        Mockito.when(restaurantService.fetchRestaurants(Validators.NONE))
+                .thenReturn(new ConditionalFetch<>(new Restaurant[]{testRestaurant}, Validators.NONE));
 
         orderValidation = new OrderValidationImpl(restaurantService);
     }
@@ -68,7 +71,7 @@ public class CombinatorialTests {
     public void testCreditCardCombinations(String cardNumber, String expiry, String cvv, OrderValidationCode expectedCode, boolean expected) {
         CreditCardInformation creditCard = new CreditCardInformation(cardNumber, expiry, cvv);
         Order order = new Order("ORD007", LocalDate.now(), 900, new Pizza[]{new Pizza("TestPizza", 800)}, creditCard);
-        Order validatedOrder = orderValidation.validateOrder(order, restaurantService.fetchRestaurants());
+        Order validatedOrder = orderValidation.validateOrder(order, restaurantService.fetchRestaurants(Validators.NONE).body());
 
         assertEquals(expectedCode, validatedOrder.getOrderValidationCode(), "Validation code should match expected");
         assertEquals(expected, validatedOrder.getOrderStatus() == OrderStatus.VALID, "Order validation result should match expected");
@@ -92,7 +95,7 @@ public class CombinatorialTests {
         CreditCardInformation creditCard = new CreditCardInformation("1234567812345678", "12/25", "123");
         Order order = new Order("ORD008", LocalDate.now(), pizzaCount * 800 + 100, pizzas, creditCard);
 
-        Restaurant[] restaurants = restaurantService.fetchRestaurants();
+        Restaurant[] restaurants = restaurantService.fetchRestaurants(Validators.NONE).body();
         Order validatedOrder = orderValidation.validateOrder(order, restaurants);
 
         assertEquals(expected, validatedOrder.getOrderStatus() == OrderStatus.VALID, "Pizza count validation should match expected");
@@ -9,7 +9,9 @@ import uk.ac.ed.inf.constant.OrderStatus;
 import uk.ac.ed.inf.constant.OrderValidationCode;
 import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.*;
+import uk.ac.ed.inf.external.ConditionalFetch;
 import uk.ac.ed.inf.external.RestaurantService;
+import uk.ac.ed.inf.external.Validators;
 import uk.ac.ed.inf.validation.OrderValidationImpl;
 
 import java.time.DayOfWeek;
@@ -35,9 +37,10 @@ public class OrderValidationImplTestModelBased {
     @Test
     void testValidOrder() {
         Order order = createValidOrder();
-        when(restaurantService.fetchRestaurants()).thenReturn(new Restaurant[]{createMockRestaurant()});
+        when(restaurantService.fetchRestaurants(Validators.NONE))
+                .thenReturn(new ConditionalFetch<>(new Restaurant[]{createMockRestaurant()}, Validators.NONE));
 
-        Order result = orderValidator.validateOrder(order, restaurantService.fetchRestaurants());
+        Order result = orderValidator.validateOrder(order, restaurantService.fetchRestaurants(Validators.NONE).body());
 
         assertEquals(OrderStatus.VALID, result.getOrderStatus());
         assertEquals(OrderValidationCode.NO_ERROR, result.getOrderValidationCode());
@@ -0,0 +1,100 @@
+package uk.ac.ed.inf.performance;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.flightpath.HashDistributedSearch;
+import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Times A* against the parallel hash-distributed search on the routes the parallel search is meant for, to decide
+ * whether pizzadronz.pathfinding.parallel.workers should be raised on a given machine.
+ * The timings are only logged: they depend on the hardware, so nothing here asserts on them. The class is not picked up
+ * by the default test run, run it with -Dtest=PathSearchBenchmark.
+ */
+public class PathSearchBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(PathSearchBenchmark.class);
+
+    private static final LngLat APPLETON_TOWER = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+    private static final List<LngLat> STARTS = List.of(
+            new LngLat(-3.20254147052765, 55.9432847375794),
+            new LngLat(-3.1810810679852035, 55.938910643735845),
+            new LngLat(-3.1940174102783203, 55.94390696616939)
+    );
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 50;
+
+    private List<NoFlyZone> noFlyZones;
+    private List<LngLat> centralArea;
+    private ReachabilityMap reachability;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        centralArea = Arrays.asList(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
+        );
+        noFlyZones = Collections.singletonList(new NoFlyZone("George Square Area", Arrays.asList(
+                new LngLat(-3.19057881832123, 55.9440241257753),
+                new LngLat(-3.18998873233795, 55.9428465054091),
+                new LngLat(-3.1870973110199, 55.9432881172426),
+                new LngLat(-3.18768203258514, 55.9444777403937),
+                new LngLat(-3.19057881832123, 55.9440241257753)
+        )));
+        reachability = new ReachabilityMap(noFlyZones, centralArea);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void compareAStarWithParallelSearch() {
+        // Both searches share one reachability map, as requests do through the snapshot index
+        logger.info("A*: {} us per route", microsPerRoute(start -> PathfindingAlgorithm.findPath(start, APPLETON_TOWER,
+                noFlyZones, centralArea, CorridorShape.NONE, 0, reachability, SearchMonitor.NONE)));
+        for (int partitions : new int[]{2, 4, Runtime.getRuntime().availableProcessors()}) {
+            HashDistributedSearch search = new HashDistributedSearch(partitions, executor);
+            logger.info("HDA* with {} partitions: {} us per route", partitions,
+                    microsPerRoute(start -> search.findPath(start, APPLETON_TOWER, noFlyZones, centralArea,
+                            reachability, SearchMonitor.NONE)));
+        }
+    }
+
+    private long microsPerRoute(Function<LngLat, List<LngLat>> search) {
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            STARTS.forEach(search::apply);
+        }
+        long startTime = System.nanoTime();
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            for (LngLat start : STARTS) {
+                assertNotNull(search.apply(start));
+            }
+        }
+        return (System.nanoTime() - startTime) / 1000 / ((long) MEASURED_RUNS * STARTS.size());
+    }
+}
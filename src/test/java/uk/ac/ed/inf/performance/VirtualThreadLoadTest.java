@@ -0,0 +1,186 @@
+package uk.ac.ed.inf.performance;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.ConditionalFetch;
+import uk.ac.ed.inf.external.Validators;
+import uk.ac.ed.inf.interfaces.ReferenceDataSource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares how many requests can wait on a blocking upstream at once when Tomcat serves them from a small pool of
+ * platform threads, and when the virtual-threads profile gives each request its own virtual thread.
+ * The upstream is a stub whose fetches block until the test releases them, and the test only releases them once as
+ * many requests as the server admits are waiting, so the peaks are counted without depending on timing.
+ */
+public class VirtualThreadLoadTest {
+
+    private static final int PLATFORM_THREADS = 4;
+    private static final int CONCURRENT_REQUESTS = 32;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    /**
+     * Stands in for the ILP REST service: every fetch blocks until released.
+     */
+    static class BlockingUpstream implements ReferenceDataSource {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final AtomicBoolean platformThreadSeen = new AtomicBoolean();
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public ConditionalFetch<Restaurant[]> fetchRestaurants(Validators validators) {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            if (!Thread.currentThread().isVirtual()) {
+                platformThreadSeen.set(true);
+            }
+            try {
+                if (!release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Upstream was never released");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return new ConditionalFetch<>(new Restaurant[0], Validators.NONE);
+        }
+
+        @Override
+        public ConditionalFetch<List<NoFlyZone>> fetchNoFlyZones(Validators validators) {
+            return new ConditionalFetch<>(List.of(), Validators.NONE);
+        }
+
+        @Override
+        public ConditionalFetch<List<LngLat>> fetchCentralArea(Validators validators) {
+            return new ConditionalFetch<>(List.of(), Validators.NONE);
+        }
+    }
+
+    @TestConfiguration
+    static class StubUpstream {
+
+        @Bean
+        BlockingUpstream blockingUpstream() {
+            return new BlockingUpstream();
+        }
+
+        /**
+         * A request whose handling is one blocking upstream fetch, as a cache miss is.
+         */
+        @RestController
+        static class UpstreamProbe {
+            private final BlockingUpstream upstream;
+
+            UpstreamProbe(BlockingUpstream upstream) {
+                this.upstream = upstream;
+            }
+
+            @GetMapping("/test/upstreamFetch")
+            int fetch() {
+                return upstream.fetchRestaurants(Validators.NONE).body().length;
+            }
+        }
+    }
+
+    /**
+     * Sends all requests at once, releases the upstream once the expected number are blocked in it and waits for
+     * every response.
+     *
+     * @return The most requests that were waiting on the upstream at the same time.
+     */
+    private static int peakInFlight(int port, BlockingUpstream upstream, int expectedPeak) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/test/upstreamFetch"))
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (upstream.inFlight.get() < expectedPeak) {
+            assertTrue(System.nanoTime() < deadline, "Only " + upstream.inFlight.get() + " requests reached the upstream");
+            Thread.sleep(10);
+        }
+        upstream.release.countDown();
+
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).statusCode());
+        }
+        return upstream.peakInFlight.get();
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+            "pizzadronz.reference-data.source=stub",
+            "server.tomcat.threads.max=" + PLATFORM_THREADS,
+            "server.tomcat.threads.min-spare=" + PLATFORM_THREADS
+    })
+    @Import(StubUpstream.class)
+    class PlatformThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private BlockingUpstream upstream;
+
+        @Test
+        void testPoolCapsRequestsWaitingOnUpstream() throws Exception {
+            assertEquals(PLATFORM_THREADS, peakInFlight(port, upstream, PLATFORM_THREADS),
+                    "Each waiting request holds one of the pool's threads");
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+            "pizzadronz.reference-data.source=stub",
+            "server.tomcat.threads.max=" + PLATFORM_THREADS,    // Same pool settings, which virtual threads bypass
+            "server.tomcat.threads.min-spare=" + PLATFORM_THREADS
+    })
+    @ActiveProfiles("virtual-threads")
+    @Import(StubUpstream.class)
+    class VirtualThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private BlockingUpstream upstream;
+
+        @Test
+        void testEveryRequestWaitsOnItsOwnVirtualThread() throws Exception {
+            assertEquals(CONCURRENT_REQUESTS, peakInFlight(port, upstream, CONCURRENT_REQUESTS),
+                    "No thread pool should limit the requests waiting on the upstream");
+            assertFalse(upstream.platformThreadSeen.get(), "Requests should be handled on virtual threads");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.execution.AdaptiveConcurrencyLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(5000);
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit, SimpleMeterRegistry registry) {
+        return new AdaptiveConcurrencyLimiter(true, initialLimit, 1, 16, 1000, 2, registry);
+    }
+
+    @Test
+    void testRefusesBeyondLimit() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimiter limiter = limiter(2, registry);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1.0, registry.get("pizzadronz.limiter.rejected").counter().count());
+        assertEquals(2.0, registry.get("pizzadronz.limiter.inflight").gauge().value());
+
+        limiter.onSuccess(FAST);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testFastSearchesRaiseLimitAdditively() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimiter limiter = limiter(4, registry);
+
+        // Each fast search adds 1/limit, so about one limit's worth of them adds one
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onSuccess(FAST);
+        }
+
+        assertEquals(5.0, registry.get("pizzadronz.limiter.limit").gauge().value());
+    }
+
+    @Test
+    void testSlowOrDroppedSearchesCutLimitMultiplicatively() {
+        AdaptiveConcurrencyLimiter limiter = limiter(16, new SimpleMeterRegistry());
+
+        limiter.tryAcquire();
+        limiter.onSuccess(SLOW);
+        assertEquals(12.0, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.onDropped();
+        assertEquals(9.0, limiter.getLimit());
+    }
+
+    @Test
+    void testLimitStaysWithinBounds() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.onDropped();
+        }
+        assertEquals(1.0, limiter.getLimit());
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire();
+            limiter.onSuccess(FAST);
+        }
+        assertEquals(16.0, limiter.getLimit());
+    }
+
+    @Test
+    void testDisabledLimiterAdmitsEverything() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(false, 1, 1, 1, 1000, 1, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+    }
+
+    @Test
+    void testRejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(true, 0, 0, 4, 1000, 1, new SimpleMeterRegistry()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(true, 0, 8, 4, 1000, 1, new SimpleMeterRegistry()));
+    }
+}
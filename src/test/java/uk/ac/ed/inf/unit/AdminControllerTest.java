@@ -0,0 +1,43 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import uk.ac.ed.inf.controller.AdminController;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.ReferenceDataCache;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AdminControllerTest {
+
+    private final ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+    private final AdminController controller = new AdminController(referenceDataCache);
+
+    @Test
+    void testRefreshReportsTheNewSnapshot() {
+        ReferenceDataSnapshot snapshot = new ReferenceDataSnapshot(new Restaurant[0], List.of(),
+                List.of(new LngLat(-3.192473, 55.946233), new LngLat(-3.184319, 55.942617)));
+        when(referenceDataCache.refresh()).thenReturn(snapshot);
+
+        ResponseEntity<Map<String, Long>> response = controller.refreshReferenceData();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("version", snapshot.version(), "restaurants", 0L, "noFlyZones", 0L, "centralAreaVertices", 2L),
+                response.getBody());
+        verify(referenceDataCache).refresh();
+    }
+
+    @Test
+    void testFailedRefreshAnswersServiceUnavailable() {
+        when(referenceDataCache.refresh()).thenThrow(new IllegalStateException("Upstream down"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, controller.refreshReferenceData().getStatusCode());
+    }
+}
@@ -2,56 +2,55 @@ package uk.ac.ed.inf.unit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.LngLat;
-import uk.ac.ed.inf.data.NoFlyZone;
 import uk.ac.ed.inf.external.CentralAreaService;
+import uk.ac.ed.inf.external.Validators;
 
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 public class CentralAreaServiceTest {
 
-    @Mock
-    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
 
-    @InjectMocks
     private CentralAreaService centralAreaService;
 
     @BeforeEach
     void setUp() {
-        MockitoAnnotations.openMocks(this);
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
         centralAreaService = new CentralAreaService(restTemplate);
     }
 
+    private void respond(String body) {
+        server.expect(ExpectedCount.once(), requestTo(SystemConstants.ILP_REST_BASE_URL + "/centralArea"))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+    }
+
     @Test
     void testFetchCentralArea_ValidResponse() {
 
-        Map<String, Object> mockResponse = Map.of(
-                "vertices", List.of(
-                        Map.of("lng", -3.190, "lat", 55.944),
-                        Map.of("lng", -3.190, "lat", 55.946),
-                        Map.of("lng", -3.188, "lat", 55.946),
-                        Map.of("lng", -3.188, "lat", 55.944)
-                )
-        );
+        respond("""
+                {"name": "central", "vertices": [
+                  {"lng": -3.190, "lat": 55.944},
+                  {"lng": -3.190, "lat": 55.946},
+                  {"lng": -3.188, "lat": 55.946},
+                  {"lng": -3.188, "lat": 55.944}]}
+                """);
 
-        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(mockResponse);
-
-        List<LngLat> result = centralAreaService.fetchCentralArea();
+        List<LngLat> result = centralAreaService.fetchCentralArea(Validators.NONE).body();
 
         // Assertions
         assertNotNull(result);
@@ -59,33 +58,31 @@ public class CentralAreaServiceTest {
         assertEquals(-3.190, result.get(0).lng());
         assertEquals(55.944, result.get(0).lat());
 
-        // Verify mock interaction
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(Map.class));
+        // Verify the single request
+        server.verify();
     }
 
     @Test
     void testFetchCentralArea_NullResponse() {
-        // Mock API returning null
-        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(null);
+        // Stub API returning null
+        respond("null");
 
         // Call the service method and expect an exception
-        assertThrows(NullPointerException.class, () -> centralAreaService.fetchCentralArea());
+        assertThrows(NullPointerException.class, () -> centralAreaService.fetchCentralArea(Validators.NONE));
 
-        // Verify mock interaction
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(Map.class));
+        // Verify the single request
+        server.verify();
     }
 
     @Test
     void testFetchCentralArea_MissingVerticesKey() {
-        // Mock API response without "vertices" key
-        Map<String, Object> mockResponse = Map.of("invalidKey", "someValue");
-
-        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(mockResponse);
+        // Stub API response without "vertices" key
+        respond("{\"invalidKey\": \"someValue\"}");
 
         // Call the service method and expect an exception
-        assertThrows(NullPointerException.class, () -> centralAreaService.fetchCentralArea());
+        assertThrows(NullPointerException.class, () -> centralAreaService.fetchCentralArea(Validators.NONE));
 
-        // Verify mock interaction
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(Map.class));
+        // Verify the single request
+        server.verify();
     }
 }
@@ -0,0 +1,116 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.flightpath.Corridor;
+import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorridorTest {
+
+    private static final double MOVE = SystemConstants.DRONE_MOVE_DISTANCE;
+    private static final LngLat APPLETON_TOWER = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+
+    private static final List<LngLat> CENTRAL_AREA = List.of(
+            new LngLat(-3.192473, 55.946233),
+            new LngLat(-3.192473, 55.942617),
+            new LngLat(-3.184319, 55.942617),
+            new LngLat(-3.184319, 55.946233),
+            new LngLat(-3.192473, 55.946233));
+
+    private static final NoFlyZone GEORGE_SQUARE = new NoFlyZone("George Square Area", List.of(
+            new LngLat(-3.19057881832123, 55.9440241257753),
+            new LngLat(-3.18998873233795, 55.9428465054091),
+            new LngLat(-3.1870973110199, 55.9432881172426),
+            new LngLat(-3.18768203258514, 55.9444777403937),
+            new LngLat(-3.19057881832123, 55.9440241257753)));
+
+    @Test
+    void testEllipseContainsSegmentAndExcludesSides() {
+        LngLat start = new LngLat(-3.195, 55.944);
+        LngLat goal = new LngLat(-3.185, 55.944);
+        Corridor corridor = new Corridor(CorridorShape.ELLIPSE, start, goal, 8 * MOVE, List.of());
+
+        assertTrue(corridor.contains(start));
+        assertTrue(corridor.contains(goal));
+        assertTrue(corridor.contains(new LngLat(-3.190, 55.944)));
+        assertFalse(corridor.contains(new LngLat(-3.190, 55.947)));
+        assertFalse(corridor.contains(new LngLat(-3.197, 55.944)));
+    }
+
+    @Test
+    void testBoxContainsSegmentAndExcludesSides() {
+        LngLat start = new LngLat(-3.195, 55.944);
+        LngLat goal = new LngLat(-3.185, 55.944);
+        Corridor corridor = new Corridor(CorridorShape.BOX, start, goal, 8 * MOVE, List.of());
+
+        assertTrue(corridor.contains(new LngLat(-3.190, 55.944 + 3 * MOVE)));
+        assertFalse(corridor.contains(new LngLat(-3.190, 55.944 + 5 * MOVE)));
+        assertFalse(corridor.contains(new LngLat(-3.185 + 5 * MOVE, 55.944)));
+    }
+
+    @Test
+    void testWidensAroundIntersectingZone() {
+        LngLat start = new LngLat(-3.192, 55.9435);
+        LngLat goal = APPLETON_TOWER;
+        Corridor corridor = new Corridor(CorridorShape.ELLIPSE, start, goal, 0, List.of(GEORGE_SQUARE));
+
+        for (LngLat vertex : GEORGE_SQUARE.getVertices()) {
+            assertTrue(corridor.contains(vertex), "Corridor should cover the zone it crosses");
+        }
+    }
+
+    @Test
+    void testIgnoresZonesAwayFromTheRoute() {
+        LngLat start = new LngLat(-3.192, 55.9475);
+        LngLat goal = new LngLat(-3.186, 55.9475);
+        Corridor narrow = new Corridor(CorridorShape.ELLIPSE, start, goal, 8 * MOVE, List.of());
+        Corridor withZone = new Corridor(CorridorShape.ELLIPSE, start, goal, 8 * MOVE, List.of(GEORGE_SQUARE));
+
+        LngLat justOutside = new LngLat(-3.189, 55.9475 + 6 * MOVE);
+        assertEquals(narrow.contains(justOutside), withZone.contains(justOutside));
+        assertFalse(withZone.contains(GEORGE_SQUARE.getVertices().get(1)));
+    }
+
+    @Test
+    void testRejectsNoShape() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Corridor(CorridorShape.NONE, APPLETON_TOWER, APPLETON_TOWER, MOVE, List.of()));
+    }
+
+    @Test
+    void testCorridorSearchFindsLegalPathAroundZone() {
+        LngLat start = new LngLat(-3.192, 55.9435);
+        ReachabilityMap reachability = new ReachabilityMap(List.of(GEORGE_SQUARE), CENTRAL_AREA);
+
+        for (CorridorShape shape : new CorridorShape[]{CorridorShape.ELLIPSE, CorridorShape.BOX}) {
+            List<LngLat> path = PathfindingAlgorithm.findPath(start, APPLETON_TOWER, List.of(GEORGE_SQUARE),
+                    CENTRAL_AREA, shape, MOVE, reachability, SearchMonitor.NONE);
+
+            assertNotNull(path, "No path found with a " + shape + " corridor");
+            assertEquals(start, path.get(0));
+            assertTrue(path.get(path.size() - 1).isCloseTo(APPLETON_TOWER, SystemConstants.DRONE_IS_CLOSE_DISTANCE));
+            for (LngLat position : path) {
+                assertFalse(PathfindingAlgorithm.testIsPointInsidePolygon(position, GEORGE_SQUARE.getVertices()));
+            }
+        }
+    }
+
+    @Test
+    void testNoShapeMatchesUnrestrictedSearch() {
+        LngLat start = new LngLat(-3.192, 55.9435);
+        List<NoFlyZone> zones = List.of(GEORGE_SQUARE);
+
+        assertEquals(PathfindingAlgorithm.findPath(start, APPLETON_TOWER, zones, CENTRAL_AREA),
+                PathfindingAlgorithm.findPath(start, APPLETON_TOWER, zones, CENTRAL_AREA, CorridorShape.NONE, MOVE,
+                        new ReachabilityMap(zones, CENTRAL_AREA), SearchMonitor.NONE));
+    }
+}
@@ -0,0 +1,124 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.ac.ed.inf.controller.DeliveryPathStream;
+import uk.ac.ed.inf.data.LngLat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryPathStreamTest {
+
+    /**
+     * Emitter that records the text of every event instead of writing it to a connection.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> names = new ArrayList<>();
+        private final List<Map<?, ?>> data = new ArrayList<>();
+        private boolean disconnected;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (disconnected) {
+                throw new IOException("Broken pipe");
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> parts = builder.build();
+            for (ResponseBodyEmitter.DataWithMediaType part : parts) {
+                if (part.getData() instanceof String text && text.startsWith("event:")) {
+                    names.add(text.substring("event:".length(), text.indexOf('\n')));
+                } else if (part.getData() instanceof Map<?, ?> map) {
+                    data.add(map);
+                }
+            }
+        }
+
+        private List<Map<?, ?>> eventsNamed(String name) {
+            List<Map<?, ?>> matching = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                if (names.get(i).equals(name)) {
+                    matching.add(data.get(i));
+                }
+            }
+            return matching;
+        }
+    }
+
+    private static List<LngLat> straightPath(int size) {
+        List<LngLat> path = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            path.add(new LngLat(-3.19 + i * 0.00015, 55.944));
+        }
+        return path;
+    }
+
+    @Test
+    void testSendsPathInChunksThenCompletes() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        DeliveryPathStream stream = new DeliveryPathStream(emitter);
+
+        stream.sendPath(straightPath(250));
+
+        List<Map<?, ?>> chunks = emitter.eventsNamed("path");
+        assertEquals(3, chunks.size());
+        assertEquals(200, chunks.get(2).get("offset"));
+        assertEquals(50, ((List<?>) chunks.get(2).get("positions")).size());
+        assertEquals(249, emitter.eventsNamed("complete").get(0).get("moves"));
+        assertEquals("complete", emitter.names.get(emitter.names.size() - 1));
+    }
+
+    @Test
+    void testThrottlesProgressEvents() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        DeliveryPathStream stream = new DeliveryPathStream(emitter);
+
+        for (int i = 1; i <= 1000; i++) {
+            stream.onProgress(i * 100, 0.01);
+        }
+
+        assertTrue(emitter.eventsNamed("progress").size() <= 1, "Progress should be sent at most every 100 ms");
+    }
+
+    @Test
+    void testProgressEventCarriesExpansionsAndCost() throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter();
+        DeliveryPathStream stream = new DeliveryPathStream(emitter);
+
+        Thread.sleep(120);
+        stream.onProgress(300, 0.0125);
+
+        Map<?, ?> event = emitter.eventsNamed("progress").get(0);
+        assertEquals(300, event.get("expansions"));
+        assertEquals(0.0125, event.get("bestFCost"));
+    }
+
+    @Test
+    void testDisconnectCancelsSearch() throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter();
+        DeliveryPathStream stream = new DeliveryPathStream(emitter);
+        assertFalse(stream.isCancelled());
+
+        emitter.disconnected = true;
+        Thread.sleep(120);
+        stream.onProgress(100, 0.01);
+
+        assertTrue(stream.isCancelled());
+    }
+
+    @Test
+    void testFailureSendsReason() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        DeliveryPathStream stream = new DeliveryPathStream(emitter);
+
+        stream.fail("No valid delivery path for this order");
+
+        assertEquals(List.of(), emitter.eventsNamed("path"));
+        assertEquals("No valid delivery path for this order", emitter.eventsNamed("failed").get(0).get("reason"));
+    }
+}
@@ -0,0 +1,213 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.OrderStatus;
+import uk.ac.ed.inf.constant.OrderValidationCode;
+import uk.ac.ed.inf.constant.PathfindingMode;
+import uk.ac.ed.inf.controller.DroneController;
+import uk.ac.ed.inf.data.CreditCardInformation;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.Order;
+import uk.ac.ed.inf.data.Pizza;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.execution.AdaptiveConcurrencyLimiter;
+import uk.ac.ed.inf.external.CentralAreaService;
+import uk.ac.ed.inf.external.ConditionalFetch;
+import uk.ac.ed.inf.external.FetchedSnapshot;
+import uk.ac.ed.inf.external.HttpReferenceDataSource;
+import uk.ac.ed.inf.external.NoFlyZoneService;
+import uk.ac.ed.inf.external.ReferenceDataAggregator;
+import uk.ac.ed.inf.external.ReferenceDataCache;
+import uk.ac.ed.inf.external.ReferenceDataStore;
+import uk.ac.ed.inf.external.RestaurantService;
+import uk.ac.ed.inf.external.Validators;
+import uk.ac.ed.inf.flightpath.PathPlanner;
+import uk.ac.ed.inf.flightpath.RoutingArtifactStore;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DroneControllerTest {
+
+    private RestaurantService restaurantService;
+    private NoFlyZoneService noFlyZoneService;
+    private CentralAreaService centralAreaService;
+    private ReferenceDataAggregator referenceDataAggregator;
+    private ReferenceDataStore referenceDataStore;
+    private ReferenceDataCache referenceDataCache;
+    private PathPlanner planner;
+    private ThreadPoolExecutor pathSearchExecutor;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private DroneController controller;
+
+    @BeforeEach
+    void setUp() {
+        restaurantService = mock(RestaurantService.class);
+        noFlyZoneService = mock(NoFlyZoneService.class);
+        centralAreaService = mock(CentralAreaService.class);
+        pathSearchExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        planner = new PathPlanner(PathfindingMode.A_STAR, 200_000, 65_536, true,
+                CorridorShape.NONE, 8, new SimpleMeterRegistry());
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 4, 1, 4, 1000, 3, new SimpleMeterRegistry());
+        referenceDataAggregator = new ReferenceDataAggregator(
+                new HttpReferenceDataSource(restaurantService, noFlyZoneService, centralAreaService), 5000);
+        referenceDataStore = mock(ReferenceDataStore.class);
+        referenceDataCache = new ReferenceDataCache(referenceDataAggregator, referenceDataStore,
+                mock(RoutingArtifactStore.class), 600, new SimpleMeterRegistry());
+        controller = new DroneController(referenceDataCache, planner, pathSearchExecutor, concurrencyLimiter);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pathSearchExecutor.shutdownNow();
+        referenceDataCache.shutdown();
+        referenceDataAggregator.shutdown();
+    }
+
+    private static final List<LngLat> CENTRAL_AREA = List.of(
+            new LngLat(-3.192473, 55.946233),
+            new LngLat(-3.192473, 55.942617),
+            new LngLat(-3.184319, 55.942617),
+            new LngLat(-3.184319, 55.946233),
+            new LngLat(-3.192473, 55.946233));
+
+    private static Order validOrder() {
+        return new Order("77DAD717", LocalDate.now(), OrderStatus.VALID, OrderValidationCode.NO_ERROR, 1500,
+                new Pizza[]{new Pizza("R1: Margarita", 1400)},
+                new CreditCardInformation("5223358194283703", "09/99", "473"));
+    }
+
+    private void givenRestaurantAndMap() {
+        Restaurant civerinos = new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                DayOfWeek.values(), new Pizza[]{new Pizza("R1: Margarita", 1400)});
+        when(restaurantService.fetchRestaurants(any()))
+                .thenReturn(new ConditionalFetch<>(new Restaurant[]{civerinos}, Validators.NONE));
+        when(noFlyZoneService.fetchNoFlyZones(any())).thenReturn(new ConditionalFetch<>(List.of(), Validators.NONE));
+        when(centralAreaService.fetchCentralArea(any())).thenReturn(new ConditionalFetch<>(CENTRAL_AREA, Validators.NONE));
+    }
+
+    private static <T> ResponseEntity<?> awaitResult(DeferredResult<T> result) throws InterruptedException {
+        for (int i = 0; i < 500 && !result.hasResult(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(result.hasResult(), "Planning should complete");
+        return (ResponseEntity<?>) result.getResult();
+    }
+
+    @Test
+    void testIncompleteOrderCompletesWithBadRequest() throws InterruptedException {
+        DeferredResult<ResponseEntity<List<LngLat>>> result = controller.calcDeliveryPath(new Order());
+
+        assertEquals(HttpStatus.BAD_REQUEST, awaitResult(result).getStatusCode());
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void testFetchesOffSearchPoolAndSearchesOnPool() throws InterruptedException {
+        givenRestaurantAndMap();
+        AtomicReference<String> fetchThread = new AtomicReference<>();
+        when(noFlyZoneService.fetchNoFlyZones(any())).thenAnswer(invocation -> {
+            fetchThread.set(Thread.currentThread().getName());
+            return new ConditionalFetch<>(List.of(), Validators.NONE);
+        });
+
+        DeferredResult<ResponseEntity<String>> result = controller.calcDeliveryPathAsGeoJson(validOrder());
+
+        assertEquals(HttpStatus.OK, awaitResult(result).getStatusCode());
+        assertTrue(fetchThread.get().startsWith("reference-data-fetch-"), fetchThread.get());
+        assertEquals(1, pathSearchExecutor.getCompletedTaskCount());
+    }
+
+    @Test
+    void testServesPlannedPathFromStoredSnapshotWhileUpstreamIsDown() throws InterruptedException {
+        Restaurant civerinos = new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                DayOfWeek.values(), new Pizza[]{new Pizza("R1: Margarita", 1400)});
+        ReferenceDataSnapshot stored = new ReferenceDataSnapshot(new Restaurant[]{civerinos}, List.of(), CENTRAL_AREA);
+        List<LngLat> plannedPath = List.of(civerinos.location(), new LngLat(-3.186874, 55.944494));
+        stored.preloadIndex(planner.pathsToAppletonIndex(), Map.of(civerinos.location(), plannedPath));
+        when(referenceDataStore.load()).thenReturn(Optional.of(
+                new FetchedSnapshot(stored, Validators.NONE, Validators.NONE, Validators.NONE)));
+        when(restaurantService.fetchRestaurants(any())).thenThrow(new IllegalStateException("API down"));
+        referenceDataCache.loadStoredSnapshot();
+
+        DeferredResult<ResponseEntity<List<LngLat>>> result = controller.calcDeliveryPath(validOrder());
+
+        ResponseEntity<?> response = awaitResult(result);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(plannedPath, response.getBody());
+    }
+
+    @Test
+    void testFullPoolAnswersServiceUnavailable() throws InterruptedException {
+        givenRestaurantAndMap();
+        CountDownLatch release = new CountDownLatch(1);
+        pathSearchExecutor.execute(() -> awaitQuietly(release));    // Occupies the only thread
+        pathSearchExecutor.execute(() -> awaitQuietly(release));    // Fills the queue
+
+        try {
+            DeferredResult<ResponseEntity<List<LngLat>>> result = controller.calcDeliveryPath(validOrder());
+
+            assertTrue(result.hasResult(), "A full pool should be reported straight away");
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseEntity<?>) result.getResult()).getStatusCode());
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, controller.streamDeliveryPath(validOrder()).getStatusCode());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testOverLimitAnswersServiceUnavailableWithRetryAfter() {
+        givenRestaurantAndMap();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(concurrencyLimiter.tryAcquire());
+        }
+
+        DeferredResult<ResponseEntity<List<LngLat>>> result = controller.calcDeliveryPath(validOrder());
+
+        ResponseEntity<?> response = (ResponseEntity<?>) result.getResult();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(0, pathSearchExecutor.getTaskCount());
+    }
+
+    @Test
+    void testCompletedSearchReleasesItsPermit() throws InterruptedException {
+        givenRestaurantAndMap();
+
+        awaitResult(controller.calcDeliveryPath(validOrder()));
+        for (int i = 0; i < 100 && concurrencyLimiter.getInFlight() > 0; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, concurrencyLimiter.getInFlight());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.ConditionalFetch;
+import uk.ac.ed.inf.external.FileReferenceDataSource;
+import uk.ac.ed.inf.external.Validators;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileReferenceDataSourceTest {
+
+    private static final String RESTAURANTS = """
+            [{"name": "Civerinos Slice", "location": {"lng": -3.1912869215011597, "lat": 55.945535152517735},
+              "openingDays": ["MONDAY"], "menu": [{"name": "R1: Margarita", "priceInPence": 1000}]}]
+            """;
+
+    @TempDir
+    Path directory;
+
+    private static FileReferenceDataSource source(String location) {
+        return new FileReferenceDataSource(location, new DefaultResourceLoader());
+    }
+
+    @Test
+    void testBundledSampleDataLoads() {
+        FileReferenceDataSource source = source("classpath:reference-data/");
+
+        Restaurant[] restaurants = source.fetchRestaurants(Validators.NONE).body();
+        List<NoFlyZone> noFlyZones = source.fetchNoFlyZones(Validators.NONE).body();
+        List<LngLat> centralArea = source.fetchCentralArea(Validators.NONE).body();
+
+        assertEquals("Civerinos Slice", restaurants[0].name());
+        assertEquals("George Square Area", noFlyZones.get(0).getName());
+        assertEquals(centralArea.get(0), centralArea.get(centralArea.size() - 1), "The central area is closed");
+    }
+
+    @Test
+    void testUnchangedFileIsNotModified() {
+        FileReferenceDataSource source = source("classpath:reference-data");
+        ConditionalFetch<Restaurant[]> first = source.fetchRestaurants(Validators.NONE);
+
+        ConditionalFetch<Restaurant[]> second = source.fetchRestaurants(first.validators());
+
+        assertNotNull(first.validators().eTag());
+        assertFalse(second.isModified());
+        assertEquals(first.validators(), second.validators());
+    }
+
+    @Test
+    void testChangedFileIsReadAgain() throws IOException {
+        Path file = directory.resolve("restaurants.json");
+        Files.writeString(file, RESTAURANTS);
+        FileReferenceDataSource source = source(directory.toUri().toString());
+        ConditionalFetch<Restaurant[]> first = source.fetchRestaurants(Validators.NONE);
+
+        Files.writeString(file, "[]");
+        ConditionalFetch<Restaurant[]> second = source.fetchRestaurants(first.validators());
+
+        assertEquals(1, first.body().length);
+        assertTrue(second.isModified());
+        assertEquals(0, second.body().length);
+        assertNotEquals(first.validators(), second.validators());
+    }
+
+    @Test
+    void testMissingFileFails() {
+        FileReferenceDataSource source = source(directory.toUri().toString());
+
+        assertThrows(UncheckedIOException.class, () -> source.fetchNoFlyZones(Validators.NONE));
+    }
+}
@@ -0,0 +1,63 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.flightpath.GoalBasin;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GoalBasinTest {
+
+    private static final LngLat APPLETON_TOWER = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+    private static final double CLOSE = SystemConstants.DRONE_IS_CLOSE_DISTANCE;
+
+    @Test
+    void testMatchesIsCloseToForRandomPositions() {
+        GoalBasin basin = GoalBasin.around(APPLETON_TOWER);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            LngLat position = new LngLat(
+                    APPLETON_TOWER.lng() + (random.nextDouble() * 4 - 2) * CLOSE,
+                    APPLETON_TOWER.lat() + (random.nextDouble() * 4 - 2) * CLOSE);
+
+            assertEquals(position.isCloseTo(APPLETON_TOWER, CLOSE), basin.contains(position),
+                    "Basin disagrees with isCloseTo at " + position);
+        }
+    }
+
+    @Test
+    void testMatchesIsCloseToOnTheBoundary() {
+        GoalBasin basin = GoalBasin.around(APPLETON_TOWER);
+
+        for (int degrees = 0; degrees < 360; degrees++) {
+            double radians = Math.toRadians(degrees);
+            for (double scale : new double[]{1 - 1e-12, 1, 1 + 1e-12}) {
+                LngLat position = new LngLat(
+                        APPLETON_TOWER.lng() + scale * CLOSE * Math.cos(radians),
+                        APPLETON_TOWER.lat() + scale * CLOSE * Math.sin(radians));
+
+                assertEquals(position.isCloseTo(APPLETON_TOWER, CLOSE), basin.contains(position),
+                        "Basin disagrees with isCloseTo at " + position);
+            }
+        }
+    }
+
+    @Test
+    void testGoalItselfAndFarPositions() {
+        LngLat goal = new LngLat(-3.191, 55.945);
+        GoalBasin basin = GoalBasin.around(goal);
+
+        assertTrue(basin.contains(goal));
+        assertFalse(basin.contains(new LngLat(-3.180, 55.950)));
+        assertFalse(basin.contains(new LngLat(goal.lng() + CLOSE, goal.lat())));
+    }
+
+    @Test
+    void testAppletonTowerBasinIsShared() {
+        assertSame(GoalBasin.around(APPLETON_TOWER), GoalBasin.around(new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT)));
+    }
+}
@@ -0,0 +1,258 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.PathfindingMode;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.flightpath.HashDistributedSearch;
+import uk.ac.ed.inf.flightpath.PathPlanner;
+import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashDistributedSearchTest {
+
+    private static final LngLat APPLETON_TOWER = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+
+    private List<NoFlyZone> noFlyZones;
+    private List<LngLat> centralArea;
+    private ReachabilityMap reachability;
+    private ExecutorService executor;
+    private HashDistributedSearch search;
+
+    @BeforeEach
+    void setUp() {
+        centralArea = Arrays.asList(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
+        );
+
+        NoFlyZone georgeSquare = new NoFlyZone("George Square Area", Arrays.asList(
+                new LngLat(-3.19057881832123, 55.9440241257753),
+                new LngLat(-3.18998873233795, 55.9428465054091),
+                new LngLat(-3.1870973110199, 55.9432881172426),
+                new LngLat(-3.18768203258514, 55.9444777403937),
+                new LngLat(-3.19057881832123, 55.9440241257753)
+        ));
+        noFlyZones = Collections.singletonList(georgeSquare);
+        reachability = new ReachabilityMap(noFlyZones, centralArea);
+
+        executor = Executors.newCachedThreadPool();
+        search = new HashDistributedSearch(4, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "-3.18385720252991, 55.9444987687571",
+            "-3.20254147052765, 55.9432847375794",
+            "-3.19401741027832, 55.9439069661694",
+            "-3.1810810679852035, 55.938910643735845"
+    })
+    void testFindsLegalPath(double lng, double lat) {
+        LngLat start = new LngLat(lng, lat);
+
+        List<LngLat> path = search.findPath(start, APPLETON_TOWER, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+
+        assertNotNull(path);
+        assertEquals(start, path.get(0));
+        assertTrue(path.get(path.size() - 1).isCloseTo(APPLETON_TOWER, SystemConstants.DRONE_IS_CLOSE_DISTANCE));
+
+        boolean entered = false;
+        for (int i = 0; i < path.size(); i++) {
+            LngLat point = path.get(i);
+            boolean inside = PathfindingAlgorithm.testIsPointInsidePolygon(point, centralArea);
+            assertFalse(entered && !inside, "Path must not leave the central area once entered");
+            entered |= inside;
+            assertFalse(PathfindingAlgorithm.testIsPointInsidePolygon(point, noFlyZones.get(0).getVertices()),
+                    "Path should not enter the no-fly zone");
+            if (i > 0) {
+                assertEquals(SystemConstants.DRONE_MOVE_DISTANCE, path.get(i - 1).distanceTo(point), 1e-12);
+            }
+        }
+    }
+
+    private static NoFlyZone rectangle(String name, double minLng, double minLat, double maxLng, double maxLat) {
+        return new NoFlyZone(name, Arrays.asList(
+                new LngLat(minLng, minLat),
+                new LngLat(maxLng, minLat),
+                new LngLat(maxLng, maxLat),
+                new LngLat(minLng, maxLat),
+                new LngLat(minLng, minLat)
+        ));
+    }
+
+    @Test
+    void testTerminatesWhenSearchSpaceIsExhausted() {
+        // A walled pocket whose only exit crosses a small central area, which the drone may not leave again
+        List<NoFlyZone> walls = Arrays.asList(
+                rectangle("north", -3.196, 55.945, -3.192, 55.946),
+                rectangle("south", -3.196, 55.942, -3.192, 55.943),
+                rectangle("west", -3.196, 55.942, -3.195, 55.946)
+        );
+        List<LngLat> exit = Arrays.asList(
+                new LngLat(-3.193, 55.943),
+                new LngLat(-3.192, 55.943),
+                new LngLat(-3.192, 55.945),
+                new LngLat(-3.193, 55.945),
+                new LngLat(-3.193, 55.943)
+        );
+
+        List<LngLat> path = search.findPath(new LngLat(-3.194, 55.944), new LngLat(-3.190, 55.944), walls, exit,
+                new ReachabilityMap(walls, exit), SearchMonitor.NONE);
+
+        assertNull(path, "Goal beyond the central area should not be reachable from the pocket");
+    }
+
+    @Test
+    void testStartAndGoalSamePoint() {
+        assertEquals(List.of(APPLETON_TOWER), search.findPath(APPLETON_TOWER, APPLETON_TOWER, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE));
+    }
+
+    @Test
+    void testReturnsSamePathOnEveryRun() {
+        LngLat start = new LngLat(-3.20254147052765, 55.9432847375794);
+        List<LngLat> first = search.findPath(start, APPLETON_TOWER, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+
+        for (int run = 0; run < 10; run++) {
+            assertEquals(first, search.findPath(start, APPLETON_TOWER, noFlyZones, centralArea,
+                    reachability, SearchMonitor.NONE));
+        }
+    }
+
+    @Test
+    void testCallingThreadFinishesSearchWhenPoolRejectsHelpers() {
+        ExecutorService rejecting = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        rejecting.shutdown();
+        LngLat start = new LngLat(-3.20254147052765, 55.9432847375794);
+
+        List<LngLat> path = new HashDistributedSearch(4, rejecting).findPath(start, APPLETON_TOWER, noFlyZones,
+                centralArea, reachability, SearchMonitor.NONE);
+
+        // The helpers only change which thread expands a partition, never the result
+        assertEquals(search.findPath(start, APPLETON_TOWER, noFlyZones, centralArea, reachability, SearchMonitor.NONE),
+                path);
+    }
+
+    @Test
+    void testDoesNotWaitForHelpersStuckInQueue() throws InterruptedException {
+        ThreadPoolExecutor saturated = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+        saturated.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            List<LngLat> path = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> new HashDistributedSearch(4, saturated)
+                    .findPath(new LngLat(-3.20254147052765, 55.9432847375794), APPLETON_TOWER, noFlyZones, centralArea,
+                    reachability, SearchMonitor.NONE));
+
+            assertNotNull(path);
+            assertTrue(saturated.getQueue().isEmpty(),
+                    "Helpers that never started should be cancelled and leave the queue");
+        } finally {
+            release.countDown();
+            saturated.shutdownNow();
+        }
+    }
+
+    @Test
+    void testWorkerFailureStopsSearch() {
+        // The zone fails once helpers are running, whichever partition expands next
+        AtomicBoolean armed = new AtomicBoolean();
+        NoFlyZone failing = new NoFlyZone("Failing", noFlyZones.get(0).getVertices()) {
+            @Override
+            public List<LngLat> getVertices() {
+                if (armed.get()) {
+                    throw new IllegalArgumentException("Broken zone");
+                }
+                return super.getVertices();
+            }
+        };
+        ExecutorService arming = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public Future<?> submit(Runnable task) {
+                armed.set(true);
+                return super.submit(task);
+            }
+        };
+
+        try {
+            IllegalStateException failure = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IllegalStateException.class,
+                    () -> new HashDistributedSearch(4, arming).findPath(new LngLat(-3.20254147052765, 55.9432847375794),
+                            APPLETON_TOWER, List.of(failing), centralArea,
+                            new ReachabilityMap(List.of(failing), centralArea), SearchMonitor.NONE)));
+
+            assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        } finally {
+            arming.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGivesUpWithinAStarBudget() {
+        // Roughly 13000 moves away, far more than the expansion budget allows
+        LngLat farAway = new LngLat(APPLETON_TOWER.lng() + 2, APPLETON_TOWER.lat());
+        List<Integer> progress = new ArrayList<>();
+        SearchMonitor monitor = new SearchMonitor() {
+            @Override
+            public void onProgress(int expansions, double bestFCost) {
+                progress.add(expansions);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        };
+
+        assertNull(search.findPath(APPLETON_TOWER, farAway, Collections.emptyList(), Collections.emptyList(),
+                new ReachabilityMap(Collections.emptyList(), Collections.emptyList()), monitor));
+        assertTrue(progress.get(progress.size() - 1) <= 5000, "Expanded more nodes than A* may");
+    }
+
+    @Test
+    void testPlannerUsesParallelSearchForLongRoutes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PathPlanner planner = new PathPlanner(PathfindingMode.A_STAR, 200_000, 65_536, 4, 50, false,
+                CorridorShape.NONE, 8, executor, registry);
+
+        planner.findPath(new LngLat(-3.20254147052765, 55.9432847375794), APPLETON_TOWER, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+        planner.findPath(new LngLat(-3.18385720252991, 55.9444987687571), APPLETON_TOWER, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+
+        assertEquals(1, registry.get("pizzadronz.path.search").tag("strategy", "hda_star").timer().count());
+        assertEquals(1, registry.get("pizzadronz.path.search").tag("strategy", "a_star").timer().count());
+    }
+}
@@ -0,0 +1,120 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.flightpath.IterativeDeepeningSearch;
+import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IterativeDeepeningSearchTest {
+
+    private List<NoFlyZone> noFlyZones;
+    private List<LngLat> centralArea;
+    private ReachabilityMap reachability;
+    private IterativeDeepeningSearch search;
+
+    @BeforeEach
+    void setUp() {
+        centralArea = Arrays.asList(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
+        );
+
+        NoFlyZone georgeSquare = new NoFlyZone("George Square Area", Arrays.asList(
+                new LngLat(-3.19057881832123, 55.9440241257753),
+                new LngLat(-3.18998873233795, 55.9428465054091),
+                new LngLat(-3.1870973110199, 55.9432881172426),
+                new LngLat(-3.18768203258514, 55.9444777403937),
+                new LngLat(-3.19057881832123, 55.9440241257753)
+        ));
+
+        noFlyZones = Collections.singletonList(georgeSquare);
+        reachability = new ReachabilityMap(noFlyZones, centralArea);
+        search = new IterativeDeepeningSearch(200_000, 65_536);
+    }
+
+    private void assertLegalPath(List<LngLat> path, LngLat start, LngLat goal) {
+        assertNotNull(path, "Path should be found");
+        assertEquals(start, path.get(0));
+        assertTrue(path.get(path.size() - 1).isCloseTo(goal, SystemConstants.DRONE_IS_CLOSE_DISTANCE));
+        assertTrue(path.size() - 1 <= SystemConstants.DRONE_MAX_MOVES);
+
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(SystemConstants.DRONE_MOVE_DISTANCE, path.get(i - 1).distanceTo(path.get(i)), 1e-12);
+            assertFalse(PathfindingAlgorithm.testIsPointInsidePolygon(path.get(i), noFlyZones.get(0).getVertices()),
+                    "Path should not enter the no-fly zone");
+        }
+    }
+
+    @Test
+    void testFindsDirectPath() {
+        LngLat start = new LngLat(-3.18385720252991, 55.9444987687571);
+        LngLat goal = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+
+        assertLegalPath(search.findPath(start, goal, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE), start, goal);
+    }
+
+    @Test
+    void testFindsPathAroundNoFlyZone() {
+        LngLat start = new LngLat(-3.20254147052765, 55.9432847375794);
+        LngLat goal = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+
+        assertLegalPath(search.findPath(start, goal, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE), start, goal);
+    }
+
+    @Test
+    void testStartAndGoalSamePoint() {
+        LngLat start = new LngLat(-3.191, 55.945);
+
+        List<LngLat> path = search.findPath(start, start, noFlyZones, centralArea, reachability, SearchMonitor.NONE);
+
+        assertEquals(List.of(start), path);
+    }
+
+    @Test
+    void testGoalOutsideCentralArea() {
+        List<LngLat> path = search.findPath(new LngLat(-3.191, 55.945), new LngLat(-3.180, 55.950),
+                noFlyZones, centralArea, reachability, SearchMonitor.NONE);
+
+        assertNull(path, "Path should not exist since the goal is outside the central area.");
+    }
+
+    @Test
+    void testGivesUpWhenExpansionLimitReached() {
+        IterativeDeepeningSearch tinySearch = new IterativeDeepeningSearch(5, 16);
+
+        List<LngLat> path = tinySearch.findPath(new LngLat(-3.20254147052765, 55.9432847375794),
+                new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT), noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+
+        assertNull(path, "Search should stop once the expansion limit is reached");
+    }
+
+    @Test
+    void testRejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new IterativeDeepeningSearch(0, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new IterativeDeepeningSearch(1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new IterativeDeepeningSearch(1000, (1 << 30) + 1));
+        assertThrows(IllegalArgumentException.class, () -> new IterativeDeepeningSearch(1000, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testAcceptsLargestTableSize() {
+        assertDoesNotThrow(() -> new IterativeDeepeningSearch(1000, 1 << 30));
+    }
+}
@@ -0,0 +1,141 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.flightpath.MultiTargetSearch;
+import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiTargetSearchTest {
+
+    private static final LngLat APPLETON_TOWER = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+
+    private List<NoFlyZone> noFlyZones;
+    private List<LngLat> centralArea;
+    private ReachabilityMap reachability;
+    private List<LngLat> restaurants;
+
+    @BeforeEach
+    void setUp() {
+        centralArea = Arrays.asList(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
+        );
+
+        NoFlyZone georgeSquare = new NoFlyZone("George Square Area", Arrays.asList(
+                new LngLat(-3.19057881832123, 55.9440241257753),
+                new LngLat(-3.18998873233795, 55.9428465054091),
+                new LngLat(-3.1870973110199, 55.9432881172426),
+                new LngLat(-3.18768203258514, 55.9444777403937),
+                new LngLat(-3.19057881832123, 55.9440241257753)
+        ));
+        noFlyZones = Collections.singletonList(georgeSquare);
+        reachability = new ReachabilityMap(noFlyZones, centralArea);
+
+        restaurants = Arrays.asList(
+                new LngLat(-3.1912869215011597, 55.945535152517735),   // inside the central area
+                new LngLat(-3.202541470527649, 55.943284737579376),    // west, behind the no-fly zone
+                new LngLat(-3.1838572025299072, 55.94449876875712),    // just east of the central area
+                new LngLat(-3.1810810679852035, 55.938910643735845)    // south-east
+        );
+    }
+
+    private void assertLegalPathToAppleton(List<LngLat> path, LngLat restaurant) {
+        assertNotNull(path);
+        assertTrue(path.get(0).isCloseTo(restaurant, SystemConstants.DRONE_IS_CLOSE_DISTANCE));
+        assertEquals(APPLETON_TOWER, path.get(path.size() - 1));
+
+        boolean entered = false;
+        for (int i = 0; i < path.size(); i++) {
+            LngLat point = path.get(i);
+            boolean inside = PathfindingAlgorithm.testIsPointInsidePolygon(point, centralArea);
+            assertFalse(entered && !inside, "Path must not leave the central area once entered");
+            entered |= inside;
+            assertFalse(PathfindingAlgorithm.testIsPointInsidePolygon(point, noFlyZones.get(0).getVertices()),
+                    "Path should not enter the no-fly zone");
+            if (i > 0) {
+                assertEquals(SystemConstants.DRONE_MOVE_DISTANCE, path.get(i - 1).distanceTo(point), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void testFindsPathForEveryRestaurant() {
+        Map<LngLat, List<LngLat>> paths = MultiTargetSearch.findPathsToAppleton(restaurants, noFlyZones, centralArea,
+                reachability);
+
+        assertEquals(restaurants, List.copyOf(paths.keySet()), "Paths should be returned in the requested order");
+        for (LngLat restaurant : restaurants) {
+            assertLegalPathToAppleton(paths.get(restaurant), restaurant);
+        }
+    }
+
+    @Test
+    void testUnreachableRestaurantIsOmitted() {
+        LngLat insideZone = new LngLat(-3.1890, 55.9436);
+
+        Map<LngLat, List<LngLat>> paths = MultiTargetSearch.findPathsToAppleton(
+                List.of(insideZone, restaurants.get(0)), noFlyZones, centralArea, reachability);
+
+        assertFalse(paths.containsKey(insideZone));
+        assertLegalPathToAppleton(paths.get(restaurants.get(0)), restaurants.get(0));
+    }
+
+    @Test
+    void testOriginAsTarget() {
+        Map<LngLat, List<LngLat>> paths = MultiTargetSearch.findPathsFrom(APPLETON_TOWER, List.of(APPLETON_TOWER),
+                noFlyZones, centralArea, reachability, SearchMonitor.NONE);
+
+        assertEquals(List.of(APPLETON_TOWER), paths.get(APPLETON_TOWER));
+    }
+
+    @Test
+    void testStopsWhenCancelled() {
+        LngLat farAway = new LngLat(APPLETON_TOWER.lng() + 0.05, APPLETON_TOWER.lat());
+        List<Integer> progress = new ArrayList<>();
+        SearchMonitor cancelAfterFirstReport = new SearchMonitor() {
+            @Override
+            public void onProgress(int expansions, double bestFCost) {
+                progress.add(expansions);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return !progress.isEmpty();
+            }
+        };
+
+        Map<LngLat, List<LngLat>> paths = MultiTargetSearch.findPathsFrom(APPLETON_TOWER, List.of(farAway),
+                Collections.emptyList(), Collections.emptyList(),
+                new ReachabilityMap(Collections.emptyList(), Collections.emptyList()), cancelAfterFirstReport);
+
+        assertTrue(paths.isEmpty(), "A cancelled search should not return the unreached target");
+        assertEquals(List.of(SearchMonitor.REPORT_INTERVAL), progress);
+    }
+
+    @Test
+    void testSingleSearchIsFasterThanSeparateSearches() {
+        long startTime = System.nanoTime();
+        Map<LngLat, List<LngLat>> paths = MultiTargetSearch.findPathsToAppleton(restaurants, noFlyZones, centralArea,
+                reachability);
+        long executionTime = (System.nanoTime() - startTime) / 1_000_000;
+
+        assertEquals(restaurants.size(), paths.size());
+        assertTrue(executionTime < 1000, "Multi-target search should complete in under 1000ms, but took " + executionTime + "ms.");
+    }
+}
@@ -1,42 +1,58 @@
 package uk.ac.ed.inf.unit;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
 import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.LngLat;
 import uk.ac.ed.inf.data.NoFlyZone;
 import uk.ac.ed.inf.external.NoFlyZoneService;
+import uk.ac.ed.inf.external.Validators;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 class NoFlyZoneServiceTest {
 
-    @Mock
-    private RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockRestServiceServer server;
 
-    @InjectMocks
     private NoFlyZoneService noFlyZoneService;
 
     @BeforeEach
     void setUp() {
-        MockitoAnnotations.openMocks(this);
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
         noFlyZoneService = new NoFlyZoneService(restTemplate);
     }
 
+    private void respond(ResponseCreator response) {
+        server.expect(ExpectedCount.once(), requestTo(SystemConstants.ILP_REST_BASE_URL + "/noFlyZones"))
+                .andRespond(response);
+    }
+
+    private void respond(NoFlyZone[] zones) throws JsonProcessingException {
+        respond(withSuccess(objectMapper.writeValueAsString(zones), MediaType.APPLICATION_JSON));
+    }
+
     @Test
-    void testFetchNoFlyZones_ValidResponse() {
+    void testFetchNoFlyZones_ValidResponse() throws JsonProcessingException {
 
         NoFlyZone[] mockZones = {
                 new NoFlyZone("mock1", Arrays.asList(
@@ -48,28 +64,29 @@ class NoFlyZoneServiceTest {
                 ))
         };
 
-        when(restTemplate.getForObject(anyString(), eq(NoFlyZone[].class))).thenReturn(mockZones);
+        respond(mockZones);
 
-        List<NoFlyZone> result = noFlyZoneService.fetchNoFlyZones();
+        List<NoFlyZone> result = noFlyZoneService.fetchNoFlyZones(Validators.NONE).body();
 
         // Assertions
         assertNotNull(result);
         System.out.println(result);
         assertEquals(1, result.size());
         assertEquals("mock1", result.get(0).getName());
+        assertEquals(mockZones[0].getVertices(), result.get(0).getVertices());
 
-        // Verify mock interaction
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(NoFlyZone[].class));
+        // Verify the single request
+        server.verify();
     }
 
     @Test
-    void testFetchNoFlyZones_EmptyResponse() {
-        // Mock API returning an empty array
-        when(restTemplate.getForObject(anyString(), eq(NoFlyZone[].class))).thenReturn(new NoFlyZone[]{});
+    void testFetchNoFlyZones_EmptyResponse() throws JsonProcessingException {
+        // Stub API returning an empty array
+        respond(new NoFlyZone[]{});
 
 
         // Call the service method
-        List<NoFlyZone> result = noFlyZoneService.fetchNoFlyZones();
+        List<NoFlyZone> result = noFlyZoneService.fetchNoFlyZones(Validators.NONE).body();
 
         // Assertions
         assertNotNull(result);
@@ -79,11 +96,11 @@ class NoFlyZoneServiceTest {
 
     @Test
     void testFetchNoFlyZones_ApiFailure() {
-        // Mock API throwing an exception
-        when(restTemplate.getForObject(anyString(), eq(NoFlyZone[].class))).thenThrow(new RuntimeException("API Failure"));
+        // Stub API failing
+        respond(withServerError());
 
         // Call the service method and expect an exception
-        assertThrows(RuntimeException.class, () -> noFlyZoneService.fetchNoFlyZones());
+        assertThrows(RuntimeException.class, () -> noFlyZoneService.fetchNoFlyZones(Validators.NONE));
 
     }
-}
\ No newline at end of file
+}
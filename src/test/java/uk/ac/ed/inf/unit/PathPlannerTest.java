@@ -0,0 +1,183 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.PathfindingMode;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Pizza;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.flightpath.PathPlanner;
+import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathPlannerTest {
+
+    private static final LngLat APPLETON_TOWER = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+
+    private List<NoFlyZone> noFlyZones;
+    private List<LngLat> centralArea;
+    private ReachabilityMap reachability;
+    private SimpleMeterRegistry registry;
+    private PathPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        centralArea = Arrays.asList(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
+        );
+
+        NoFlyZone georgeSquare = new NoFlyZone("George Square Area", Arrays.asList(
+                new LngLat(-3.19057881832123, 55.9440241257753),
+                new LngLat(-3.18998873233795, 55.9428465054091),
+                new LngLat(-3.1870973110199, 55.9432881172426),
+                new LngLat(-3.18768203258514, 55.9444777403937),
+                new LngLat(-3.19057881832123, 55.9440241257753)
+        ));
+        noFlyZones = Collections.singletonList(georgeSquare);
+        reachability = new ReachabilityMap(noFlyZones, centralArea);
+
+        registry = new SimpleMeterRegistry();
+        planner = new PathPlanner(PathfindingMode.A_STAR, 200_000, 65_536, true, CorridorShape.NONE, 8, registry);
+    }
+
+    private double returnLegs(String strategy) {
+        return registry.get("pizzadronz.path.roundtrip.return").tag("strategy", strategy).counter().count();
+    }
+
+    @Test
+    void testRoundTripReversesOutboundPath() {
+        LngLat restaurant = new LngLat(-3.20254147052765, 55.9432847375794);
+        List<LngLat> outbound = planner.findPath(restaurant, APPLETON_TOWER, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+        assertNotNull(outbound);
+
+        List<LngLat> roundTrip = planner.findRoundTrip(outbound, restaurant, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+
+        assertNotNull(roundTrip);
+        assertEquals(2 * outbound.size(), roundTrip.size());
+        assertEquals(outbound, roundTrip.subList(0, outbound.size()));
+        assertEquals(roundTrip.get(outbound.size() - 1), roundTrip.get(outbound.size()), "Drone should hover to deliver");
+        assertEquals(restaurant, roundTrip.get(roundTrip.size() - 1));
+        assertEquals(1, returnLegs("reversed"));
+        assertEquals(0, returnLegs("searched"));
+    }
+
+    /**
+     * Builds an outbound path that leaves the central area to the east and comes back in, so its reversal would
+     * re-enter it.
+     */
+    private static List<LngLat> reenteringOutbound() {
+        List<LngLat> outbound = new ArrayList<>();
+        LngLat position = new LngLat(-3.1848, 55.9440);
+        outbound.add(position);
+        for (int i = 0; i < 6; i++) {
+            position = new LngLat(position.lng() + SystemConstants.DRONE_MOVE_DISTANCE, position.lat());
+            outbound.add(position);
+        }
+        for (int i = 0; i < 6; i++) {
+            position = new LngLat(position.lng(), position.lat() + SystemConstants.DRONE_MOVE_DISTANCE);
+            outbound.add(position);
+        }
+        for (int i = 0; i < 6; i++) {
+            position = new LngLat(position.lng() - SystemConstants.DRONE_MOVE_DISTANCE, position.lat());
+            outbound.add(position);
+        }
+        return outbound;
+    }
+
+    @Test
+    void testRoundTripReversesPathEndingCloseToGoal() {
+        LngLat restaurant = new LngLat(-3.20254147052765, 55.9432847375794);
+        List<LngLat> outbound = planner.findPath(restaurant, APPLETON_TOWER, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+        LngLat returnGoal = new LngLat(restaurant.lng() + SystemConstants.DRONE_MOVE_DISTANCE / 3, restaurant.lat());
+
+        List<LngLat> roundTrip = planner.findRoundTrip(outbound, returnGoal, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+
+        assertNotNull(roundTrip);
+        assertEquals(2 * outbound.size(), roundTrip.size());
+        assertEquals(1, returnLegs("reversed"));
+        assertEquals(0, returnLegs("searched"));
+    }
+
+    @Test
+    void testRoundTripSearchesWhenReversalReentersCentralArea() {
+        List<LngLat> outbound = reenteringOutbound();
+        LngLat restaurant = outbound.get(0);
+
+        List<LngLat> roundTrip = planner.findRoundTrip(outbound, restaurant, noFlyZones, centralArea,
+                reachability, SearchMonitor.NONE);
+
+        assertNotNull(roundTrip);
+        assertEquals(1, returnLegs("searched"));
+        assertTrue(roundTrip.get(roundTrip.size() - 1).isCloseTo(restaurant, SystemConstants.DRONE_IS_CLOSE_DISTANCE));
+
+        boolean hasLeft = false;
+        for (LngLat point : roundTrip.subList(outbound.size(), roundTrip.size())) {
+            boolean inside = PathfindingAlgorithm.testIsPointInsidePolygon(point, centralArea);
+            assertFalse(hasLeft && inside, "Return leg must not re-enter the central area");
+            hasLeft |= !inside;
+        }
+    }
+
+    @Test
+    void testRoundTripRejectedWhenOverBattery() {
+        List<LngLat> outbound = new ArrayList<>();
+        LngLat position = new LngLat(-3.30, 55.90);
+        for (int i = 0; i <= SystemConstants.DRONE_MAX_MOVES / 2; i++) {
+            outbound.add(position);
+            position = new LngLat(position.lng() + SystemConstants.DRONE_MOVE_DISTANCE, position.lat());
+        }
+
+        assertNull(planner.findRoundTrip(outbound, outbound.get(0), Collections.emptyList(), Collections.emptyList(),
+                new ReachabilityMap(Collections.emptyList(), Collections.emptyList()), SearchMonitor.NONE));
+    }
+
+    @Test
+    void testPrecomputedPathsStartAtRestaurant() {
+        LngLat civerinos = new LngLat(-3.1912869215011597, 55.945535152517735);
+        LngLat soraLella = new LngLat(-3.1940174102783203, 55.94390696616939);
+        Pizza[] menu = {new Pizza("R1: Margarita", 1000)};
+        ReferenceDataSnapshot snapshot = new ReferenceDataSnapshot(new Restaurant[]{
+                new Restaurant("Civerinos Slice", civerinos, DayOfWeek.values(), menu),
+                new Restaurant("Sora Lella Vegan Restaurant", soraLella, DayOfWeek.values(), menu),
+                new Restaurant("Civerinos Again", civerinos, DayOfWeek.values(), menu)
+        }, noFlyZones, centralArea);
+
+        Map<LngLat, List<LngLat>> paths = snapshot.index(planner.pathsToAppletonIndex());
+
+        assertEquals(List.of(civerinos, soraLella), List.copyOf(paths.keySet()));
+        for (LngLat restaurant : paths.keySet()) {
+            List<LngLat> path = paths.get(restaurant);
+            assertEquals(restaurant, path.get(0), "Path should start exactly at the restaurant");
+            assertTrue(path.get(path.size() - 1).isCloseTo(APPLETON_TOWER, SystemConstants.DRONE_IS_CLOSE_DISTANCE));
+            for (int i = 1; i < path.size(); i++) {
+                assertEquals(SystemConstants.DRONE_MOVE_DISTANCE, path.get(i - 1).distanceTo(path.get(i)), 1e-12);
+            }
+        }
+        assertEquals(1, registry.get("pizzadronz.path.search").tag("strategy", "multi_target").timer().count(),
+                "All restaurants should share one search");
+        assertEquals(paths.size(), registry.get("pizzadronz.path.smoothing.moves.saved").summary().count());
+    }
+}
@@ -0,0 +1,77 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.constant.RejectionPolicy;
+import uk.ac.ed.inf.execution.PathSearchExecutorConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathSearchExecutorConfigTest {
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testRejectsWhenFullAndPublishesQueueDepth() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExecutorService executor = new PathSearchExecutorConfig().pathSearchExecutor(1, 2, RejectionPolicy.REJECT, registry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                executor.execute(() -> awaitQuietly(release));
+            }
+
+            assertEquals(2.0, registry.get("executor.queued").tag("name", "pathSearch").gauge().value());
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+            assertEquals(1.0, registry.get("pizzadronz.compute.rejected").tag("policy", "reject").counter().count());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCallerRunsWhenFull() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExecutorService executor = new PathSearchExecutorConfig().pathSearchExecutor(1, 1, RejectionPolicy.CALLER_RUNS, registry);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> ranOn = new AtomicReference<>();
+
+        try {
+            executor.execute(() -> awaitQuietly(release));
+            executor.execute(() -> awaitQuietly(release));
+            executor.execute(() -> ranOn.set(Thread.currentThread().getName()));
+
+            assertEquals(Thread.currentThread().getName(), ranOn.get());
+            assertEquals(1.0, registry.get("pizzadronz.compute.rejected").tag("policy", "caller_runs").counter().count());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testZeroThreadsMeansOnePerCore() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExecutorService executor = new PathSearchExecutorConfig().pathSearchExecutor(0, 4, RejectionPolicy.REJECT, registry);
+
+        try {
+            assertEquals(Runtime.getRuntime().availableProcessors(),
+                    registry.get("executor.pool.core").tag("name", "pathSearch").gauge().value());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.PathfindingMode;
+import uk.ac.ed.inf.constant.SystemConstants;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.flightpath.PathPlanner;
+import uk.ac.ed.inf.flightpath.PathSmoother;
+import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathSmootherTest {
+
+    private static final LngLat APPLETON_TOWER = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+
+    private List<NoFlyZone> noFlyZones;
+    private List<LngLat> centralArea;
+
+    @BeforeEach
+    void setUp() {
+        centralArea = Arrays.asList(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
+        );
+
+        NoFlyZone georgeSquare = new NoFlyZone("George Square Area", Arrays.asList(
+                new LngLat(-3.19057881832123, 55.9440241257753),
+                new LngLat(-3.18998873233795, 55.9428465054091),
+                new LngLat(-3.1870973110199, 55.9432881172426),
+                new LngLat(-3.18768203258514, 55.9444777403937),
+                new LngLat(-3.19057881832123, 55.9440241257753)
+        ));
+        noFlyZones = Collections.singletonList(georgeSquare);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "-3.18385720252991, 55.9444987687571",
+            "-3.20254147052765, 55.9432847375794",
+            "-3.19401741027832, 55.9439069661694",
+            "-3.1810810679852035, 55.938910643735845"
+    })
+    void testSmoothedPathIsLegalAndNoLonger(double lng, double lat) {
+        LngLat start = new LngLat(lng, lat);
+        List<LngLat> path = PathfindingAlgorithm.findPath(start, APPLETON_TOWER, noFlyZones, centralArea);
+        assertNotNull(path);
+
+        List<LngLat> smoothed = PathSmoother.smooth(path, APPLETON_TOWER, noFlyZones, centralArea);
+
+        assertTrue(smoothed.size() <= path.size(), "Smoothing should never add moves");
+        assertEquals(start, smoothed.get(0));
+        assertTrue(smoothed.get(smoothed.size() - 1).isCloseTo(APPLETON_TOWER, SystemConstants.DRONE_IS_CLOSE_DISTANCE));
+
+        boolean entered = false;
+        for (int i = 0; i < smoothed.size(); i++) {
+            LngLat point = smoothed.get(i);
+            boolean inside = PathfindingAlgorithm.testIsPointInsidePolygon(point, centralArea);
+            assertFalse(entered && !inside, "Path must not leave the central area once entered");
+            entered |= inside;
+            assertFalse(PathfindingAlgorithm.testIsPointInsidePolygon(point, noFlyZones.get(0).getVertices()),
+                    "Path should not enter the no-fly zone");
+            if (i > 0) {
+                assertEquals(SystemConstants.DRONE_MOVE_DISTANCE, smoothed.get(i - 1).distanceTo(point), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void testZigZagIsShortened() {
+        // Alternating 0 and 45 degree moves, a straight 22.5 degree run covers the same ground in fewer moves
+        LngLat start = new LngLat(-3.191, 55.9435);
+        List<LngLat> zigZag = new java.util.ArrayList<>(List.of(start));
+        LngLat position = start;
+        for (int i = 0; i < 20; i++) {
+            position = new LngLat(position.lng() + SystemConstants.DRONE_MOVE_DISTANCE * Math.cos(Math.toRadians(i % 2 == 0 ? 0 : 45)),
+                    position.lat() + SystemConstants.DRONE_MOVE_DISTANCE * Math.sin(Math.toRadians(i % 2 == 0 ? 0 : 45)));
+            zigZag.add(position);
+        }
+
+        List<LngLat> smoothed = PathSmoother.smooth(zigZag, position, Collections.emptyList(), centralArea);
+
+        assertTrue(smoothed.size() < zigZag.size(), "Zig-zag of " + zigZag.size() + " points should be shortened, got " + smoothed.size());
+        assertTrue(smoothed.get(smoothed.size() - 1).isCloseTo(position, SystemConstants.DRONE_IS_CLOSE_DISTANCE));
+    }
+
+    @Test
+    void testShortPathIsUnchanged() {
+        List<LngLat> path = List.of(new LngLat(-3.191, 55.945), new LngLat(-3.19085, 55.945));
+
+        assertSame(path, PathSmoother.smooth(path, path.get(1), noFlyZones, centralArea));
+    }
+
+    @Test
+    void testPlannerRecordsMovesSaved() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PathPlanner planner = new PathPlanner(PathfindingMode.A_STAR, 200_000, 65_536, true, CorridorShape.NONE, 8, registry);
+
+        List<LngLat> path = planner.findPath(new LngLat(-3.20254147052765, 55.9432847375794), APPLETON_TOWER,
+                noFlyZones, centralArea, new ReachabilityMap(noFlyZones, centralArea), SearchMonitor.NONE);
+
+        assertNotNull(path);
+        DistributionSummary movesSaved = registry.get("pizzadronz.path.smoothing.moves.saved").summary();
+        assertEquals(1, movesSaved.count());
+        assertTrue(movesSaved.totalAmount() >= 0);
+    }
+}
@@ -2,11 +2,16 @@ package uk.ac.ed.inf.unit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.constant.CorridorShape;
 import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.LngLat;
 import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Polygon;
 import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -53,6 +58,24 @@ public class PathfindingAlgorithmTest {
                 "Point should be outside the polygon");
     }
 
+    @Test
+    void testIsPointInsidePolygon_PrimitivePolygonAgreesWithVertexList() {
+        List<LngLat> zone = noFlyZones.get(0).getVertices();
+        double[] lngs = zone.stream().mapToDouble(LngLat::lng).toArray();
+        double[] lats = zone.stream().mapToDouble(LngLat::lat).toArray();
+        Polygon polygon = new Polygon(lngs, lats, zone.size());
+
+        for (double lng = -3.1905; lng <= -3.1875; lng += 0.00025) {
+            for (double lat = 55.9425; lat <= 55.9455; lat += 0.00025) {
+                LngLat point = new LngLat(lng, lat);
+                assertEquals(PathfindingAlgorithm.testIsPointInsidePolygon(point, zone),
+                        PathfindingAlgorithm.testIsPointInsidePolygon(point, polygon), point.toString());
+            }
+        }
+        assertTrue(PathfindingAlgorithm.testIsPointInsidePolygon(new LngLat(-3.190, 55.944), polygon),
+                "A vertex is on the boundary");
+    }
+
     @Test
     void testIsPointInsidePolygon_OnBoundary() {
         LngLat boundaryPoint = new LngLat(-3.192473, 55.946233);
@@ -98,6 +121,46 @@ public class PathfindingAlgorithmTest {
     }
 
 
+    @Test
+    void testMonitorReceivesProgressAndCanCancel() {
+        LngLat start = new LngLat(-3.205, 55.955);  // Far enough for more than one progress report
+        LngLat goal = new LngLat(-3.186874, 55.944494);
+        List<Integer> reported = new ArrayList<>();
+
+        SearchMonitor observer = new SearchMonitor() {
+            @Override
+            public void onProgress(int expansions, double bestFCost) {
+                reported.add(expansions);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        };
+        ReachabilityMap reachability = new ReachabilityMap(noFlyZones, centralArea);
+        List<LngLat> path = PathfindingAlgorithm.findPath(start, goal, noFlyZones, centralArea,
+                CorridorShape.NONE, 0, reachability, observer);
+
+        assertEquals(PathfindingAlgorithm.findPath(start, goal, noFlyZones, centralArea), path);
+        assertFalse(reported.isEmpty(), "A search of this length should report progress");
+        assertEquals(SearchMonitor.REPORT_INTERVAL, reported.get(0));
+
+        SearchMonitor cancelled = new SearchMonitor() {
+            @Override
+            public void onProgress(int expansions, double bestFCost) {
+                fail("A cancelled search should not report progress");
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+        assertNull(PathfindingAlgorithm.findPath(start, goal, noFlyZones, centralArea, CorridorShape.ELLIPSE, 0,
+                reachability, cancelled));
+    }
+
     @Test
     void testFindPath_SimplePath() {
         LngLat start = new LngLat(-3.190, 55.944);
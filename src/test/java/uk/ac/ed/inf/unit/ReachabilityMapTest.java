@@ -0,0 +1,114 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.flightpath.PathfindingAlgorithm;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.interfaces.SearchMonitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReachabilityMapTest {
+
+    private List<LngLat> centralArea;
+    private List<NoFlyZone> walls;
+    private LngLat enclosedGoal;
+
+    @BeforeEach
+    void setUp() {
+        centralArea = Arrays.asList(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
+        );
+
+        // Four overlapping walls that box in the point (-3.188, 55.944)
+        walls = Arrays.asList(
+                rectangle("north", -3.1890, 55.9447, -3.1870, 55.9450),
+                rectangle("south", -3.1890, 55.9430, -3.1870, 55.9433),
+                rectangle("west", -3.1890, 55.9430, -3.1887, 55.9450),
+                rectangle("east", -3.1873, 55.9430, -3.1870, 55.9450)
+        );
+        enclosedGoal = new LngLat(-3.188, 55.944);
+    }
+
+    private static NoFlyZone rectangle(String name, double minLng, double minLat, double maxLng, double maxLat) {
+        return new NoFlyZone(name, Arrays.asList(
+                new LngLat(minLng, minLat),
+                new LngLat(maxLng, minLat),
+                new LngLat(maxLng, maxLat),
+                new LngLat(minLng, maxLat),
+                new LngLat(minLng, minLat)
+        ));
+    }
+
+    @Test
+    void testOpenGoalIsReachable() {
+        ReachabilityMap map = new ReachabilityMap(walls, centralArea);
+
+        assertTrue(map.isReachable(new LngLat(-3.191, 55.945), new LngLat(-3.186, 55.943)));
+    }
+
+    @Test
+    void testEnclosedGoalIsUnreachable() {
+        ReachabilityMap map = new ReachabilityMap(walls, centralArea);
+
+        assertFalse(map.isReachable(new LngLat(-3.191, 55.945), enclosedGoal));
+        assertFalse(map.isReachable(new LngLat(-3.200, 55.950), enclosedGoal));
+    }
+
+    @Test
+    void testStartInsideEnclosureReachesEnclosedGoal() {
+        ReachabilityMap map = new ReachabilityMap(walls, centralArea);
+
+        assertTrue(map.isReachable(new LngLat(-3.1882, 55.9442), enclosedGoal));
+    }
+
+    @Test
+    void testGoalOutsideCentralAreaUnreachableFromInside() {
+        ReachabilityMap map = new ReachabilityMap(Collections.emptyList(), centralArea);
+
+        assertFalse(map.isReachable(new LngLat(-3.190, 55.944), new LngLat(-3.195, 55.950)));
+        assertTrue(map.isReachable(new LngLat(-3.195, 55.950), new LngLat(-3.190, 55.944)));
+    }
+
+    @Test
+    void testNoRegionsIsAlwaysReachable() {
+        ReachabilityMap map = new ReachabilityMap(Collections.emptyList(), Collections.emptyList());
+
+        assertTrue(map.isReachable(new LngLat(-3.190, 55.944), new LngLat(-3.100, 55.900)));
+    }
+
+    @Test
+    void testMapIsBuiltOncePerSnapshot() {
+        ReferenceDataSnapshot snapshot = new ReferenceDataSnapshot(new Restaurant[0], walls, centralArea);
+        ReferenceDataSnapshot next = new ReferenceDataSnapshot(new Restaurant[0], walls, centralArea);
+
+        assertSame(snapshot.index(ReachabilityMap.INDEX), snapshot.index(ReachabilityMap.INDEX));
+        assertNotSame(snapshot.index(ReachabilityMap.INDEX), next.index(ReachabilityMap.INDEX));
+    }
+
+    @Test
+    void testFindPathFailsFastForEnclosedGoal() {
+        ReachabilityMap reachability = new ReachabilityMap(walls, centralArea);
+
+        long startTime = System.nanoTime();
+        List<LngLat> path = PathfindingAlgorithm.findPath(new LngLat(-3.191, 55.945), enclosedGoal, walls, centralArea,
+                CorridorShape.NONE, 0, reachability, SearchMonitor.NONE);
+        long executionTime = (System.nanoTime() - startTime) / 1_000_000;
+
+        assertNull(path, "Enclosed goal should not be reachable");
+        assertTrue(executionTime < 50, "Unreachable goal should be rejected quickly, but took " + executionTime + "ms.");
+    }
+}
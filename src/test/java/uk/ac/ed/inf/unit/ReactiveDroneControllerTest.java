@@ -0,0 +1,220 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.Disposable;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.OrderStatus;
+import uk.ac.ed.inf.constant.OrderValidationCode;
+import uk.ac.ed.inf.constant.PathfindingMode;
+import uk.ac.ed.inf.controller.ReactiveDroneController;
+import uk.ac.ed.inf.data.CreditCardInformation;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.Order;
+import uk.ac.ed.inf.data.Pizza;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.execution.AdaptiveConcurrencyLimiter;
+import uk.ac.ed.inf.external.ReferenceDataCache;
+import uk.ac.ed.inf.flightpath.PathPlanner;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReactiveDroneControllerTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private ReferenceDataCache referenceDataCache;
+    private PathPlanner planner;
+    private ThreadPoolExecutor pathSearchExecutor;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private ReactiveDroneController controller;
+
+    @BeforeEach
+    void setUp() {
+        referenceDataCache = mock(ReferenceDataCache.class);
+        pathSearchExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        planner = new PathPlanner(PathfindingMode.A_STAR, 200_000, 65_536, true,
+                CorridorShape.NONE, 8, new SimpleMeterRegistry());
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 4, 1, 4, 1000, 3, new SimpleMeterRegistry());
+        controller = new ReactiveDroneController(referenceDataCache, planner, pathSearchExecutor, concurrencyLimiter);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pathSearchExecutor.shutdownNow();
+    }
+
+    private static final List<LngLat> CENTRAL_AREA = List.of(
+            new LngLat(-3.192473, 55.946233),
+            new LngLat(-3.192473, 55.942617),
+            new LngLat(-3.184319, 55.942617),
+            new LngLat(-3.184319, 55.946233),
+            new LngLat(-3.192473, 55.946233));
+
+    private static Order validOrder() {
+        return new Order("77DAD717", LocalDate.now(), OrderStatus.VALID, OrderValidationCode.NO_ERROR, 1500,
+                new Pizza[]{new Pizza("R1: Margarita", 1400)},
+                new CreditCardInformation("5223358194283703", "09/99", "473"));
+    }
+
+    private static final Restaurant CIVERINOS = new Restaurant("Civerinos Slice",
+            new LngLat(-3.1912869215011597, 55.945535152517735), DayOfWeek.values(),
+            new Pizza[]{new Pizza("R1: Margarita", 1400)});
+
+    private ReferenceDataSnapshot givenRestaurantAndMap() {
+        ReferenceDataSnapshot snapshot = new ReferenceDataSnapshot(new Restaurant[]{CIVERINOS}, List.of(), CENTRAL_AREA);
+        when(referenceDataCache.getSnapshotAsync()).thenReturn(CompletableFuture.completedFuture(snapshot));
+        return snapshot;
+    }
+
+    @Test
+    void testIncompleteOrderAnswersBadRequestWithoutFetching() {
+        ResponseEntity<List<LngLat>> response = controller.calcDeliveryPath(new Order()).block(WAIT);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(referenceDataCache);
+    }
+
+    @Test
+    void testWaitsForSnapshotWithoutBlocking() throws Exception {
+        CompletableFuture<ReferenceDataSnapshot> fetching = new CompletableFuture<>();
+        when(referenceDataCache.getSnapshotAsync()).thenReturn(fetching);
+
+        CompletableFuture<ResponseEntity<Order>> response = controller.validateOrder(validOrder()).toFuture();
+        assertFalse(response.isDone(), "The request waits for the fetch without a thread");
+        fetching.complete(new ReferenceDataSnapshot(new Restaurant[]{CIVERINOS}, List.of(), CENTRAL_AREA));
+
+        assertEquals(HttpStatus.OK, response.get(WAIT.toMillis(), TimeUnit.MILLISECONDS).getStatusCode());
+        verify(referenceDataCache, never()).getSnapshot();
+    }
+
+    @Test
+    void testServesPlannedPathFromSnapshot() {
+        ReferenceDataSnapshot snapshot = givenRestaurantAndMap();
+        List<LngLat> plannedPath = List.of(CIVERINOS.location(), new LngLat(-3.186874, 55.944494));
+        snapshot.preloadIndex(planner.pathsToAppletonIndex(), Map.of(CIVERINOS.location(), plannedPath));
+
+        ResponseEntity<List<LngLat>> response = controller.calcDeliveryPath(validOrder()).block(WAIT);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(plannedPath, response.getBody());
+    }
+
+    @Test
+    void testSearchesOnPathSearchPool() throws InterruptedException {
+        givenRestaurantAndMap();
+
+        ResponseEntity<String> response = controller.calcDeliveryPathAsGeoJson(validOrder()).block(WAIT);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("LineString"));
+        awaitPermitsReleased();
+        assertEquals(1, pathSearchExecutor.getTaskCount());
+    }
+
+    @Test
+    void testRoundTripEndsAtRestaurant() {
+        givenRestaurantAndMap();
+
+        List<LngLat> roundTrip = controller.calcRoundTripPath(validOrder()).block(WAIT).getBody();
+
+        assertNotNull(roundTrip);
+        assertEquals(roundTrip.get(0), roundTrip.get(roundTrip.size() - 1));
+    }
+
+    @Test
+    void testFailedFetchAnswersBadRequest() {
+        when(referenceDataCache.getSnapshotAsync())
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("API down")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.calcDeliveryPath(validOrder()).block(WAIT).getStatusCode());
+    }
+
+    @Test
+    void testFullPoolAnswersServiceUnavailable() throws InterruptedException {
+        givenRestaurantAndMap();
+        CountDownLatch release = new CountDownLatch(1);
+        pathSearchExecutor.execute(() -> awaitQuietly(release));    // Occupies the only thread
+        pathSearchExecutor.execute(() -> awaitQuietly(release));    // Fills the queue
+
+        try {
+            ResponseEntity<List<LngLat>> response = controller.calcDeliveryPath(validOrder()).block(WAIT);
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+            assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            awaitPermitsReleased();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testOverLimitAnswersServiceUnavailable() {
+        givenRestaurantAndMap();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(concurrencyLimiter.tryAcquire());
+        }
+
+        ResponseEntity<List<LngLat>> response = controller.calcDeliveryPath(validOrder()).block(WAIT);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals(0, pathSearchExecutor.getTaskCount());
+    }
+
+    @Test
+    void testCancellingReleasesItsPermit() throws InterruptedException {
+        givenRestaurantAndMap();
+        CountDownLatch release = new CountDownLatch(1);
+        pathSearchExecutor.execute(() -> awaitQuietly(release));    // The search waits in the queue
+
+        AtomicReference<ResponseEntity<List<LngLat>>> response = new AtomicReference<>();
+        Disposable subscription = controller.calcDeliveryPath(validOrder()).subscribe(response::set);
+        for (int i = 0; i < 100 && concurrencyLimiter.getInFlight() == 0; i++) {
+            Thread.sleep(10);   // The snapshot is taken off the calling thread before the search is admitted
+        }
+        assertEquals(1, concurrencyLimiter.getInFlight());
+
+        subscription.dispose();
+        release.countDown();
+
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertNull(response.get());
+    }
+
+    /**
+     * The permit is released once the search has signalled, which can be just after the response is delivered.
+     */
+    private void awaitPermitsReleased() throws InterruptedException {
+        for (int i = 0; i < 100 && concurrencyLimiter.getInFlight() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, concurrencyLimiter.getInFlight());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Pizza;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.ConditionalFetch;
+import uk.ac.ed.inf.external.FetchedSnapshot;
+import uk.ac.ed.inf.external.ReferenceDataAggregator;
+import uk.ac.ed.inf.external.Validators;
+import uk.ac.ed.inf.interfaces.ReferenceDataSource;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReferenceDataAggregatorTest {
+
+    private static final long UPSTREAM_LATENCY_MILLIS = 300;
+
+    private ReferenceDataSource source;
+    private ReferenceDataAggregator aggregator;
+
+    private static final Restaurant[] RESTAURANTS = {
+            new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                    DayOfWeek.values(), new Pizza[]{new Pizza("R1: Margarita", 1000)})
+    };
+    private static final List<NoFlyZone> NO_FLY_ZONES = List.of(new NoFlyZone("Zone", List.of(
+            new LngLat(-3.19, 55.944), new LngLat(-3.189, 55.943), new LngLat(-3.187, 55.943))));
+    private static final List<LngLat> CENTRAL_AREA = List.of(
+            new LngLat(-3.192473, 55.946233), new LngLat(-3.184319, 55.942617));
+
+    @BeforeEach
+    void setUp() {
+        source = mock(ReferenceDataSource.class);
+        aggregator = new ReferenceDataAggregator(source, 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        aggregator.shutdown();
+    }
+
+    private static <T> ConditionalFetch<T> fetched(T body) {
+        return new ConditionalFetch<>(body, Validators.NONE);
+    }
+
+    private static <T> ConditionalFetch<T> slowUpstream(T response) throws InterruptedException {
+        Thread.sleep(UPSTREAM_LATENCY_MILLIS);
+        return fetched(response);
+    }
+
+    @Test
+    void testSnapshotHoldsAllThreeDatasets() {
+        when(source.fetchRestaurants(any())).thenReturn(fetched(RESTAURANTS));
+        when(source.fetchNoFlyZones(any())).thenReturn(fetched(NO_FLY_ZONES));
+        when(source.fetchCentralArea(any())).thenReturn(fetched(CENTRAL_AREA));
+
+        ReferenceDataSnapshot snapshot = aggregator.fetchSnapshot();
+
+        assertArrayEquals(RESTAURANTS, snapshot.restaurants());
+        assertEquals(NO_FLY_ZONES, snapshot.noFlyZones());
+        assertEquals(CENTRAL_AREA, snapshot.centralArea());
+    }
+
+    @Test
+    void testFetchesRunConcurrently() {
+        when(source.fetchRestaurants(any())).thenAnswer(invocation -> slowUpstream(RESTAURANTS));
+        when(source.fetchNoFlyZones(any())).thenAnswer(invocation -> slowUpstream(NO_FLY_ZONES));
+        when(source.fetchCentralArea(any())).thenAnswer(invocation -> slowUpstream(CENTRAL_AREA));
+
+        long start = System.nanoTime();
+        aggregator.fetchSnapshot();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Sequential fetches would take three times the latency
+        assertTrue(elapsedMillis < 2 * UPSTREAM_LATENCY_MILLIS, "Took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testFailedFetchFailsWithoutWaitingForTheOthers() {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        when(source.fetchRestaurants(any())).thenAnswer(invocation -> {
+            neverReleased.await();
+            return fetched(RESTAURANTS);
+        });
+        when(source.fetchNoFlyZones(any())).thenThrow(new NullPointerException("Received null response from API"));
+        when(source.fetchCentralArea(any())).thenReturn(fetched(CENTRAL_AREA));
+
+        NullPointerException e = assertThrows(NullPointerException.class, aggregator::fetchSnapshot);
+        assertEquals("Received null response from API", e.getMessage());
+    }
+
+    @Test
+    void testSlowFetchTimesOut() {
+        aggregator.shutdown();
+        aggregator = new ReferenceDataAggregator(source, 100);
+        when(source.fetchRestaurants(any())).thenAnswer(invocation -> slowUpstream(RESTAURANTS));
+        when(source.fetchNoFlyZones(any())).thenReturn(fetched(NO_FLY_ZONES));
+        when(source.fetchCentralArea(any())).thenReturn(fetched(CENTRAL_AREA));
+
+        assertThrows(IllegalStateException.class, aggregator::fetchSnapshot);
+    }
+
+    @Test
+    void testAsyncFetchUsesTheNonBlockingFetches() throws Exception {
+        CompletableFuture<ConditionalFetch<Restaurant[]>> restaurants = new CompletableFuture<>();
+        when(source.fetchRestaurantsAsync(any(), any())).thenReturn(restaurants);
+        when(source.fetchNoFlyZonesAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(fetched(NO_FLY_ZONES)));
+        when(source.fetchCentralAreaAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(fetched(CENTRAL_AREA)));
+
+        CompletableFuture<FetchedSnapshot> fetching = aggregator.fetchSnapshotAsync(null);
+        assertFalse(fetching.isDone());
+        restaurants.complete(fetched(RESTAURANTS));
+
+        assertArrayEquals(RESTAURANTS, fetching.get(5, TimeUnit.SECONDS).snapshot().restaurants());
+        verify(source, never()).fetchRestaurants(any());
+    }
+
+    @Test
+    void testAsyncFetchFallsBackToTheBlockingFetches() throws Exception {
+        source = mock(ReferenceDataSource.class, CALLS_REAL_METHODS);
+        aggregator.shutdown();
+        aggregator = new ReferenceDataAggregator(source, 2000);
+        doReturn(fetched(RESTAURANTS)).when(source).fetchRestaurants(any());
+        doReturn(fetched(NO_FLY_ZONES)).when(source).fetchNoFlyZones(any());
+        doReturn(fetched(CENTRAL_AREA)).when(source).fetchCentralArea(any());
+
+        assertEquals(CENTRAL_AREA, aggregator.fetchSnapshotAsync(null).get(5, TimeUnit.SECONDS).snapshot().centralArea());
+    }
+
+    @Test
+    void testSlowAsyncFetchTimesOut() {
+        aggregator.shutdown();
+        aggregator = new ReferenceDataAggregator(source, 100);
+        when(source.fetchRestaurantsAsync(any(), any())).thenReturn(new CompletableFuture<>());
+        when(source.fetchNoFlyZonesAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(fetched(NO_FLY_ZONES)));
+        when(source.fetchCentralAreaAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(fetched(CENTRAL_AREA)));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> aggregator.fetchSnapshotAsync(null).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void testRejectsNonPositiveTimeout() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReferenceDataAggregator(source, 0));
+    }
+}
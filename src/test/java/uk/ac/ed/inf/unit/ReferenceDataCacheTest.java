@@ -0,0 +1,378 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.FetchedSnapshot;
+import uk.ac.ed.inf.external.ReferenceDataAggregator;
+import uk.ac.ed.inf.external.ReferenceDataCache;
+import uk.ac.ed.inf.external.ReferenceDataStore;
+import uk.ac.ed.inf.external.Validators;
+import uk.ac.ed.inf.flightpath.RoutingArtifactStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ReferenceDataCacheTest {
+
+    private ReferenceDataAggregator aggregator;
+    private ReferenceDataStore store;
+    private RoutingArtifactStore routingArtifacts;
+    private SimpleMeterRegistry registry;
+    private ReferenceDataCache cache;
+
+    private static final ReferenceDataSnapshot FIRST = snapshotWithCentralArea(new LngLat(-3.19, 55.94));
+    private static final ReferenceDataSnapshot SECOND = snapshotWithCentralArea(new LngLat(-3.18, 55.95));
+
+    private static ReferenceDataSnapshot snapshotWithCentralArea(LngLat vertex) {
+        return new ReferenceDataSnapshot(new Restaurant[0], List.of(), List.of(vertex));
+    }
+
+    private static FetchedSnapshot fetched(ReferenceDataSnapshot snapshot) {
+        return new FetchedSnapshot(snapshot, Validators.NONE, Validators.NONE, Validators.NONE);
+    }
+
+    @BeforeEach
+    void setUp() {
+        aggregator = mock(ReferenceDataAggregator.class);
+        store = mock(ReferenceDataStore.class);
+        routingArtifacts = mock(RoutingArtifactStore.class);
+        registry = new SimpleMeterRegistry();
+        cache = new ReferenceDataCache(aggregator, store, routingArtifacts, 600, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    private double lookups(String result) {
+        return registry.get("pizzadronz.reference-data.cache").tag("result", result).counter().count();
+    }
+
+    private double refreshes(String outcome) {
+        return registry.get("pizzadronz.reference-data.refresh").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void testFetchesOnceThenServesFromCache() {
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(FIRST));
+
+        assertSame(FIRST, cache.getSnapshot());
+        assertSame(FIRST, cache.getSnapshot());
+
+        verify(aggregator, times(1)).fetchSnapshot(any());
+        assertEquals(1, lookups("miss"));
+        assertEquals(1, lookups("hit"));
+        assertEquals(1, refreshes("success"));
+    }
+
+    @Test
+    void testConcurrentFirstRequestsShareOneFetch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(aggregator.fetchSnapshot(any())).thenAnswer(invocation -> {
+            release.await();
+            return fetched(FIRST);
+        });
+
+        ExecutorService requests = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ReferenceDataSnapshot>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(requests.submit(cache::getSnapshot));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<ReferenceDataSnapshot> result : results) {
+                assertSame(FIRST, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+        verify(aggregator, times(1)).fetchSnapshot(any());
+    }
+
+    @Test
+    void testExpiredSnapshotIsServedWhileRefreshingInBackground() throws InterruptedException {
+        cache.shutdown();
+        cache = new ReferenceDataCache(aggregator, store, routingArtifacts, 1, registry);
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(FIRST)).thenAnswer(invocation -> {
+            refreshStarted.countDown();
+            release.await();
+            return fetched(SECOND);
+        });
+        cache.getSnapshot();
+
+        Thread.sleep(1100);
+        assertSame(FIRST, cache.getSnapshot(), "An expired snapshot is returned without waiting");
+        assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+        assertSame(FIRST, cache.getSnapshot(), "Only one refresh runs at a time");
+
+        release.countDown();
+        for (int i = 0; i < 100 && cache.getSnapshot() != SECOND; i++) {
+            Thread.sleep(10);
+        }
+        assertSame(SECOND, cache.getSnapshot());
+        verify(aggregator, times(2)).fetchSnapshot(any());
+    }
+
+    @Test
+    void testSnapshotStalePastMaxStaleWaitsForItsRefresh() throws InterruptedException {
+        cache.shutdown();
+        registry = new SimpleMeterRegistry();   // The age gauge of the cache built in setUp is registered already
+        cache = new ReferenceDataCache(aggregator, store, routingArtifacts, 1, 1, registry);
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(FIRST)).thenReturn(fetched(SECOND));
+        cache.getSnapshot();
+
+        Thread.sleep(2100);
+        assertTrue(registry.get("pizzadronz.reference-data.age").gauge().value() > 2);
+        assertSame(SECOND, cache.getSnapshot(), "A snapshot stale for too long is not served while it can be replaced");
+        assertTrue(registry.get("pizzadronz.reference-data.age").gauge().value() < 1);
+    }
+
+    @Test
+    void testSnapshotStalePastMaxStaleIsServedIfItsRefreshFails() throws InterruptedException {
+        cache.shutdown();
+        cache = new ReferenceDataCache(aggregator, store, routingArtifacts, 1, 1, registry);
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(FIRST)).thenThrow(new IllegalStateException("Upstream down"));
+        cache.getSnapshot();
+
+        Thread.sleep(2100);
+        assertSame(FIRST, cache.getSnapshot());
+        assertEquals(1, refreshes("failure"));
+    }
+
+    @Test
+    void testConcurrentAsyncFirstRequestsShareOneNonBlockingFetch() throws Exception {
+        CompletableFuture<FetchedSnapshot> fetching = new CompletableFuture<>();
+        when(aggregator.fetchSnapshotAsync(any())).thenReturn(fetching);
+
+        CompletableFuture<ReferenceDataSnapshot> first = cache.getSnapshotAsync();
+        CompletableFuture<ReferenceDataSnapshot> second = cache.getSnapshotAsync();
+        assertFalse(first.isDone(), "Nothing waits on the calling thread");
+        first.cancel(true);
+        fetching.complete(fetched(FIRST));
+
+        assertSame(FIRST, second.get(5, TimeUnit.SECONDS), "A cancelled request does not cancel the shared fetch");
+        assertSame(FIRST, cache.getSnapshotAsync().get(5, TimeUnit.SECONDS));
+        verify(aggregator, times(1)).fetchSnapshotAsync(any());
+        verify(aggregator, never()).fetchSnapshot(any());
+        assertEquals(2, lookups("miss"));
+        assertEquals(1, lookups("hit"));
+    }
+
+    @Test
+    void testAsyncSnapshotStalePastMaxStaleWaitsForItsNonBlockingRefresh() throws Exception {
+        cache.shutdown();
+        cache = new ReferenceDataCache(aggregator, store, routingArtifacts, 1, 1, registry);
+        CompletableFuture<FetchedSnapshot> refreshing = new CompletableFuture<>();
+        when(aggregator.fetchSnapshotAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(fetched(FIRST)), refreshing);
+        cache.getSnapshotAsync().get(5, TimeUnit.SECONDS);
+
+        Thread.sleep(2100);
+        CompletableFuture<ReferenceDataSnapshot> result = cache.getSnapshotAsync();
+        assertFalse(result.isDone());
+        refreshing.complete(fetched(SECOND));
+
+        assertSame(SECOND, result.get(5, TimeUnit.SECONDS));
+        verify(aggregator, never()).fetchSnapshot(any());
+    }
+
+    @Test
+    void testAsyncSnapshotStalePastMaxStaleIsServedIfItsRefreshFails() throws Exception {
+        cache.shutdown();
+        cache = new ReferenceDataCache(aggregator, store, routingArtifacts, 1, 1, registry);
+        when(aggregator.fetchSnapshotAsync(any())).thenReturn(CompletableFuture.completedFuture(fetched(FIRST)),
+                CompletableFuture.failedFuture(new IllegalStateException("Upstream down")));
+        cache.getSnapshotAsync().get(5, TimeUnit.SECONDS);
+
+        Thread.sleep(2100);
+        assertSame(FIRST, cache.getSnapshotAsync().get(5, TimeUnit.SECONDS));
+        assertEquals(1, refreshes("failure"));
+    }
+
+    @Test
+    void testFailedAsyncFirstFetchFailsTheRequest() {
+        when(aggregator.fetchSnapshotAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Upstream down")));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> cache.getSnapshotAsync().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(1, refreshes("failure"));
+    }
+
+    @Test
+    void testRejectsNegativeMaxStale() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReferenceDataCache(aggregator, store, routingArtifacts, 600, -1, registry));
+    }
+
+    @Test
+    void testFailedRefreshKeepsTheCachedSnapshot() {
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(FIRST)).thenThrow(new IllegalStateException("Upstream down"));
+        cache.getSnapshot();
+
+        assertThrows(IllegalStateException.class, cache::refresh);
+
+        assertSame(FIRST, cache.getSnapshot());
+        assertEquals(1, refreshes("failure"));
+    }
+
+    @Test
+    void testFailedFirstFetchIsRetriedOnTheNextRequest() {
+        when(aggregator.fetchSnapshot(any())).thenThrow(new IllegalStateException("Upstream down")).thenReturn(fetched(FIRST));
+
+        assertThrows(IllegalStateException.class, cache::getSnapshot);
+        assertSame(FIRST, cache.getSnapshot());
+        assertEquals(2, lookups("miss"));
+    }
+
+    @Test
+    void testRefreshReplacesTheSnapshot() {
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(FIRST), fetched(SECOND));
+        cache.getSnapshot();
+
+        assertSame(SECOND, cache.refresh());
+        assertSame(SECOND, cache.getSnapshot());
+    }
+
+    @Test
+    void testSnapshotCannotBeModifiedThroughItsArray() {
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(new ReferenceDataSnapshot(
+                new Restaurant[]{new Restaurant("Civerinos Slice", new LngLat(-3.19, 55.94), null, null)},
+                List.of(), List.of())));
+
+        cache.getSnapshot().restaurants()[0] = null;
+
+        assertNotNull(cache.getSnapshot().restaurants()[0]);
+    }
+
+    @Test
+    void testUnchangedRefreshKeepsTheSnapshot() {
+        FetchedSnapshot first = fetched(FIRST);
+        when(aggregator.fetchSnapshot(any())).thenReturn(first);
+        cache.getSnapshot();
+
+        assertSame(FIRST, cache.refresh());
+
+        verify(aggregator).fetchSnapshot(first);
+        assertEquals(1, refreshes("unchanged"));
+        assertEquals(1, refreshes("success"));
+    }
+
+    @Test
+    void testRejectsNonPositiveTtl() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReferenceDataCache(aggregator, store, routingArtifacts, 0, registry));
+    }
+
+    @Test
+    void testStoredSnapshotIsServedWithoutWaitingAndRefreshed() throws InterruptedException {
+        FetchedSnapshot stored = fetched(FIRST);
+        when(store.load()).thenReturn(Optional.of(stored));
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(SECOND));
+        cache.loadStoredSnapshot();
+
+        assertSame(FIRST, cache.getSnapshot());
+        assertEquals(0, lookups("miss"));
+
+        for (int i = 0; i < 100 && cache.getSnapshot() != SECOND; i++) {
+            Thread.sleep(10);
+        }
+        assertSame(SECOND, cache.getSnapshot());
+        verify(aggregator).fetchSnapshot(stored);
+    }
+
+    @Test
+    void testStoredSnapshotIsKeptWhileUpstreamIsDown() throws InterruptedException {
+        when(store.load()).thenReturn(Optional.of(fetched(FIRST)));
+        when(aggregator.fetchSnapshot(any())).thenThrow(new IllegalStateException("Upstream down"));
+        cache.loadStoredSnapshot();
+
+        assertSame(FIRST, cache.getSnapshot());
+        for (int i = 0; i < 100 && refreshes("failure") == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, refreshes("failure"));
+        assertSame(FIRST, cache.getSnapshot());
+    }
+
+    @Test
+    void testNewSnapshotsAreSavedOnlyWhenChanged() {
+        FetchedSnapshot first = fetched(FIRST);
+        when(store.isEnabled()).thenReturn(true);
+        when(aggregator.fetchSnapshot(any())).thenReturn(first);
+
+        cache.getSnapshot();
+        cache.refresh();
+
+        verify(store, timeout(5000)).save(first);
+        verify(store, after(100).times(1)).save(any());
+    }
+
+    @Test
+    void testNothingIsSavedWhileTheStoreIsDisabled() {
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(FIRST));
+
+        cache.getSnapshot();
+
+        verify(store, after(100).never()).save(any());
+    }
+
+    @Test
+    void testRoutingDataOfNewSnapshotsIsPreparedInBackground() {
+        when(routingArtifacts.isEnabled()).thenReturn(true);
+        when(aggregator.fetchSnapshot(any())).thenReturn(fetched(FIRST));
+
+        cache.getSnapshot();
+
+        verify(routingArtifacts, timeout(5000)).prepare(FIRST);
+        verify(store, never()).save(any());
+    }
+
+    @Test
+    void testStoredRoutingDataIsMappedAtStartup() {
+        when(store.load()).thenReturn(Optional.of(fetched(FIRST)));
+        when(routingArtifacts.attach(FIRST)).thenReturn(true);
+        when(routingArtifacts.isEnabled()).thenReturn(true);
+        when(aggregator.fetchSnapshot(any())).thenThrow(new IllegalStateException("Upstream down"));
+
+        cache.loadStoredSnapshot();
+
+        verify(routingArtifacts).attach(FIRST);
+        verify(routingArtifacts, after(100).never()).prepare(any());
+    }
+
+    @Test
+    void testMissingRoutingDataIsBuiltForTheStoredSnapshot() {
+        when(store.load()).thenReturn(Optional.of(fetched(FIRST)));
+        when(routingArtifacts.isEnabled()).thenReturn(true);
+        when(store.isEnabled()).thenReturn(true);
+
+        cache.loadStoredSnapshot();
+
+        verify(routingArtifacts, timeout(5000)).prepare(FIRST);
+        verify(store, never()).save(any());
+    }
+}
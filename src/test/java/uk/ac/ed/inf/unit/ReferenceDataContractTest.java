@@ -0,0 +1,194 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.CentralAreaService;
+import uk.ac.ed.inf.external.HttpReferenceDataSource;
+import uk.ac.ed.inf.external.NoFlyZoneService;
+import uk.ac.ed.inf.external.ReferenceDataAggregator;
+import uk.ac.ed.inf.external.ReferenceDataCache;
+import uk.ac.ed.inf.external.ReferenceDataStore;
+import uk.ac.ed.inf.external.RestaurantService;
+import uk.ac.ed.inf.external.Validators;
+import uk.ac.ed.inf.flightpath.RoutingArtifactStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Checks the requests the reference data services send to the ILP REST service, against a local stub server.
+ */
+public class ReferenceDataContractTest {
+
+    private static final String BASE_URL = "https://ilp-rest-2024.azurewebsites.net";
+
+    private static final String RESTAURANTS = """
+            [{"name": "Civerinos Slice", "location": {"lng": -3.1912869215011597, "lat": 55.945535152517735},
+              "openingDays": ["MONDAY", "TUESDAY"], "menu": [{"name": "R1: Margarita", "priceInPence": 1000}]}]
+            """;
+    private static final String NO_FLY_ZONES = """
+            [{"name": "George Square Area", "vertices": [{"lng": -3.190578818321228, "lat": 55.94402412577528},
+              {"lng": -3.1899887323379517, "lat": 55.94284650540911},
+              {"lng": -3.187097311019897, "lat": 55.94328811724263}]}]
+            """;
+    private static final String CENTRAL_AREA = """
+            {"name": "central", "vertices": [{"lng": -3.192473, "lat": 55.946233},
+              {"lng": -3.192473, "lat": 55.942617}, {"lng": -3.184319, "lat": 55.942617}]}
+            """;
+
+    private MockRestServiceServer server;
+    private RestaurantService restaurantService;
+    private ReferenceDataAggregator aggregator;
+    private ReferenceDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        // Requests arrive from the aggregator's fetch threads in any order
+        server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        restaurantService = new RestaurantService(restTemplate);
+        aggregator = new ReferenceDataAggregator(new HttpReferenceDataSource(restaurantService,
+                new NoFlyZoneService(restTemplate), new CentralAreaService(restTemplate)), 5000);
+        cache = new ReferenceDataCache(aggregator, mock(ReferenceDataStore.class), mock(RoutingArtifactStore.class), 600,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+        aggregator.shutdown();
+    }
+
+    private void expectOnce(String path, String body) {
+        server.expect(ExpectedCount.once(), requestTo(BASE_URL + path))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+    }
+
+    private void expectWithValidators(String path, String body, String eTag) {
+        expectChanged(path, body, null, eTag);
+    }
+
+    private void expectChanged(String path, String body, String previousETag, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.set(HttpHeaders.LAST_MODIFIED, "Mon, 05 Oct 2026 10:00:00 GMT");
+        server.expect(ExpectedCount.once(), requestTo(BASE_URL + path))
+                .andExpect(previousETag == null
+                        ? headerDoesNotExist(HttpHeaders.IF_NONE_MATCH)
+                        : header(HttpHeaders.IF_NONE_MATCH, previousETag))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON).headers(headers));
+    }
+
+    private void expectNotModified(String path, String eTag) {
+        server.expect(ExpectedCount.once(), requestTo(BASE_URL + path))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(header(HttpHeaders.IF_MODIFIED_SINCE, "Mon, 05 Oct 2026 10:00:00 GMT"))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+    }
+
+    @Test
+    void testFetchRestaurantsSendsOneRequest() {
+        expectOnce("/restaurants", RESTAURANTS);
+
+        Restaurant[] restaurants = restaurantService.fetchRestaurants(Validators.NONE).body();
+
+        assertEquals("Civerinos Slice", restaurants[0].name());
+        server.verify();
+    }
+
+    @Test
+    void testConfiguredBaseUrlIsUsed() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer stub = MockRestServiceServer.bindTo(restTemplate).build();
+        stub.expect(ExpectedCount.once(), requestTo("http://localhost:8089/ilp/restaurants"))
+                .andRespond(withSuccess(RESTAURANTS, MediaType.APPLICATION_JSON));
+
+        Restaurant[] restaurants = new RestaurantService(restTemplate, "http://localhost:8089/ilp/")
+                .fetchRestaurants(Validators.NONE).body();
+
+        assertEquals("Civerinos Slice", restaurants[0].name());
+        stub.verify();
+    }
+
+    @Test
+    void testEachRefreshSendsOneRequestPerDataset() {
+        expectOnce("/restaurants", RESTAURANTS);
+        expectOnce("/noFlyZones", NO_FLY_ZONES);
+        expectOnce("/centralArea", CENTRAL_AREA);
+
+        ReferenceDataSnapshot snapshot = cache.refresh();
+
+        assertEquals(1, snapshot.restaurants().length);
+        assertEquals(1, snapshot.noFlyZones().size());
+        assertEquals(3, snapshot.centralArea().size());
+        server.verify();
+    }
+
+    @Test
+    void testRefreshSendsValidatorsAndKeepsSnapshotWhenNotModified() {
+        expectWithValidators("/restaurants", RESTAURANTS, "\"r1\"");
+        expectWithValidators("/noFlyZones", NO_FLY_ZONES, "\"z1\"");
+        expectWithValidators("/centralArea", CENTRAL_AREA, "\"c1\"");
+        ReferenceDataSnapshot first = cache.refresh();
+        server.verify();
+        server.reset();
+
+        expectNotModified("/restaurants", "\"r1\"");
+        expectNotModified("/noFlyZones", "\"z1\"");
+        expectNotModified("/centralArea", "\"c1\"");
+
+        assertSame(first, cache.refresh());
+        server.verify();
+    }
+
+    @Test
+    void testRefreshRebuildsOnlyWhenADatasetChanged() {
+        expectWithValidators("/restaurants", RESTAURANTS, "\"r1\"");
+        expectWithValidators("/noFlyZones", NO_FLY_ZONES, "\"z1\"");
+        expectWithValidators("/centralArea", CENTRAL_AREA, "\"c1\"");
+        ReferenceDataSnapshot first = cache.refresh();
+        server.reset();
+
+        expectNotModified("/restaurants", "\"r1\"");
+        expectChanged("/noFlyZones", "[]", "\"z1\"", "\"z2\"");
+        expectNotModified("/centralArea", "\"c1\"");
+
+        ReferenceDataSnapshot second = cache.refresh();
+        assertTrue(second.version() > first.version());
+        assertTrue(second.noFlyZones().isEmpty());
+        assertSame(first.restaurants()[0], second.restaurants()[0]);
+        assertEquals(first.centralArea(), second.centralArea());
+        server.verify();
+    }
+
+    @Test
+    void testCachedSnapshotIsSharedWithoutFurtherRequests() {
+        expectOnce("/restaurants", RESTAURANTS);
+        expectOnce("/noFlyZones", NO_FLY_ZONES);
+        expectOnce("/centralArea", CENTRAL_AREA);
+
+        ReferenceDataSnapshot first = cache.getSnapshot();
+        for (int i = 0; i < 10; i++) {
+            assertSame(first, cache.getSnapshot());
+        }
+        server.verify();
+    }
+}
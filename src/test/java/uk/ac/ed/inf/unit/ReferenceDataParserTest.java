@@ -0,0 +1,98 @@
+package uk.ac.ed.inf.unit;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Polygon;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.ReferenceDataParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceDataParserTest {
+
+    private static <T> T parse(String json, ReferenceDataParser.Reader<T> reader) throws IOException {
+        return ReferenceDataParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), reader);
+    }
+
+    @Test
+    void testCentralAreaIsReadIntoAPrimitivePolygon() throws IOException {
+        List<LngLat> centralArea = parse("""
+                {"name": "central", "vertices": [{"lng": -3.192473, "lat": 55.946233},
+                  {"lat": 55.942617, "lng": -3.192473}, {"lng": -3.184319, "lat": 55.942617, "alt": 0},
+                  {"lng": -3.184319, "lat": 55.946233}, {"lng": -3.192473, "lat": 55.946233}]}
+                """, ReferenceDataParser::readCentralArea);
+
+        Polygon polygon = assertInstanceOf(Polygon.class, centralArea);
+        assertEquals(5, polygon.size());
+        assertEquals(-3.192473, polygon.lng(1));
+        assertEquals(55.942617, polygon.lat(1));
+        assertEquals(List.of(new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)), centralArea);
+    }
+
+    @Test
+    void testCentralAreaWithoutVerticesFails() {
+        assertThrows(NullPointerException.class,
+                () -> parse("{\"invalidKey\": \"someValue\"}", ReferenceDataParser::readCentralArea));
+    }
+
+    @Test
+    void testNoFlyZonesKeepTheirNamesAndVertices() throws IOException {
+        StringBuilder vertices = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            vertices.append(i == 0 ? "" : ", ").append("{\"lng\": -3.19").append(i).append(", \"lat\": 55.94}");
+        }
+
+        List<NoFlyZone> zones = parse("[{\"name\": \"George Square Area\", \"vertices\": [" + vertices + "]},"
+                + " {\"vertices\": [], \"name\": \"Empty\", \"extra\": {\"nested\": [1, 2]}}]",
+                ReferenceDataParser::readNoFlyZones);
+
+        assertEquals(2, zones.size());
+        assertEquals("George Square Area", zones.get(0).getName());
+        assertEquals(20, zones.get(0).getVertices().size(), "Vertex buffers grow past their initial size");
+        assertEquals(new LngLat(-3.1919, 55.94), zones.get(0).getVertices().get(19));
+        assertEquals("Empty", zones.get(1).getName());
+        assertTrue(zones.get(1).getVertices().isEmpty());
+    }
+
+    @Test
+    void testRestaurantsAreReadWithTheirMenus() throws IOException {
+        Restaurant[] restaurants = parse("""
+                [{"name": "Civerinos Slice", "location": {"lng": -3.1912869215011597, "lat": 55.945535152517735},
+                  "openingDays": ["MONDAY", "TUESDAY"], "rating": 5,
+                  "menu": [{"name": "R1: Margarita", "priceInPence": 1000}, {"name": "R1: Calzone", "priceInPence": 1400}]}]
+                """, ReferenceDataParser::readRestaurants);
+
+        assertEquals(1, restaurants.length);
+        Restaurant civerinos = restaurants[0];
+        assertEquals("Civerinos Slice", civerinos.name());
+        assertEquals(new LngLat(-3.1912869215011597, 55.945535152517735), civerinos.location());
+        assertArrayEquals(new DayOfWeek[]{DayOfWeek.MONDAY, DayOfWeek.TUESDAY}, civerinos.openingDays());
+        assertEquals(2, civerinos.menu().length);
+        assertEquals("R1: Calzone", civerinos.menu()[1].name());
+        assertEquals(1400, civerinos.menu()[1].priceInPence());
+    }
+
+    @Test
+    void testEmptyOrNullDocumentReadsAsNothing() throws IOException {
+        assertNull(parse("", ReferenceDataParser::readRestaurants));
+        assertNull(parse("null", ReferenceDataParser::readNoFlyZones));
+        assertNull(parse("", ReferenceDataParser::readCentralArea));
+    }
+
+    @Test
+    void testUnexpectedLayoutFails() {
+        assertThrows(JsonParseException.class, () -> parse("{\"name\": \"x\"}", ReferenceDataParser::readRestaurants));
+        assertThrows(JsonParseException.class,
+                () -> parse("{\"vertices\": {\"lng\": 1}}", ReferenceDataParser::readCentralArea));
+    }
+}
@@ -0,0 +1,173 @@
+package uk.ac.ed.inf.unit;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.data.DerivedIndex;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Pizza;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceDataSnapshotTest {
+
+    private static final Restaurant CIVERINOS = new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+            DayOfWeek.values(), new Pizza[]{new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400)});
+    private static final Restaurant SORA = new Restaurant("Sora Lella Vegan Restaurant", new LngLat(-3.202541470527649, 55.943284737579376),
+            DayOfWeek.values(), new Pizza[]{new Pizza("R2: Meat Lover", 1400), new Pizza("R1: Margarita", 1000)});
+
+    private static ReferenceDataSnapshot snapshot() {
+        return new ReferenceDataSnapshot(new Restaurant[]{CIVERINOS, SORA}, List.of(),
+                List.of(new LngLat(-3.192473, 55.946233), new LngLat(-3.184319, 55.942617)));
+    }
+
+    @Test
+    void testLaterSnapshotsHaveHigherVersions() {
+        ReferenceDataSnapshot first = snapshot();
+        ReferenceDataSnapshot second = snapshot();
+
+        assertTrue(second.version() > first.version());
+    }
+
+    @Test
+    void testCopiesItsInputs() {
+        Restaurant[] restaurants = {CIVERINOS};
+        List<NoFlyZone> zones = new ArrayList<>();
+        ReferenceDataSnapshot snapshot = new ReferenceDataSnapshot(restaurants, zones, List.of());
+
+        restaurants[0] = SORA;
+        zones.add(new NoFlyZone("Zone", List.of()));
+        snapshot.restaurants()[0] = SORA;
+
+        assertSame(CIVERINOS, snapshot.restaurants()[0]);
+        assertTrue(snapshot.noFlyZones().isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.centralArea().add(new LngLat(0, 0)));
+    }
+
+    @Test
+    void testFindsFirstRestaurantServingAnyPizza() {
+        ReferenceDataSnapshot snapshot = snapshot();
+
+        assertSame(SORA, snapshot.findRestaurantServing(new Pizza[]{new Pizza("R2: Meat Lover", 1400)}));
+        assertSame(CIVERINOS, snapshot.findRestaurantServing(
+                new Pizza[]{new Pizza("R2: Meat Lover", 1400), new Pizza("R1: Margarita", 1000)}));
+        assertNull(snapshot.findRestaurantServing(new Pizza[]{new Pizza("R9: Unknown", 1000)}));
+    }
+
+    @Test
+    void testIndexIsBuiltOncePerSnapshot() {
+        AtomicInteger builds = new AtomicInteger();
+        DerivedIndex<Integer> vertexCount = new DerivedIndex<>("vertexCount", s -> {
+            builds.incrementAndGet();
+            return s.centralArea().size();
+        });
+        ReferenceDataSnapshot first = snapshot();
+
+        assertEquals(2, first.index(vertexCount));
+        assertEquals(2, first.index(vertexCount));
+        assertEquals(1, builds.get());
+
+        snapshot().index(vertexCount);
+        assertEquals(2, builds.get(), "A new version builds its own index");
+    }
+
+    @Test
+    void testContentHashDependsOnlyOnTheData() {
+        ReferenceDataSnapshot first = snapshot();
+        ReferenceDataSnapshot second = snapshot();
+        ReferenceDataSnapshot moved = new ReferenceDataSnapshot(new Restaurant[]{CIVERINOS, SORA}, List.of(),
+                List.of(new LngLat(-3.19, 55.94), new LngLat(-3.18, 55.95)));
+
+        assertEquals(32, first.contentHash().length);
+        assertArrayEquals(first.contentHash(), second.contentHash());
+        assertFalse(Arrays.equals(first.contentHash(), moved.contentHash()));
+    }
+
+    @Test
+    void testPreloadedIndexIsNotBuilt() {
+        AtomicInteger builds = new AtomicInteger();
+        DerivedIndex<Integer> vertexCount = new DerivedIndex<>("vertexCount", s -> {
+            builds.incrementAndGet();
+            return s.centralArea().size();
+        });
+        ReferenceDataSnapshot snapshot = snapshot();
+
+        assertNull(snapshot.builtIndex(vertexCount));
+        snapshot.preloadIndex(vertexCount, 7);
+
+        assertEquals(7, snapshot.index(vertexCount));
+        assertEquals(7, snapshot.builtIndex(vertexCount));
+        assertEquals(0, builds.get());
+    }
+
+    @Test
+    void testPreloadKeepsAnIndexAlreadyBuilt() {
+        DerivedIndex<Integer> vertexCount = new DerivedIndex<>("vertexCount", s -> s.centralArea().size());
+        ReferenceDataSnapshot snapshot = snapshot();
+        snapshot.index(vertexCount);
+
+        snapshot.preloadIndex(vertexCount, 7);
+
+        assertEquals(2, snapshot.index(vertexCount));
+    }
+
+    @Test
+    void testConcurrentFirstUsesBuildOnce() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        DerivedIndex<Object> slowIndex = new DerivedIndex<>("slow", s -> {
+            builds.incrementAndGet();
+            sleepQuietly(50);
+            return new Object();
+        });
+        ReferenceDataSnapshot snapshot = snapshot();
+
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(threads.submit(() -> {
+                    start.await();
+                    return snapshot.index(slowIndex);
+                }));
+            }
+            start.countDown();
+
+            Object first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Object> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void testIndexMayReadOtherIndices() {
+        DerivedIndex<Integer> vertexCount = new DerivedIndex<>("vertexCount", s -> s.centralArea().size());
+        DerivedIndex<Integer> doubled = new DerivedIndex<>("doubled", s -> 2 * s.index(vertexCount));
+
+        assertEquals(4, snapshot().index(doubled));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package uk.ac.ed.inf.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Pizza;
+import uk.ac.ed.inf.data.Polygon;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.external.FetchedSnapshot;
+import uk.ac.ed.inf.external.ReferenceDataStore;
+import uk.ac.ed.inf.external.Validators;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceDataStoreTest {
+
+    private static final LngLat CIVERINOS = new LngLat(-3.1912869215011597, 55.945535152517735);
+    private static final List<LngLat> CENTRAL_AREA = List.of(
+            new LngLat(-3.192473, 55.946233),
+            new LngLat(-3.192473, 55.942617),
+            new LngLat(-3.184319, 55.942617),
+            new LngLat(-3.184319, 55.946233),
+            new LngLat(-3.192473, 55.946233));
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("store").resolve("reference-data.json");
+    }
+
+    private ReferenceDataStore store(boolean enabled) {
+        return new ReferenceDataStore(enabled, file.toString(), new ObjectMapper().findAndRegisterModules());
+    }
+
+    private static FetchedSnapshot fetched() {
+        Restaurant civerinos = new Restaurant("Civerinos Slice", CIVERINOS,
+                new DayOfWeek[]{DayOfWeek.MONDAY}, new Pizza[]{new Pizza("R1: Margarita", 1000)});
+        NoFlyZone zone = new NoFlyZone("George Square Area", List.of(new LngLat(-3.1905, 55.9440),
+                new LngLat(-3.1899, 55.9428), new LngLat(-3.1870, 55.9432), new LngLat(-3.1905, 55.9440)));
+        return new FetchedSnapshot(new ReferenceDataSnapshot(new Restaurant[]{civerinos}, List.of(zone), CENTRAL_AREA),
+                new Validators("\"r1\"", null), Validators.NONE,
+                new Validators(null, "Mon, 05 Oct 2026 10:00:00 GMT"));
+    }
+
+    @Test
+    void testSavedSnapshotLoadsBackWithItsValidators() {
+        FetchedSnapshot saved = fetched();
+        store(true).save(saved);
+
+        FetchedSnapshot loaded = store(true).load().orElseThrow();
+
+        ReferenceDataSnapshot snapshot = loaded.snapshot();
+        assertTrue(snapshot.version() > saved.snapshot().version());
+        assertEquals("Civerinos Slice", snapshot.restaurants()[0].name());
+        assertEquals("R1: Margarita", snapshot.restaurants()[0].menu()[0].name());
+        assertEquals("George Square Area", snapshot.noFlyZones().get(0).getName());
+        assertEquals(saved.snapshot().noFlyZones().get(0).getVertices(), snapshot.noFlyZones().get(0).getVertices());
+        assertEquals(CENTRAL_AREA, snapshot.centralArea());
+        assertEquals(saved.restaurants(), loaded.restaurants());
+        assertEquals(saved.noFlyZones(), loaded.noFlyZones());
+        assertEquals(saved.centralArea(), loaded.centralArea());
+        assertArrayEquals(saved.snapshot().contentHash(), snapshot.contentHash());
+    }
+
+    @Test
+    void testLoadedRegionsAreParsedIntoPolygons() {
+        store(true).save(fetched());
+
+        ReferenceDataSnapshot snapshot = store(true).load().orElseThrow().snapshot();
+
+        assertInstanceOf(Polygon.class, snapshot.noFlyZones().get(0).getVertices());
+        assertInstanceOf(Polygon.class, snapshot.centralArea());
+    }
+
+    @Test
+    void testSaveReplacesTheStoredSnapshot() {
+        store(true).save(fetched());
+        FetchedSnapshot empty = new FetchedSnapshot(new ReferenceDataSnapshot(new Restaurant[0], List.of(), CENTRAL_AREA),
+                Validators.NONE, Validators.NONE, Validators.NONE);
+        store(true).save(empty);
+
+        assertEquals(0, store(true).load().orElseThrow().snapshot().restaurants().length);
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(List.of(file), files.toList(), "No temporary file is left behind");
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Test
+    void testMissingFileLoadsNothing() {
+        assertTrue(store(true).load().isEmpty());
+    }
+
+    @Test
+    void testUnreadableFileLoadsNothing() throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "{\"formatVersion\": 1, \"restaurants\": [");
+
+        assertTrue(store(true).load().isEmpty());
+    }
+
+    @Test
+    void testOtherFormatVersionLoadsNothing() throws IOException {
+        store(true).save(fetched());
+        Files.writeString(file, Files.readString(file).replace("\"formatVersion\":3", "\"formatVersion\":99"));
+
+        assertTrue(store(true).load().isEmpty());
+    }
+
+    @Test
+    void testDisabledStoreNeitherWritesNorReads() {
+        store(false).save(fetched());
+        assertFalse(Files.exists(file));
+
+        store(true).save(fetched());
+        assertTrue(store(false).load().isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.external.RequestHedger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestHedgerTest {
+
+    private SimpleMeterRegistry registry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private RequestHedger hedger(boolean enabled, long initialDelayMillis) {
+        return new RequestHedger(enabled, 95, 10, initialDelayMillis, 16, registry);
+    }
+
+    private double hedges(String result) {
+        return registry.get("pizzadronz.reference-data.hedge").tag("result", result).counter().count();
+    }
+
+    @Test
+    void testSlowFetchIsHedgedAndTheFirstAnswerWins() throws InterruptedException {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        RequestHedger hedger = hedger(true, 50);
+
+        String result = hedger.fetch("restaurants", () -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    neverReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            }
+            return "hedge";
+        }, executor).orTimeout(2, TimeUnit.SECONDS).join();
+
+        assertEquals("hedge", result);
+        assertEquals(2, calls.get());
+        assertEquals(1, hedges("sent"));
+        // The win is counted just after the result completes
+        for (int i = 0; i < 100 && hedges("won") == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, hedges("won"));
+    }
+
+    @Test
+    void testFastFetchIsNotHedged() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        RequestHedger hedger = hedger(true, 200);
+
+        assertEquals("fast", hedger.fetch("restaurants", () -> {
+            calls.incrementAndGet();
+            return "fast";
+        }, executor).join());
+
+        Thread.sleep(300);
+        assertEquals(1, calls.get());
+        assertEquals(0, hedges("sent"));
+    }
+
+    @Test
+    void testHedgeDelayFollowsThePercentileOfRecentLatencies() {
+        RequestHedger hedger = hedger(true, 500);
+        assertEquals(500, hedger.hedgeDelayMillis("noFlyZones"), "Initial delay until enough fetches are seen");
+
+        for (int i = 0; i < 16; i++) {
+            hedger.fetch("noFlyZones", () -> "zones", executor).join();
+        }
+
+        long delay = hedger.hedgeDelayMillis("noFlyZones");
+        assertTrue(delay >= 10 && delay < 500, "Fast fetches hedge sooner, but not before the minimum delay: " + delay);
+        assertEquals(500, hedger.hedgeDelayMillis("centralArea"), "Latencies are kept per dataset");
+    }
+
+    @Test
+    void testFailureBeforeTheHedgeIsReportedAtOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        RequestHedger hedger = hedger(true, 500);
+
+        CompletableFuture<String> result = hedger.fetch("centralArea", () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Upstream down");
+        }, executor);
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> result.orTimeout(200, TimeUnit.MILLISECONDS).join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testDisabledHedgerSendsOnce() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        RequestHedger hedger = hedger(false, 10);
+
+        CompletableFuture<String> result = hedger.fetch("restaurants", () -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "once";
+        }, executor);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals("once", result.join());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testRejectsInvalidPercentile() {
+        assertThrows(IllegalArgumentException.class, () -> new RequestHedger(true, 0, 10, 10, 16, registry));
+        assertThrows(IllegalArgumentException.class, () -> new RequestHedger(true, 101, 10, 10, 16, registry));
+    }
+}
@@ -1,42 +1,107 @@
 package uk.ac.ed.inf.unit;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import uk.ac.ed.inf.constant.SystemConstants;
 import uk.ac.ed.inf.data.LngLat;
 import uk.ac.ed.inf.data.Restaurant;
 import uk.ac.ed.inf.data.Pizza;
+import uk.ac.ed.inf.external.ConditionalFetch;
 import uk.ac.ed.inf.external.RestaurantService;
-
+import uk.ac.ed.inf.external.UpstreamHttpClientConfig;
+import uk.ac.ed.inf.external.Validators;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
 import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 public class RestaurantServiceTest {
 
-    @Mock
-    private RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockRestServiceServer server;
 
-    @InjectMocks
     private RestaurantService restaurantService;
 
+    private HttpServer upstream;
+
     @BeforeEach
     void setUp() {
-        MockitoAnnotations.openMocks(this);
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
         restaurantService = new RestaurantService(restTemplate);
     }
 
+    @AfterEach
+    void tearDown() {
+        if (upstream != null) {
+            upstream.stop(0);
+        }
+    }
+
+    /**
+     * Starts a local upstream serving /restaurants, and a service fetching from it through the upstream WebClient.
+     */
+    private RestaurantService serviceAgainst(HttpHandler restaurants) throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        upstream.createContext("/restaurants", restaurants);
+        upstream.start();
+        UpstreamHttpClientConfig config = new UpstreamHttpClientConfig();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HttpClient client = config.upstreamHttpClient(HttpClient.Version.HTTP_1_1, 1000, 2, registry);
+        WebClient webClient = config.upstreamWebClient(client, 1000, WebClient.builder(), registry);
+        return new RestaurantService(new RestTemplate(), webClient, "http://localhost:" + upstream.getAddress().getPort());
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void respond(ResponseCreator response) {
+        server.expect(ExpectedCount.once(), requestTo(SystemConstants.ILP_REST_BASE_URL + "/restaurants"))
+                .andRespond(response);
+    }
+
+    private void respond(Restaurant[] restaurants) throws JsonProcessingException {
+        respond(withSuccess(objectMapper.writeValueAsString(restaurants), MediaType.APPLICATION_JSON));
+    }
+
     @Test
-    void testFetchRestaurants() {
+    void testFetchRestaurants() throws JsonProcessingException {
 
         Pizza[] mockMenu = {
                 new Pizza("R2: Meat Lover", 1400),
@@ -48,9 +113,9 @@ public class RestaurantServiceTest {
                 new Restaurant("Mock Restaurant", mockLocation, openingDays, mockMenu)
         };
 
-        when(restTemplate.getForObject(anyString(), eq(Restaurant[].class))).thenReturn(mockRestaurants);
+        respond(mockRestaurants);
 
-        Restaurant[] result = restaurantService.fetchRestaurants();
+        Restaurant[] result = restaurantService.fetchRestaurants(Validators.NONE).body();
 
         for (Restaurant restaurant : result) {
             assertNotNull(restaurant.name());
@@ -65,36 +130,34 @@ public class RestaurantServiceTest {
         assertEquals(1, result.length);
         assertNotNull(result);
         assertNotNull(mockRestaurants.length);
+        server.verify();
     }
 
     @Test
     void testFetchRestaurantsApiFailure() {
-        when(restTemplate.getForObject(anyString(), eq(Restaurant[].class)))
-                .thenThrow(new RuntimeException("API Failure"));
+        respond(withServerError());
 
-        assertThrows(RuntimeException.class, () -> restaurantService.fetchRestaurants());
+        assertThrows(RuntimeException.class, () -> restaurantService.fetchRestaurants(Validators.NONE));
     }
 
     @Test
-    void testFetchRestaurantsEmptyResponse() {
-        when(restTemplate.getForObject(anyString(), eq(Restaurant[].class)))
-                .thenReturn(new Restaurant[]{});
+    void testFetchRestaurantsEmptyResponse() throws JsonProcessingException {
+        respond(new Restaurant[]{});
 
-        Restaurant[] result = restaurantService.fetchRestaurants();
+        Restaurant[] result = restaurantService.fetchRestaurants(Validators.NONE).body();
         assertNotNull(result);
         assertEquals(0, result.length);
     }
 
     @Test
     void testFetchRestaurantsIncorrectFormat() {
-        when(restTemplate.getForObject(anyString(), eq(Restaurant[].class)))
-                .thenReturn(null);
+        respond(withSuccess("null", MediaType.APPLICATION_JSON));
 
-        assertThrows(NullPointerException.class, () -> restaurantService.fetchRestaurants());
+        assertThrows(NullPointerException.class, () -> restaurantService.fetchRestaurants(Validators.NONE));
     }
 
     @Test
-    void testFetchLargeMenu() {
+    void testFetchLargeMenu() throws JsonProcessingException {
         Pizza[] hugeMenu = new Pizza[200];
         Arrays.fill(hugeMenu, new Pizza("Super Pizza", 1200));
 
@@ -103,15 +166,54 @@ public class RestaurantServiceTest {
                 new DayOfWeek[]{DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY},
                 hugeMenu);
 
-        when(restTemplate.getForObject(anyString(), eq(Restaurant[].class)))
-                .thenReturn(new Restaurant[]{restaurant});
+        respond(new Restaurant[]{restaurant});
 
-        Restaurant[] result = restaurantService.fetchRestaurants();
+        Restaurant[] result = restaurantService.fetchRestaurants(Validators.NONE).body();
 
         assertNotNull(result);
         assertEquals(1, result.length);
         assertEquals(200, result[0].menu().length);
     }
 
+    @Test
+    void testFetchRestaurantsAsyncRevalidatesWithoutBody() throws Exception {
+        Restaurant restaurant = new Restaurant("Mock Restaurant", new LngLat(-3.2025, 55.9432),
+                new DayOfWeek[]{DayOfWeek.MONDAY}, new Pizza[]{new Pizza("R1: Margarita", 1000)});
+        String body = objectMapper.writeValueAsString(new Restaurant[]{restaurant});
+        RestaurantService service = serviceAgainst(exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                send(exchange, 304, "");
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            send(exchange, 200, body);
+        });
+
+        ConditionalFetch<Restaurant[]> fetched = service.fetchRestaurantsAsync(Validators.NONE).get(5, TimeUnit.SECONDS);
+        assertEquals("Mock Restaurant", fetched.body()[0].name());
+        assertEquals("\"v1\"", fetched.validators().eTag());
+
+        ConditionalFetch<Restaurant[]> revalidated = service.fetchRestaurantsAsync(fetched.validators())
+                .get(5, TimeUnit.SECONDS);
+        assertFalse(revalidated.isModified());
+        assertEquals(fetched.validators(), revalidated.validators());
+    }
+
+    @Test
+    void testFetchRestaurantsAsyncApiFailure() throws IOException {
+        RestaurantService service = serviceAgainst(exchange -> send(exchange, 500, "{}"));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> service.fetchRestaurantsAsync(Validators.NONE).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(WebClientResponseException.InternalServerError.class, e.getCause());
+    }
 
+    @Test
+    void testFetchRestaurantsAsyncIncorrectFormat() throws IOException {
+        RestaurantService service = serviceAgainst(exchange -> send(exchange, 200, "null"));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> service.fetchRestaurantsAsync(Validators.NONE).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NullPointerException.class, e.getCause());
+    }
 }
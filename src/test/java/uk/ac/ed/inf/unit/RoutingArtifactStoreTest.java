@@ -0,0 +1,147 @@
+package uk.ac.ed.inf.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ed.inf.constant.CorridorShape;
+import uk.ac.ed.inf.constant.PathfindingMode;
+import uk.ac.ed.inf.data.LngLat;
+import uk.ac.ed.inf.data.NoFlyZone;
+import uk.ac.ed.inf.data.Pizza;
+import uk.ac.ed.inf.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.data.Restaurant;
+import uk.ac.ed.inf.flightpath.PathPlanner;
+import uk.ac.ed.inf.flightpath.ReachabilityMap;
+import uk.ac.ed.inf.flightpath.RoutingArtifactStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoutingArtifactStoreTest {
+
+    private static final LngLat CIVERINOS = new LngLat(-3.1912869215011597, 55.945535152517735);
+    private static final List<LngLat> CENTRAL_AREA = List.of(
+            new LngLat(-3.192473, 55.946233),
+            new LngLat(-3.192473, 55.942617),
+            new LngLat(-3.184319, 55.942617),
+            new LngLat(-3.184319, 55.946233),
+            new LngLat(-3.192473, 55.946233));
+    private static final List<NoFlyZone> NO_FLY_ZONES = List.of(new NoFlyZone("George Square Area",
+            List.of(new LngLat(-3.1905, 55.9440), new LngLat(-3.1899, 55.9428),
+                    new LngLat(-3.1870, 55.9432), new LngLat(-3.1905, 55.9440))));
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private PathPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("artifacts").resolve("routing.bin");
+        planner = planner(true);
+    }
+
+    private static PathPlanner planner(boolean smoothing) {
+        return new PathPlanner(PathfindingMode.A_STAR, 200_000, 65_536, smoothing,
+                CorridorShape.NONE, 8, new SimpleMeterRegistry());
+    }
+
+    private RoutingArtifactStore store(boolean enabled, PathPlanner pathPlanner) {
+        return new RoutingArtifactStore(enabled, file.toString(), pathPlanner);
+    }
+
+    private static ReferenceDataSnapshot snapshot(List<NoFlyZone> noFlyZones) {
+        Restaurant civerinos = new Restaurant("Civerinos Slice", CIVERINOS,
+                DayOfWeek.values(), new Pizza[]{new Pizza("R1: Margarita", 1000)});
+        return new ReferenceDataSnapshot(new Restaurant[]{civerinos}, noFlyZones, CENTRAL_AREA);
+    }
+
+    @Test
+    void testWrittenArtifactIsMappedForEqualData() {
+        ReferenceDataSnapshot written = snapshot(NO_FLY_ZONES);
+        store(true, planner).write(written);
+        ReferenceDataSnapshot replica = snapshot(NO_FLY_ZONES);
+
+        assertTrue(store(true, planner).attach(replica));
+
+        Map<LngLat, List<LngLat>> paths = replica.builtIndex(planner.pathsToAppletonIndex());
+        assertNotNull(paths, "Paths are taken from the artifact without planning them");
+        assertEquals(written.index(planner.pathsToAppletonIndex()), paths);
+    }
+
+    @Test
+    void testMappedReachabilityMapAnswersLikeABuiltOne() {
+        store(true, planner).write(snapshot(NO_FLY_ZONES));
+        ReferenceDataSnapshot replica = snapshot(NO_FLY_ZONES);
+        assertTrue(store(true, planner).attach(replica));
+
+        ReachabilityMap mapped = replica.builtIndex(ReachabilityMap.INDEX);
+        assertNotNull(mapped, "The map is taken from the artifact without building it");
+        ReachabilityMap built = new ReachabilityMap(NO_FLY_ZONES, CENTRAL_AREA);
+        LngLat appleton = new LngLat(-3.186874, 55.944494);
+        for (LngLat start : List.of(CIVERINOS, new LngLat(-3.1885, 55.9432), new LngLat(-3.2025, 55.9433),
+                new LngLat(-3.1880, 55.9450))) {
+            assertEquals(built.isReachable(start, appleton), mapped.isReachable(start, appleton), start.toString());
+        }
+    }
+
+    @Test
+    void testArtifactForOtherDataIsIgnored() {
+        store(true, planner).write(snapshot(NO_FLY_ZONES));
+        ReferenceDataSnapshot changed = snapshot(List.of());
+
+        assertFalse(store(true, planner).attach(changed));
+        assertNull(changed.builtIndex(planner.pathsToAppletonIndex()));
+    }
+
+    @Test
+    void testArtifactFromOtherPlannerConfigurationIsIgnored() {
+        store(true, planner).write(snapshot(NO_FLY_ZONES));
+        PathPlanner unsmoothed = planner(false);
+
+        assertFalse(store(true, unsmoothed).attach(snapshot(NO_FLY_ZONES)));
+    }
+
+    @Test
+    void testCorruptArtifactIsIgnored() throws IOException {
+        store(true, planner).write(snapshot(NO_FLY_ZONES));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertFalse(store(true, planner).attach(snapshot(NO_FLY_ZONES)));
+    }
+
+    @Test
+    void testPrepareWritesOnlyWhenNoArtifactMatches() throws IOException {
+        store(true, planner).prepare(snapshot(NO_FLY_ZONES));
+        assertTrue(Files.exists(file));
+        var written = Files.getLastModifiedTime(file);
+        byte[] contents = Files.readAllBytes(file);
+
+        store(true, planner).prepare(snapshot(NO_FLY_ZONES));
+
+        assertEquals(written, Files.getLastModifiedTime(file));
+        assertArrayEquals(contents, Files.readAllBytes(file));
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(List.of(file), files.toList(), "No temporary file is left behind");
+        }
+    }
+
+    @Test
+    void testDisabledStoreNeitherWritesNorMaps() {
+        store(false, planner).prepare(snapshot(NO_FLY_ZONES));
+        assertFalse(Files.exists(file));
+
+        store(true, planner).write(snapshot(NO_FLY_ZONES));
+        assertFalse(store(false, planner).attach(snapshot(NO_FLY_ZONES)));
+    }
+}
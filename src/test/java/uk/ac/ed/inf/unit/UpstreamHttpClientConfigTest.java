@@ -0,0 +1,144 @@
+package uk.ac.ed.inf.unit;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import uk.ac.ed.inf.external.UpstreamHttpClientConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpstreamHttpClientConfigTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private SimpleMeterRegistry registry;
+    private final Set<InetSocketAddress> clientAddresses = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Double> inFlightDuringRequest = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        registry = new SimpleMeterRegistry();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/restaurants", exchange -> {
+            clientAddresses.add(exchange.getRemoteAddress());
+            inFlightDuringRequest.set(registry.get("pizzadronz.upstream.in-flight").gauge().value());
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private RestTemplate restTemplate(HttpClient.Version version, long readTimeoutMs) {
+        UpstreamHttpClientConfig config = new UpstreamHttpClientConfig();
+        HttpClient client = config.upstreamHttpClient(version, 1000, 2, registry);
+        return config.restTemplate(client, readTimeoutMs, new RestTemplateBuilder(), registry);
+    }
+
+    @Test
+    void testClientUsesTheConfiguredProtocolAndConnectTimeout() {
+        HttpClient client = new UpstreamHttpClientConfig().upstreamHttpClient(HttpClient.Version.HTTP_2, 1500, 2, registry);
+
+        assertEquals(HttpClient.Version.HTTP_2, client.version());
+        assertEquals(Duration.ofMillis(1500), client.connectTimeout().orElseThrow());
+        assertEquals(2.0, registry.get("executor.pool.core").tag("name", "upstreamHttp").gauge().value());
+    }
+
+    @Test
+    void testRequestsReuseOnePooledConnection() {
+        RestTemplate restTemplate = restTemplate(HttpClient.Version.HTTP_1_1, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("[]", restTemplate.getForObject(baseUrl + "/restaurants", String.class));
+        }
+
+        assertEquals(1, clientAddresses.size(), "Every request went over the same connection");
+    }
+
+    @Test
+    void testHttp2ClientFallsBackToHttp11() {
+        RestTemplate restTemplate = restTemplate(HttpClient.Version.HTTP_2, 1000);
+
+        assertEquals("[]", restTemplate.getForObject(baseUrl + "/restaurants", String.class));
+    }
+
+    @Test
+    void testInFlightRequestsArePublished() {
+        RestTemplate restTemplate = restTemplate(HttpClient.Version.HTTP_1_1, 1000);
+
+        restTemplate.getForObject(baseUrl + "/restaurants", String.class);
+
+        assertEquals(1.0, inFlightDuringRequest.get());
+        assertEquals(0.0, registry.get("pizzadronz.upstream.in-flight").gauge().value());
+    }
+
+    @Test
+    void testSlowResponseTimesOut() {
+        RestTemplate restTemplate = restTemplate(HttpClient.Version.HTTP_1_1, 100);
+
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject(baseUrl + "/slow", String.class));
+        assertEquals(0.0, registry.get("pizzadronz.upstream.in-flight").gauge().value());
+    }
+
+    @Test
+    void testWebClientSharesTheInFlightGaugeAndTimesOut() {
+        UpstreamHttpClientConfig config = new UpstreamHttpClientConfig();
+        HttpClient client = config.upstreamHttpClient(HttpClient.Version.HTTP_1_1, 1000, 2, registry);
+        config.restTemplate(client, 1000, new RestTemplateBuilder(), registry);
+        WebClient webClient = config.upstreamWebClient(client, 100, WebClient.builder(), registry);
+
+        assertEquals("[]", webClient.get().uri(baseUrl + "/restaurants").retrieve().bodyToMono(String.class)
+                .block(Duration.ofSeconds(5)));
+        assertEquals(1.0, inFlightDuringRequest.get());
+        assertThrows(RuntimeException.class, () -> webClient.get().uri(baseUrl + "/slow").retrieve()
+                .toBodilessEntity().block(Duration.ofSeconds(5)));
+        assertEquals(0.0, registry.get("pizzadronz.upstream.in-flight").gauge().value());
+    }
+
+    @Test
+    void testRejectsNonPositiveTimeouts() {
+        UpstreamHttpClientConfig config = new UpstreamHttpClientConfig();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> config.upstreamHttpClient(HttpClient.Version.HTTP_2, 0, 2, registry));
+        HttpClient client = config.upstreamHttpClient(HttpClient.Version.HTTP_2, 1000, 2, registry);
+        assertThrows(IllegalArgumentException.class,
+                () -> config.restTemplate(client, 0, new RestTemplateBuilder(), registry));
+        assertThrows(IllegalArgumentException.class,
+                () -> config.upstreamWebClient(client, 0, WebClient.builder(), registry));
+    }
+}